@@ -0,0 +1,100 @@
+package benchmarks;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import engine.BoardTopology;
+import engine.RunesEngine;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * BenchmarkBoard Class
+ * The board every benchmark plays on, one per benchmark thread.
+ *
+ * The board is chosen with JMH parameters, e.g. -p size=1000 -p density=0.25 -p shape=HEX.
+ * Sizes run from the Adept board of the game to the Endless Fields board, and densities from
+ * an easy board to a dense one. Random sources are seeded, so every run plays the same boards.
+ * Benchmarks that prepare more than the board before each call extend this state with their own.
+ */
+@State(Scope.Thread)
+public class BenchmarkBoard {
+
+	//Seed of the random sources, shared by all runs
+	public static final long SEED = 42;
+
+	@Param({"17", "100", "1000"})
+	public int size;
+
+	@Param({"0.10", "0.155", "0.25"})
+	public double density;
+
+	@Param({"CIRCLE"})
+	public String shape;
+
+	public BoardTopology topology;
+	public int numFires;
+	public RunesEngine engine;
+	//Scratch arrays of largestOpening(), kept so preparing a board allocates nothing that -prof gc would count
+	private boolean[] seen;
+	private int[] queue;
+
+	@Setup(Level.Trial)
+	public void createBoard() {
+		topology = BoardTopology.of(BoardTopology.Shape.valueOf(shape), size);
+		numFires = (int) Math.round(topology.getCellCount() * density);
+		//Fires are placed right away, so every benchmark starts from a complete board
+		engine = new RunesEngine(topology, numFires, new Random(SEED), false);
+		seen = new boolean[topology.getCellCount()];
+		queue = new int[topology.getCellCount()];
+	}
+
+	/**
+	 * Finds the safe cell without adjacent fires whose click opens the largest region
+	 *
+	 * @return The compact index of the cell, or -1 if the board has no such cell.
+	 */
+	public int largestOpening() {
+		int best = -1;
+		int bestSize = 0;
+		//Regions are measured with a flood fill over the fire counts, without clicking anything
+		Arrays.fill(seen, false);
+		for (int c = 0; c < topology.getCellCount(); c++) {
+			if (seen[c] || !isZero(c)) continue;
+			int head = 0;
+			int tail = 0;
+			int regionSize = 0;
+			seen[c] = true;
+			queue[tail++] = c;
+			while (head < tail) {
+				int cell = queue[head++];
+				regionSize++;
+				if (!isZero(cell)) continue;
+				for (int i = topology.neighbourStart(cell); i < topology.neighbourEnd(cell); i++) {
+					int neighbour = topology.neighbour(i);
+					if (!seen[neighbour]) {
+						seen[neighbour] = true;
+						queue[tail++] = neighbour;
+					}
+				}
+			}
+			if (regionSize > bestSize) {
+				bestSize = regionSize;
+				best = c;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * @return true if a cell is safe and has no adjacent fires.
+	 */
+	public boolean isZero(int c) {
+		int row = topology.row(c);
+		int col = topology.col(c);
+		return !engine.isFire(row, col) && engine.countAdjacentFires(row, col) == 0;
+	}
+}
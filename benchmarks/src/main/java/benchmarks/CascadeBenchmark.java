@@ -0,0 +1,97 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import engine.MoveResult;
+import engine.RunesEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * CascadeBenchmark Class
+ * Clicks that open cells: the largest opening cascade of a board (revealAdjacentCells and cellClick
+ * in the original UI), and the click on the last safe cell, which ends in the win check
+ * (checkWinCondition).
+ *
+ * Both clicks change the board, so the board is prepared again before every click, outside the
+ * measured time. Each click is long enough (microseconds up to milliseconds) for that to be accurate.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CascadeBenchmark {
+
+	/**
+	 * A fresh board and its cell opening the largest region
+	 */
+	@State(Scope.Thread)
+	public static class Opening extends BenchmarkBoard {
+		int row;
+		int col;
+
+		@Setup(Level.Invocation)
+		public void prepare() {
+			engine.newGame();
+			int cell = largestOpening();
+			row = topology.row(Math.max(0, cell));
+			col = topology.col(Math.max(0, cell));
+		}
+	}
+
+	/**
+	 * A board with every safe cell open but one
+	 */
+	@State(Scope.Thread)
+	public static class LastCell extends BenchmarkBoard {
+		int row;
+		int col;
+
+		@Setup(Level.Invocation)
+		public void prepare() {
+			do {
+				engine.newGame();
+				//Opens the safe cells in order until one is left; a cascade may open the last ones too, then the board is dealt again
+				for (int c = 0; c < topology.getCellCount() && engine.getSafeCellsRemaining() > 1; c++) {
+					open(engine, topology.row(c), topology.col(c));
+				}
+			} while (engine.getSafeCellsRemaining() != 1);
+
+			for (int c = 0; c < topology.getCellCount(); c++) {
+				row = topology.row(c);
+				col = topology.col(c);
+				if (!engine.isFire(row, col) && !engine.isRevealed(row, col)) return;
+			}
+		}
+
+		/**
+		 * Opens a safe cell, picking up any gem lying on it first
+		 */
+		private static void open(RunesEngine engine, int row, int col) {
+			if (engine.isFire(row, col) || engine.isRevealed(row, col)) return;
+			engine.collectGem(row, col);
+			engine.reveal(row, col);
+		}
+	}
+
+	@Benchmark
+	public MoveResult largestCascade(Opening opening) {
+		return opening.engine.reveal(opening.row, opening.col);
+	}
+
+	@Benchmark
+	public MoveResult winningClick(LastCell lastCell) {
+		lastCell.engine.collectGem(lastCell.row, lastCell.col);
+		return lastCell.engine.reveal(lastCell.row, lastCell.col);
+	}
+}
@@ -0,0 +1,74 @@
+package benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import engine.RunesEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * GameBenchmark Class
+ * Whole games played by a scripted clicker, with the first click safe as in the game.
+ *
+ * The clicker clicks the cells in a fixed random order, skipping opened ones, picks up every
+ * gem it sees and buys a Life Potion whenever it can afford one. It knows nothing about the
+ * fires, so most games end on a fire; the potions carry it further on the dense boards.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GameBenchmark {
+
+	/**
+	 * The clicker's engine and click order
+	 */
+	@State(Scope.Thread)
+	public static class Clicker extends BenchmarkBoard {
+		RunesEngine clickerEngine;
+		int[] order;
+
+		@Setup(Level.Trial)
+		public void prepare() {
+			clickerEngine = new RunesEngine(topology, numFires, new Random(SEED), true);
+			order = new int[topology.getCellCount()];
+			Random random = new Random(SEED);
+			for (int c = 0; c < order.length; c++) {
+				int i = random.nextInt(c + 1);
+				order[c] = order[i];
+				order[i] = c;
+			}
+		}
+	}
+
+	@Benchmark
+	public int scriptedGame(Clicker clicker) {
+		RunesEngine engine = clicker.clickerEngine;
+		engine.newGame();
+		for (int i = 0; i < clicker.order.length && !engine.isGameOver(); i++) {
+			int row = clicker.topology.row(clicker.order[i]);
+			int col = clicker.topology.col(clicker.order[i]);
+			if (engine.isRevealed(row, col)) continue;
+			engine.collectGem(row, col);
+			engine.reveal(row, col);
+			for (int g = engine.getLiveGemCount() - 1; g >= 0; g--) {
+				engine.collectGem(engine.getLiveGemRow(g), engine.getLiveGemCol(g));
+			}
+			if (engine.getGemCount() >= RunesEngine.POTION_PRICE) {
+				engine.buyPotion();
+			}
+		}
+		return engine.getCellsOpened();
+	}
+}
@@ -0,0 +1,77 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import engine.RunesEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * GemBenchmark Class
+ * Gem spawning: every click on a numbered cell opens that one cell, removes the gems of the
+ * previous click and spawns up to three new ones around it, so a run of such clicks measures
+ * the gem spawning with as little else as possible.
+ *
+ * Clicks are measured in batches of CLICKS, on numbered cells listed while the board is prepared.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GemBenchmark {
+
+	//Clicks measured per batch
+	private static final int CLICKS = 64;
+
+	/**
+	 * A fresh board and CLICKS numbered cells of it, spread over the board
+	 */
+	@State(Scope.Thread)
+	public static class NumberedCells extends BenchmarkBoard {
+		final int[] rows = new int[CLICKS];
+		final int[] cols = new int[CLICKS];
+		int count;
+
+		@Setup(Level.Invocation)
+		public void prepare() {
+			engine.newGame();
+			count = 0;
+			int cellCount = topology.getCellCount();
+			//Steps through the board with a stride coprime to its size, so the cells are spread out
+			int stride = 7919;
+			while (cellCount % stride == 0) stride += 2;
+			for (int i = 0, c = 0; i < cellCount && count < CLICKS; i++, c = (c + stride) % cellCount) {
+				int row = topology.row(c);
+				int col = topology.col(c);
+				if (!engine.isFire(row, col) && engine.countAdjacentFires(row, col) > 0) {
+					rows[count] = row;
+					cols[count] = col;
+					count++;
+				}
+			}
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(CLICKS)
+	public int numberedClicks(NumberedCells cells) {
+		RunesEngine engine = cells.engine;
+		int spawned = 0;
+		for (int i = 0; i < cells.count; i++) {
+			engine.reveal(cells.rows[i], cells.cols[i]);
+			spawned += engine.getLiveGemCount();
+		}
+		return spawned;
+	}
+}
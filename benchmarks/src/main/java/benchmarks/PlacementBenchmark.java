@@ -0,0 +1,48 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * PlacementBenchmark Class
+ * Starting a game: placing the fires and filling the fire count table (initializeGame in the
+ * original UI), and reading the counts back (countAdjacentFires).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlacementBenchmark {
+
+	/**
+	 * A new game: clears the board, places the fires and counts them for every cell
+	 */
+	@Benchmark
+	public int newGame(BenchmarkBoard board) {
+		board.engine.newGame();
+		return board.engine.getSafeCellsRemaining();
+	}
+
+	/**
+	 * Reads the fire count of every cell, as a full redraw of the board does
+	 */
+	@Benchmark
+	public void countAdjacentFires(BenchmarkBoard board, Blackhole blackhole) {
+		int width = board.topology.getWidth();
+		int height = board.topology.getHeight();
+		for (int row = 0; row < height; row++) {
+			for (int col = 0; col < width; col++) {
+				blackhole.consume(board.engine.countAdjacentFires(row, col));
+			}
+		}
+	}
+}
@@ -0,0 +1,84 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import engine.ReplayLog;
+import engine.Replayer;
+import engine.RunesEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ReplayBenchmark Class
+ * Recorded games replayed on the engine, with the first click safe as in the game.
+ *
+ * By default the game is recorded from the scripted clicker of GameBenchmark, seeded from SEED.
+ * A game saved by RunesReaperUI (-Drunesreaper.replays=dir) can be replayed instead with -p log=path/to/game.rrlog,
+ * its board then replaces the board parameters.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReplayBenchmark {
+
+	/**
+	 * The recorded game and the engine replaying it
+	 */
+	@State(Scope.Thread)
+	public static class Recording extends BenchmarkBoard {
+		@Param({""})
+		public String log;
+
+		ReplayLog replayLog;
+		RunesEngine replayEngine;
+
+		@Setup(Level.Trial)
+		public void record() throws IOException {
+			if (!log.isEmpty()) {
+				replayLog = ReplayLog.load(Paths.get(log));
+				replayEngine = Replayer.replay(replayLog);
+				return;
+			}
+			RunesEngine engine = new RunesEngine(topology, numFires, SEED, true);
+			replayLog = new ReplayLog();
+			engine.record(replayLog);
+			Random random = new Random(SEED);
+			for (int clicks = 0; clicks < topology.getCellCount() && !engine.isGameOver(); clicks++) {
+				int c = random.nextInt(topology.getCellCount());
+				int row = topology.row(c);
+				int col = topology.col(c);
+				if (engine.isRevealed(row, col)) continue;
+				engine.collectGem(row, col);
+				engine.reveal(row, col);
+				for (int g = engine.getLiveGemCount() - 1; g >= 0; g--) {
+					engine.collectGem(engine.getLiveGemRow(g), engine.getLiveGemCol(g));
+				}
+				if (engine.getGemCount() >= RunesEngine.POTION_PRICE) {
+					engine.buyPotion();
+				}
+			}
+			replayEngine = new RunesEngine(topology, numFires, SEED, true);
+		}
+	}
+
+	@Benchmark
+	public int replay(Recording recording) {
+		Replayer.replay(recording.replayLog, recording.replayEngine);
+		return recording.replayEngine.getCellsOpened();
+	}
+}
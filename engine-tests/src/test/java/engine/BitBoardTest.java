@@ -0,0 +1,80 @@
+package engine;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the word-level fire counts of BitBoard against a plain count of the eight neighbours,
+ * on widths around the word boundaries where the carries between words matter
+ */
+class BitBoardTest {
+
+	@Test
+	void countNeighboursMatchesPlainCount() {
+		SplittableRandom random = new SplittableRandom(7);
+		int[] widths = {1, 2, 63, 64, 65, 127, 128, 130};
+		for (int width : widths) {
+			for (int height : new int[]{1, 3, 17}) {
+				for (double density : new double[]{0.1, 0.5, 1.0}) {
+					BitBoard board = new BitBoard(width, height);
+					boolean[][] fire = new boolean[height][width];
+					for (int row = 0; row < height; row++) {
+						for (int col = 0; col < width; col++) {
+							if (random.nextDouble() < density) {
+								fire[row][col] = true;
+								board.set(BitBoard.FIRE, row, col);
+							}
+						}
+					}
+					board.countNeighbours();
+					for (int row = 0; row < height; row++) {
+						for (int col = 0; col < width; col++) {
+							assertEquals(plainCount(fire, row, col), board.neighbourCount(row, col),
+									width + "x" + height + " at " + row + "," + col);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	void setNeighbourCountStoresEveryCount() {
+		BitBoard board = new BitBoard(70, 2);
+		for (int count = 0; count < 16; count++) {
+			board.setNeighbourCount(1, 66, count);
+			assertEquals(count, board.neighbourCount(1, 66));
+		}
+	}
+
+	@Test
+	void loadLayerKeepsOnlyPlayableCells() {
+		BitBoard board = new BitBoard(65, 2);
+		board.set(BitBoard.PLAYABLE, 0, 0);
+		board.set(BitBoard.PLAYABLE, 1, 64);
+		long[] words = new long[board.copyLayer(BitBoard.REVEALED).length];
+		Arrays.fill(words, -1L);
+		board.loadLayer(BitBoard.REVEALED, words);
+		assertEquals(2, board.cardinality(BitBoard.REVEALED));
+		assertArrayEquals(board.copyLayer(BitBoard.PLAYABLE), board.copyLayer(BitBoard.REVEALED));
+	}
+
+	private static int plainCount(boolean[][] fire, int row, int col) {
+		int count = 0;
+		for (int dr = -1; dr <= 1; dr++) {
+			for (int dc = -1; dc <= 1; dc++) {
+				int r = row + dr;
+				int c = col + dc;
+				if ((dr != 0 || dc != 0) && r >= 0 && r < fire.length && c >= 0 && c < fire[0].length && fire[r][c]) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+}
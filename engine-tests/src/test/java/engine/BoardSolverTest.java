@@ -0,0 +1,96 @@
+package engine;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Plays games with the solver's answers and checks that every proof is right, and that proven fires
+ * left hidden don't keep the solver from looking for safe cells and suggesting guesses
+ */
+class BoardSolverTest {
+
+	private static final BooleanSupplier NEVER = () -> false;
+
+	@Test
+	void proofsAreSoundAndGuessesComeBack() {
+		int guesses = 0;
+		int fireOnlyHints = 0;
+		for (BoardTopology.Shape shape : BoardTopology.Shape.values()) {
+			BoardTopology topology = BoardTopology.of(shape, 16);
+			int numFires = topology.getCellCount() * 3 / 20;
+			BoardSolver solver = new BoardSolver(topology, numFires);
+			for (long seed = 0; seed < 40; seed++) {
+				RunesEngine engine = new RunesEngine(topology, numFires, seed, true);
+				solver.reset();
+				int first = topology.getCellCount() / 2;
+				tell(solver, engine, engine.reveal(topology.row(first), topology.col(first)));
+				boolean provenFireSeen = false;
+
+				while (!engine.isGameOver()) {
+					BoardSolver.Hint hint = solver.solve(NEVER, 0);
+					assertNotNull(hint);
+					for (int c : hint.getFireCells()) {
+						assertTrue(engine.isFire(topology.row(c), topology.col(c)), shape + " seed " + seed + " fire " + c);
+						provenFireSeen = true;
+					}
+					for (int c : hint.getSafeCells()) {
+						assertFalse(engine.isFire(topology.row(c), topology.col(c)), shape + " seed " + seed + " safe " + c);
+					}
+					if (hint.getKind() == BoardSolver.Hint.PROVEN && hint.getSafeCells().length == 0) {
+						//The fires were new, asking again looks further
+						assertTrue(hint.getFireCells().length > 0);
+						fireOnlyHints++;
+						BoardSolver.Hint next = solver.solve(NEVER, 0);
+						assertTrue(next.getKind() == BoardSolver.Hint.GUESS || next.getSafeCells().length > 0
+								|| next.getFireCells().length > hint.getFireCells().length, shape + " seed " + seed);
+						continue;
+					}
+					if (hint.getKind() == BoardSolver.Hint.GUESS) {
+						if (provenFireSeen) guesses++;
+						int cell = hint.getGuessCell();
+						assertTrue(cell >= 0);
+						assertFalse(engine.isRevealed(topology.row(cell), topology.col(cell)));
+						//A potion keeps the game going after a wrong guess
+						engine.collectGem(topology.row(cell), topology.col(cell));
+						if (engine.getPotionCount() == 0) {
+							engine.buyPotion();
+						}
+						tell(solver, engine, engine.reveal(topology.row(cell), topology.col(cell)));
+						continue;
+					}
+					for (int c : hint.getSafeCells()) {
+						if (engine.isGameOver()) break;
+						engine.collectGem(topology.row(c), topology.col(c));
+						tell(solver, engine, engine.reveal(topology.row(c), topology.col(c)));
+					}
+				}
+			}
+		}
+		//Guesses are still suggested once fires have been proven
+		assertTrue(guesses > 0);
+		assertTrue(fireOnlyHints > 0);
+	}
+
+	/**
+	 * Passes the opened cells and frozen fires of a move to the solver
+	 */
+	private static void tell(BoardSolver solver, RunesEngine engine, MoveResult result) {
+		BoardTopology topology = engine.getTopology();
+		for (int i = 0; i < result.size(); i++) {
+			int c = topology.cellAt(result.row(i), result.col(i));
+			if (result.kind(i) == MoveResult.OPENED) {
+				solver.cellOpened(c, engine.countAdjacentFires(result.row(i), result.col(i)));
+			} else if (result.kind(i) == MoveResult.FROZEN) {
+				solver.fireRevealed(c);
+			}
+		}
+		for (int g = engine.getLiveGemCount() - 1; g >= 0; g--) {
+			engine.collectGem(engine.getLiveGemRow(g), engine.getLiveGemCol(g));
+		}
+	}
+}
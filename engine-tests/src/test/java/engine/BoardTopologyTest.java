@@ -0,0 +1,109 @@
+package engine;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the neighbours of the full grids, whose table is computed rather than stored, and the ring distance
+ * of every shape against the neighbour steps of a breadth-first walk
+ */
+class BoardTopologyTest {
+
+	@Test
+	void fullGridsListTheSurroundingCellsInOffsetOrder() {
+		for (BoardTopology.Shape shape : new BoardTopology.Shape[] {
+				BoardTopology.Shape.SQUARE, BoardTopology.Shape.HEX, BoardTopology.Shape.TORUS}) {
+			for (int size : new int[] {1, 2, 3, 4, 7}) {
+				BoardTopology topology = BoardTopology.of(shape, size);
+				assertEquals(size * size, topology.getCellCount());
+				int maxDegree = 0;
+				for (int c = 0; c < topology.getCellCount(); c++) {
+					assertEquals(c, topology.cellAt(topology.row(c), topology.col(c)));
+					int[] listed = new int[topology.neighbourEnd(c) - topology.neighbourStart(c)];
+					for (int i = topology.neighbourStart(c); i < topology.neighbourEnd(c); i++) {
+						listed[i - topology.neighbourStart(c)] = topology.neighbour(i);
+					}
+					assertArrayEquals(expectedNeighbours(shape, size, c), listed, shape + " " + size + " cell " + c);
+					maxDegree = Math.max(maxDegree, listed.length);
+				}
+				assertEquals(maxDegree, topology.getMaxDegree(), shape + " " + size);
+			}
+		}
+	}
+
+	@Test
+	void distanceCountsNeighbourSteps() {
+		for (BoardTopology.Shape shape : new BoardTopology.Shape[] {
+				BoardTopology.Shape.SQUARE, BoardTopology.Shape.HEX, BoardTopology.Shape.TORUS}) {
+			for (int size : new int[] {1, 2, 3, 8, 13}) {
+				BoardTopology topology = BoardTopology.of(shape, size);
+				for (int from = 0; from < topology.getCellCount(); from++) {
+					int[] steps = walk(topology, from);
+					for (int c = 0; c < topology.getCellCount(); c++) {
+						assertEquals(steps[c], topology.distance(topology.row(from), topology.col(from), topology.row(c), topology.col(c)),
+								shape + " " + size + " from " + from + " to " + c);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return The fewest neighbour steps from a cell to every cell.
+	 */
+	private static int[] walk(BoardTopology topology, int from) {
+		int[] steps = new int[topology.getCellCount()];
+		Arrays.fill(steps, -1);
+		int[] queue = new int[steps.length];
+		int head = 0;
+		int tail = 0;
+		steps[from] = 0;
+		queue[tail++] = from;
+		while (head < tail) {
+			int c = queue[head++];
+			for (int i = topology.neighbourStart(c); i < topology.neighbourEnd(c); i++) {
+				int neighbour = topology.neighbour(i);
+				if (steps[neighbour] < 0) {
+					steps[neighbour] = steps[c] + 1;
+					queue[tail++] = neighbour;
+				}
+			}
+		}
+		return steps;
+	}
+
+	/**
+	 * @return The distinct neighbours of a cell of a size x size grid, walking the offsets in their table order.
+	 */
+	private static int[] expectedNeighbours(BoardTopology.Shape shape, int size, int c) {
+		int row = c / size;
+		int col = c % size;
+		int[][] offsets = {{-1, -1}, {-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, -1}, {1, 0}, {1, 1}};
+		if (shape == BoardTopology.Shape.HEX) {
+			offsets = (row & 1) == 0
+					? new int[][] {{-1, -1}, {-1, 0}, {0, -1}, {0, 1}, {1, -1}, {1, 0}}
+					: new int[][] {{-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, 0}, {1, 1}};
+		}
+		int[] found = new int[offsets.length];
+		int n = 0;
+		for (int[] offset : offsets) {
+			int newRow = row + offset[0];
+			int newCol = col + offset[1];
+			if (shape == BoardTopology.Shape.TORUS) {
+				newRow = Math.floorMod(newRow, size);
+				newCol = Math.floorMod(newCol, size);
+			} else if (newRow < 0 || newRow >= size || newCol < 0 || newCol >= size) {
+				continue;
+			}
+			int neighbour = newRow * size + newCol;
+			if (neighbour != c && !Arrays.stream(found, 0, n).anyMatch(f -> f == neighbour)) {
+				found[n++] = neighbour;
+			}
+		}
+		return Arrays.copyOf(found, n);
+	}
+}
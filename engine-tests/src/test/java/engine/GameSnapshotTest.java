@@ -0,0 +1,115 @@
+package engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Saves games, loads them back and checks that every cell and counter survived,
+ * with the corner cells, where the runs of a layer start and end, in every state
+ */
+class GameSnapshotTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void cornerCellsSurviveASave() throws IOException {
+		for (BoardTopology.Shape shape : new BoardTopology.Shape[]{
+				BoardTopology.Shape.SQUARE, BoardTopology.Shape.HEX, BoardTopology.Shape.TORUS}) {
+			BoardTopology topology = BoardTopology.of(shape, 9);
+			int last = topology.getCellCount() - 1;
+
+			//Cell (0,0) flagged, the last cell opened
+			RunesEngine engine = new RunesEngine(topology, 10, 1, true);
+			engine.reveal(topology.row(last), topology.col(last));
+			engine.toggleFlag(0, 0);
+			assertRoundTrip(engine);
+
+			//Cell (0,0) opened
+			engine = new RunesEngine(topology, 10, 2, true);
+			engine.reveal(0, 0);
+			assertRoundTrip(engine);
+		}
+	}
+
+	@Test
+	void listedFiresOnTheCornersSurviveASave() throws IOException {
+		BoardTopology topology = BoardTopology.of(BoardTopology.Shape.SQUARE, 9);
+		int last = topology.getCellCount() - 1;
+		RunesEngine engine = new RunesEngine(topology, 3, 1, false);
+		engine.newGame(new int[]{0, last, 40});
+		engine.reveal(4, 0);
+		engine.toggleFlag(0, 0);
+		assertRoundTrip(engine);
+	}
+
+	@Test
+	void gamesWithPendingFiresSurviveASave() throws IOException {
+		BoardTopology topology = BoardTopology.of(BoardTopology.Shape.CIRCLE, 17);
+		RunesEngine engine = new RunesEngine(topology, 30, 4, true);
+		engine.toggleFlag(8, 8);
+		RunesEngine restored = assertRoundTrip(engine);
+		assertTrue(restored.isFiresPending());
+	}
+
+	@Test
+	void randomGamesSurviveASave() throws IOException {
+		SplittableRandom random = new SplittableRandom(11);
+		for (BoardTopology.Shape shape : BoardTopology.Shape.values()) {
+			BoardTopology topology = BoardTopology.of(shape, 11);
+			for (long seed = 0; seed < 25; seed++) {
+				RunesEngine engine = new RunesEngine(topology, 15, seed, true);
+				int clicks = 1 + random.nextInt(12);
+				for (int i = 0; i < clicks && !engine.isGameOver(); i++) {
+					int c = random.nextInt(topology.getCellCount());
+					if (random.nextInt(4) == 0) {
+						engine.toggleFlag(topology.row(c), topology.col(c));
+					} else {
+						engine.collectGem(topology.row(c), topology.col(c));
+						engine.reveal(topology.row(c), topology.col(c));
+						if (engine.getGemCount() >= RunesEngine.POTION_PRICE) engine.buyPotion();
+					}
+				}
+				if (!engine.isGameOver()) assertRoundTrip(engine);
+			}
+		}
+	}
+
+	/**
+	 * Saves and loads a game, and checks the restored game is the same
+	 *
+	 * @return The restored game.
+	 */
+	private RunesEngine assertRoundTrip(RunesEngine engine) throws IOException {
+		Path file = dir.resolve("game.rrsv");
+		GameSnapshot.capture(engine, 17).save(file);
+		GameSnapshot snapshot = GameSnapshot.load(file);
+		assertEquals(17, snapshot.getSecondsElapsed());
+		RunesEngine restored = snapshot.restore();
+
+		BoardTopology topology = engine.getTopology();
+		assertEquals(engine.isFiresPending(), restored.isFiresPending());
+		for (int c = 0; c < topology.getCellCount(); c++) {
+			int row = topology.row(c);
+			int col = topology.col(c);
+			String cell = topology.getShape() + " cell " + c;
+			assertEquals(engine.isFire(row, col), restored.isFire(row, col), cell);
+			assertEquals(engine.isRevealed(row, col), restored.isRevealed(row, col), cell);
+			assertEquals(engine.isFlagged(row, col), restored.isFlagged(row, col), cell);
+			assertEquals(engine.hasGem(row, col), restored.hasGem(row, col), cell);
+		}
+		assertEquals(engine.getGemCount(), restored.getGemCount());
+		assertEquals(engine.getPotionCount(), restored.getPotionCount());
+		assertEquals(engine.getHintsCount(), restored.getHintsCount());
+		assertEquals(engine.isClairvoyant(), restored.isClairvoyant());
+		assertEquals(engine.getSafeCellsRemaining(), restored.getSafeCellsRemaining());
+		return restored;
+	}
+}
@@ -0,0 +1,47 @@
+package engine;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that a generated board only depends on its seed, whatever the number of workers, and that
+ * a cancelled search gives up
+ */
+class NoGuessGeneratorTest {
+
+	@Test
+	void boardOnlyDependsOnTheSeed() {
+		BoardTopology topology = BoardTopology.of(BoardTopology.Shape.SQUARE, 12);
+		int numFires = 30;
+		int startCell = topology.getCellCount() / 2;
+		ForkJoinPool single = new ForkJoinPool(1);
+		ForkJoinPool several = new ForkJoinPool(4);
+		try {
+			for (long seed = 0; seed < 5; seed++) {
+				NoGuessGenerator.Board a = new NoGuessGenerator(topology, numFires, single).generate(startCell, seed, 0, () -> false);
+				NoGuessGenerator.Board b = new NoGuessGenerator(topology, numFires, several).generate(startCell, seed, 0, () -> false);
+				assertNotNull(a);
+				assertNotNull(b);
+				assertEquals(a.getCandidate(), b.getCandidate(), "seed " + seed);
+				assertArrayEquals(a.getFireCells(), b.getFireCells(), "seed " + seed);
+				assertEquals(numFires, a.getFireCells().length);
+			}
+		} finally {
+			single.shutdown();
+			several.shutdown();
+		}
+	}
+
+	@Test
+	void cancelledSearchFindsNothing() {
+		BoardTopology topology = BoardTopology.of(BoardTopology.Shape.SQUARE, 12);
+		NoGuessGenerator generator = new NoGuessGenerator(topology, 30);
+		assertNull(generator.generate(0, 1, 0, () -> true));
+	}
+}
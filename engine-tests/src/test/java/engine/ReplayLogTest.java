@@ -0,0 +1,166 @@
+package engine;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Records games with every kind of input, writes the logs out, reads them back and replays them,
+ * and checks the replayed game ends exactly like the recorded one
+ */
+class ReplayLogTest {
+
+	@Test
+	void replayedGamesEndLikeTheRecordedOnes() throws IOException {
+		SplittableRandom random = new SplittableRandom(3);
+		for (BoardTopology.Shape shape : BoardTopology.Shape.values()) {
+			BoardTopology topology = BoardTopology.of(shape, 13);
+			for (long seed = 0; seed < 20; seed++) {
+				RunesEngine engine = new RunesEngine(topology, 20, seed, seed % 2 == 0);
+				ReplayLog log = new ReplayLog();
+				engine.record(log);
+				int inputs = play(engine, random);
+
+				ReplayLog read = ReplayLog.of(bytes(log));
+				assertEquals(inputs, read.countEvents());
+				RunesEngine replayed = Replayer.replay(read);
+				assertSameGame(engine, replayed);
+			}
+		}
+	}
+
+	@Test
+	void gamesDealtFromGivenFiresListThem() throws IOException {
+		BoardTopology topology = BoardTopology.of(BoardTopology.Shape.SQUARE, 9);
+		int last = topology.getCellCount() - 1;
+		RunesEngine engine = new RunesEngine(topology, 3, 0, false);
+		engine.newGame(new int[]{last, 0, 40}, 99);
+		ReplayLog log = new ReplayLog();
+		engine.record(log);
+		play(engine, new SplittableRandom(1));
+
+		RunesEngine replayed = Replayer.replay(ReplayLog.of(bytes(log)));
+		assertSameGame(engine, replayed);
+	}
+
+	@Test
+	void resumedGamesGoOnRecordingIntoTheirLog() throws IOException {
+		BoardTopology topology = BoardTopology.of(BoardTopology.Shape.HEX, 13);
+		int resumed = 0;
+		for (long seed = 0; seed < 20; seed++) {
+			RunesEngine engine = new RunesEngine(topology, 12, seed, true);
+			ReplayLog log = new ReplayLog();
+			engine.record(log);
+			play(engine, new SplittableRandom(seed));
+			if (engine.isGameOver()) continue;
+			GameSnapshot snapshot = GameSnapshot.capture(engine, 0);
+
+			ReplayLog saved = ReplayLog.of(log.toByteArray());
+			RunesEngine resumedEngine = Replayer.resume(saved);
+			assertTrue(snapshot.matches(resumedEngine));
+			//Both go on with the same inputs, the gems come up the same and both logs get them
+			play(engine, new SplittableRandom(~seed));
+			play(resumedEngine, new SplittableRandom(~seed));
+			assertSameGame(engine, resumedEngine);
+			assertArrayEquals(log.toByteArray(), saved.toByteArray());
+			assertSameGame(engine, Replayer.replay(ReplayLog.of(saved.toByteArray())));
+			resumed++;
+		}
+		assertTrue(resumed > 0);
+	}
+
+	@Test
+	void onlySeededGamesFromTheirStartCanBeRecorded() {
+		BoardTopology topology = BoardTopology.of(BoardTopology.Shape.SQUARE, 9);
+		RunesEngine engine = new RunesEngine(topology, 10, 5, true);
+		engine.reveal(4, 4);
+		assertThrows(IllegalStateException.class, () -> engine.record(new ReplayLog()));
+		engine.newGame(new int[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9});
+		assertThrows(IllegalStateException.class, () -> engine.record(new ReplayLog()));
+	}
+
+	@Test
+	void corruptLogsAreRejected() throws IOException {
+		RunesEngine engine = new RunesEngine(BoardTopology.of(BoardTopology.Shape.CIRCLE, 17), 30, 8, true);
+		ReplayLog log = new ReplayLog();
+		engine.record(log);
+		byte[] bytes = bytes(log);
+		assertThrows(IOException.class, () -> ReplayLog.of(Arrays.copyOf(bytes, 6)));
+		bytes[0] = 'X';
+		assertThrows(IOException.class, () -> ReplayLog.of(bytes));
+	}
+
+	/**
+	 * Plays random inputs until the game is over or 60 inputs were made
+	 *
+	 * @return The number of inputs.
+	 */
+	private static int play(RunesEngine engine, SplittableRandom random) {
+		BoardTopology topology = engine.getTopology();
+		int inputs = 0;
+		for (; inputs < 60 && !engine.isGameOver(); inputs++) {
+			int c = random.nextInt(topology.getCellCount());
+			int row = topology.row(c);
+			int col = topology.col(c);
+			switch (random.nextInt(8)) {
+				case 0:
+					engine.toggleFlag(row, col);
+					break;
+				case 1:
+					engine.buyPotion();
+					break;
+				case 2:
+					engine.buySpell();
+					break;
+				case 3:
+					engine.toggleClairvoyance();
+					break;
+				case 4:
+					if (engine.getLiveGemCount() > 0) {
+						engine.collectGem(engine.getLiveGemRow(0), engine.getLiveGemCol(0));
+					} else {
+						engine.collectGem(row, col);
+					}
+					break;
+				default:
+					engine.reveal(row, col);
+					break;
+			}
+		}
+		return inputs;
+	}
+
+	private static byte[] bytes(ReplayLog log) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		log.writeTo(out);
+		assertEquals(log.size(), out.size());
+		return out.toByteArray();
+	}
+
+	private static void assertSameGame(RunesEngine expected, RunesEngine actual) {
+		BoardTopology topology = expected.getTopology();
+		for (int c = 0; c < topology.getCellCount(); c++) {
+			int row = topology.row(c);
+			int col = topology.col(c);
+			assertEquals(expected.isFire(row, col), actual.isFire(row, col));
+			assertEquals(expected.isRevealed(row, col), actual.isRevealed(row, col));
+			assertEquals(expected.isFlagged(row, col), actual.isFlagged(row, col));
+			assertEquals(expected.hasGem(row, col), actual.hasGem(row, col));
+		}
+		assertEquals(expected.getGemCount(), actual.getGemCount());
+		assertEquals(expected.getPotionCount(), actual.getPotionCount());
+		assertEquals(expected.getHintsCount(), actual.getHintsCount());
+		assertEquals(expected.isClairvoyant(), actual.isClairvoyant());
+		assertEquals(expected.isGameOver(), actual.isGameOver());
+		assertEquals(expected.isWon(), actual.isWon());
+		assertEquals(expected.getCellsOpened(), actual.getCellsOpened());
+	}
+}
@@ -0,0 +1,295 @@
+package engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the Life Potion rule, the fire placement, the fire counts, the flood fill, the gem spawns and tracking and the win detection of RunesEngine
+ * on every board shape
+ */
+class RunesEngineTest {
+
+	private static final int SIZE = 12;
+
+	@Test
+	void placesDistinctFiresAwayFromTheFirstClick() {
+		for (BoardTopology.Shape shape : BoardTopology.Shape.values()) {
+			BoardTopology topology = BoardTopology.of(shape, SIZE);
+			int numFires = topology.getCellCount() / 4;
+			for (long seed = 0; seed < 50; seed++) {
+				RunesEngine engine = new RunesEngine(topology, numFires, seed, true);
+				int first = (int) (seed % topology.getCellCount());
+				engine.reveal(topology.row(first), topology.col(first));
+
+				boolean[] fire = fires(engine);
+				int count = 0;
+				for (boolean f : fire) {
+					if (f) count++;
+				}
+				assertEquals(numFires, count, shape + " seed " + seed);
+				assertFalse(fire[first], shape + " seed " + seed);
+				for (int i = topology.neighbourStart(first); i < topology.neighbourEnd(first); i++) {
+					assertFalse(fire[topology.neighbour(i)], shape + " seed " + seed);
+				}
+			}
+		}
+	}
+
+	@Test
+	void placementReachesEveryCellEvenly() {
+		BoardTopology topology = BoardTopology.of(BoardTopology.Shape.SQUARE, 6);
+		int numFires = 6;
+		int games = 20_000;
+		int[] hits = new int[topology.getCellCount()];
+		RunesEngine engine = new RunesEngine(topology, numFires, 0, false);
+		for (long seed = 0; seed < games; seed++) {
+			engine.newGame(seed);
+			for (int i = 0; i < numFires; i++) {
+				hits[topology.cellAt(engine.getFireRow(i), engine.getFireCol(i))]++;
+			}
+		}
+		//Each cell holds a fire in numFires / cellCount of the games, about 3333 here
+		double expected = (double) games * numFires / topology.getCellCount();
+		for (int hit : hits) {
+			assertTrue(Math.abs(hit - expected) < expected * 0.1, "hits " + hit + ", expected " + expected);
+		}
+	}
+
+	@Test
+	void sameSeedAndClicksGiveTheSameGame() {
+		BoardTopology topology = BoardTopology.of(BoardTopology.Shape.CIRCLE, 17);
+		RunesEngine a = new RunesEngine(topology, 30, 42, true);
+		RunesEngine b = new RunesEngine(topology, 30, 42, true);
+		a.reveal(8, 8);
+		b.newGame(42);
+		b.reveal(8, 8);
+		assertTrue(Arrays.equals(fires(a), fires(b)));
+		assertEquals(a.getLiveGemCount(), b.getLiveGemCount());
+	}
+
+	@Test
+	void countsFiresThroughTheNeighbourTable() {
+		for (BoardTopology.Shape shape : BoardTopology.Shape.values()) {
+			BoardTopology topology = BoardTopology.of(shape, SIZE);
+			RunesEngine engine = new RunesEngine(topology, topology.getCellCount() / 3, 3, false);
+			boolean[] fire = fires(engine);
+			for (int c = 0; c < topology.getCellCount(); c++) {
+				int count = 0;
+				for (int i = topology.neighbourStart(c); i < topology.neighbourEnd(c); i++) {
+					if (fire[topology.neighbour(i)]) count++;
+				}
+				assertEquals(count, engine.countAdjacentFires(topology.row(c), topology.col(c)), shape + " cell " + c);
+			}
+		}
+	}
+
+	@Test
+	void floodFillOpensTheRegionAroundAZero() {
+		for (BoardTopology.Shape shape : BoardTopology.Shape.values()) {
+			BoardTopology topology = BoardTopology.of(shape, SIZE);
+			for (long seed = 0; seed < 20; seed++) {
+				RunesEngine engine = new RunesEngine(topology, topology.getCellCount() / 8, seed, false);
+				boolean[] fire = fires(engine);
+				int start = -1;
+				for (int c = 0; c < topology.getCellCount() && start < 0; c++) {
+					if (!fire[c] && engine.countAdjacentFires(topology.row(c), topology.col(c)) == 0) start = c;
+				}
+				if (start < 0) continue;
+
+				//The region: cells reached from the start through cells without adjacent fires
+				boolean[] expected = new boolean[topology.getCellCount()];
+				ArrayDeque<Integer> queue = new ArrayDeque<>();
+				expected[start] = true;
+				queue.add(start);
+				int regionSize = 0;
+				while (!queue.isEmpty()) {
+					int c = queue.poll();
+					regionSize++;
+					if (engine.countAdjacentFires(topology.row(c), topology.col(c)) > 0) continue;
+					for (int i = topology.neighbourStart(c); i < topology.neighbourEnd(c); i++) {
+						int n = topology.neighbour(i);
+						if (!expected[n]) {
+							expected[n] = true;
+							queue.add(n);
+						}
+					}
+				}
+
+				MoveResult result = engine.reveal(topology.row(start), topology.col(start));
+				int opened = 0;
+				for (int i = 0; i < result.size(); i++) {
+					if (result.kind(i) == MoveResult.OPENED) opened++;
+				}
+				assertEquals(regionSize, opened, shape + " seed " + seed);
+				assertEquals(regionSize, engine.getCellsOpened(), shape + " seed " + seed);
+				for (int c = 0; c < topology.getCellCount(); c++) {
+					assertEquals(expected[c], engine.isRevealed(topology.row(c), topology.col(c)), shape + " cell " + c);
+				}
+			}
+		}
+	}
+
+	@Test
+	void cascadeOpensBoardsWiderThanItsFirstQueue() {
+		//The front of a cascade from the left edge of an empty 400x400 board holds hundreds of cells
+		for (BoardTopology.Shape shape : BoardTopology.Shape.values()) {
+			BoardTopology topology = BoardTopology.of(shape, 400);
+			RunesEngine engine = new RunesEngine(topology, 0, 1, false);
+			int col = 0;
+			while (topology.cellAt(200, col) < 0) col++;
+			engine.reveal(200, col);
+			assertEquals(topology.getCellCount(), engine.getCellsOpened(), shape.toString());
+			assertTrue(engine.isWon(), shape.toString());
+		}
+	}
+
+	@Test
+	void spawnsGemsNextToTheClickedCell() {
+		for (BoardTopology.Shape shape : BoardTopology.Shape.values()) {
+			BoardTopology topology = BoardTopology.of(shape, SIZE);
+			for (long seed = 0; seed < 20; seed++) {
+				RunesEngine engine = new RunesEngine(topology, topology.getCellCount() / 8, seed, true);
+				SplittableRandom random = new SplittableRandom(seed);
+				while (!engine.isGameOver()) {
+					int c = random.nextInt(topology.getCellCount());
+					MoveResult result = engine.reveal(topology.row(c), topology.col(c));
+					for (int i = 0; i < result.size(); i++) {
+						if (result.kind(i) != MoveResult.GEM_SPAWNED) continue;
+						int gem = topology.cellAt(result.row(i), result.col(i));
+						boolean adjacent = false;
+						for (int n = topology.neighbourStart(c); n < topology.neighbourEnd(c); n++) {
+							adjacent |= topology.neighbour(n) == gem;
+						}
+						assertTrue(adjacent, shape + " seed " + seed + " gem " + gem + " clicked " + c);
+					}
+					//Gems cover cells until collected
+					for (int g = engine.getLiveGemCount() - 1; g >= 0; g--) {
+						engine.collectGem(engine.getLiveGemRow(g), engine.getLiveGemCol(g));
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	void tracksTheLiveGemsOfTheBoard() {
+		for (BoardTopology.Shape shape : BoardTopology.Shape.values()) {
+			BoardTopology topology = BoardTopology.of(shape, SIZE);
+			for (long seed = 0; seed < 20; seed++) {
+				RunesEngine engine = new RunesEngine(topology, topology.getCellCount() / 8, seed, true);
+				SplittableRandom random = new SplittableRandom(seed);
+				boolean[] shown = new boolean[topology.getCellCount()];
+				while (!engine.isGameOver()) {
+					int c = random.nextInt(topology.getCellCount());
+					if (random.nextInt(3) == 0) {
+						//Collecting a gem reports no change, the view removes it itself
+						if (engine.collectGem(topology.row(c), topology.col(c))) shown[c] = false;
+						continue;
+					}
+					MoveResult result = engine.reveal(topology.row(c), topology.col(c));
+					for (int i = 0; i < result.size(); i++) {
+						int cell = topology.cellAt(result.row(i), result.col(i));
+						if (result.kind(i) == MoveResult.GEM_SPAWNED) shown[cell] = true;
+						if (result.kind(i) == MoveResult.GEM_REMOVED) shown[cell] = false;
+					}
+					//The events and the live gem list both match the gems on the board
+					boolean[] live = new boolean[topology.getCellCount()];
+					for (int g = 0; g < engine.getLiveGemCount(); g++) {
+						live[topology.cellAt(engine.getLiveGemRow(g), engine.getLiveGemCol(g))] = true;
+					}
+					for (int cell = 0; cell < live.length; cell++) {
+						boolean gem = engine.hasGem(topology.row(cell), topology.col(cell));
+						assertEquals(gem, live[cell], shape + " seed " + seed + " cell " + cell);
+						assertEquals(gem, shown[cell], shape + " seed " + seed + " cell " + cell);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	void lifePotionFreezesTheNextFire() {
+		BoardTopology topology = BoardTopology.of(BoardTopology.Shape.SQUARE, SIZE);
+		RunesEngine engine = new RunesEngine(topology, 30, 9, true);
+		assertFalse(engine.buyPotion());
+		//Opens safe cells and picks up their gems until a potion can be bought
+		boolean[] fire = null;
+		for (int c = 0; c < topology.getCellCount() && engine.getGemCount() < RunesEngine.POTION_PRICE; c++) {
+			if (fire != null && fire[c]) continue;
+			engine.reveal(topology.row(c), topology.col(c));
+			fire = fires(engine);
+			for (int g = engine.getLiveGemCount() - 1; g >= 0; g--) {
+				engine.collectGem(engine.getLiveGemRow(g), engine.getLiveGemCol(g));
+			}
+		}
+		assertTrue(engine.buyPotion());
+		assertEquals(1, engine.getPotionCount());
+
+		int[] hidden = new int[2];
+		int found = 0;
+		for (int c = 0; c < topology.getCellCount() && found < 2; c++) {
+			if (fire[c]) hidden[found++] = c;
+		}
+		MoveResult frozen = engine.reveal(topology.row(hidden[0]), topology.col(hidden[0]));
+		assertTrue(frozen.isPotionUsed());
+		assertEquals(MoveResult.FROZEN, frozen.kind(0));
+		assertFalse(engine.isGameOver());
+		assertEquals(0, engine.getPotionCount());
+
+		MoveResult burnt = engine.reveal(topology.row(hidden[1]), topology.col(hidden[1]));
+		assertEquals(MoveResult.FIRE, burnt.kind(0));
+		assertTrue(engine.isGameOver());
+		assertFalse(engine.isWon());
+	}
+
+	@Test
+	void winsOnceEverySafeCellIsOpen() {
+		BoardTopology topology = BoardTopology.of(BoardTopology.Shape.TORUS, SIZE);
+		SplittableRandom random = new SplittableRandom(5);
+		for (long seed = 0; seed < 20; seed++) {
+			RunesEngine engine = new RunesEngine(topology, 20, seed, true);
+			int[] order = new int[topology.getCellCount()];
+			for (int c = 0; c < order.length; c++) {
+				order[c] = c;
+			}
+			engine.reveal(topology.row(0), topology.col(0));
+			boolean[] fire = fires(engine);
+			for (int i = order.length - 1; i > 0; i--) {
+				int j = random.nextInt(i + 1);
+				int t = order[i];
+				order[i] = order[j];
+				order[j] = t;
+			}
+			for (int c : order) {
+				if (fire[c] || engine.isRevealed(topology.row(c), topology.col(c))) continue;
+				assertFalse(engine.isGameOver());
+				//Gems spawned by the last reveal may cover the cell
+				engine.collectGem(topology.row(c), topology.col(c));
+				engine.reveal(topology.row(c), topology.col(c));
+				assertEquals(engine.getSafeCellCount() - engine.getCellsOpened(), engine.getSafeCellsRemaining());
+			}
+			assertTrue(engine.isGameOver());
+			assertTrue(engine.isWon());
+			assertEquals(0, engine.getSafeCellsRemaining());
+		}
+	}
+
+	/**
+	 * @return The fire of every cell, by compact index.
+	 */
+	static boolean[] fires(RunesEngine engine) {
+		BoardTopology topology = engine.getTopology();
+		boolean[] fire = new boolean[topology.getCellCount()];
+		for (int c = 0; c < fire.length; c++) {
+			fire[c] = engine.isFire(topology.row(c), topology.col(c));
+		}
+		return fire;
+	}
+}
@@ -0,0 +1,68 @@
+package engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that a run only depends on its seed, not on the number of workers, and that every policy
+ * plays its games to the end
+ */
+class SimulatorTest {
+
+	private static final BoardTopology TOPOLOGY = BoardTopology.of(BoardTopology.Shape.CIRCLE, 17);
+	private static final int FIRES = 30;
+	private static final int GAMES = 300;
+
+	@Test
+	void sameSeedGivesTheSameStatsOnAnyNumberOfThreads() {
+		ForkJoinPool single = new ForkJoinPool(1);
+		ForkJoinPool several = new ForkJoinPool(4);
+		try {
+			for (Simulator.Policy policy : Simulator.Policy.values()) {
+				Simulator.Stats a = new Simulator(TOPOLOGY, FIRES, Economy.DEFAULT, single).run(policy, GAMES, 7);
+				Simulator.Stats b = new Simulator(TOPOLOGY, FIRES, Economy.DEFAULT, several).run(policy, GAMES, 7);
+				assertSameStats(a, b, policy.toString());
+			}
+		} finally {
+			single.shutdown();
+			several.shutdown();
+		}
+	}
+
+	@Test
+	void everyPolicyFinishesItsGames() {
+		Simulator simulator = new Simulator(TOPOLOGY, FIRES, Economy.DEFAULT);
+		for (Simulator.Policy policy : Simulator.Policy.values()) {
+			Simulator.Stats stats = simulator.run(policy, GAMES, 11);
+			assertEquals(GAMES, stats.getGames(), policy.toString());
+			assertTrue(stats.getWins() > 0, policy + " won no game");
+			assertTrue(stats.getAverageCellsOpened() > 0, policy.toString());
+			//Every game starts at the first point of the curves
+			assertEquals(1.0, stats.getReached(0), policy.toString());
+		}
+	}
+
+	private static void assertSameStats(Simulator.Stats a, Simulator.Stats b, String message) {
+		assertEquals(a.getGames(), b.getGames(), message);
+		assertEquals(a.getWins(), b.getWins(), message);
+		assertEquals(a.getAverageMoves(), b.getAverageMoves(), message);
+		assertEquals(a.getAverageWonMoves(), b.getAverageWonMoves(), message);
+		assertEquals(a.getAverageGuesses(), b.getAverageGuesses(), message);
+		assertEquals(a.getAverageCellsOpened(), b.getAverageCellsOpened(), message);
+		assertEquals(a.getAverageGemsEarned(), b.getAverageGemsEarned(), message);
+		assertEquals(a.getAverageGemsLeft(), b.getAverageGemsLeft(), message);
+		assertEquals(a.getAveragePotionsBought(), b.getAveragePotionsBought(), message);
+		assertEquals(a.getAveragePotionsUsed(), b.getAveragePotionsUsed(), message);
+		assertEquals(a.getAverageSpellsBought(), b.getAverageSpellsBought(), message);
+		assertEquals(a.getAverageSpellsUsed(), b.getAverageSpellsUsed(), message);
+		for (int p = 0; p < Simulator.CURVE_POINTS; p++) {
+			assertEquals(a.getReached(p), b.getReached(p), message + " point " + p);
+			assertEquals(a.getGemsHeld(p), b.getGemsHeld(p), message + " point " + p);
+			assertEquals(a.getGemsEarned(p), b.getGemsEarned(p), message + " point " + p);
+		}
+	}
+}
@@ -0,0 +1,78 @@
+import java.util.HashMap;
+import java.util.Map;
+
+import javafx.scene.ImageCursor;
+import javafx.scene.image.Image;
+
+/**
+ * AssetCache Class
+ * Decodes each image of the game once and hands out the shared Image and ImageCursor instances.
+ *
+ * JavaFX Images are immutable once loaded, so a single decoded copy can back every ImageView
+ * and cursor that shows it. Loading "img/wand.png" for every cursor change or "img/potion.gif"
+ * for every popup decoded the file again each time and left short-lived bitmaps for the GC.
+ *
+ * The cache is only used from the JavaFX Application Thread, so it needs no locking.
+ */
+public final class AssetCache {
+
+	private static final Map<String, Image> images = new HashMap<>();
+	private static final Map<String, ImageCursor> cursors = new HashMap<>();
+
+	private AssetCache() {
+	}
+
+	/**
+	 * Returns the decoded image for a resource path, loading it on first use
+	 *
+	 * @param path Path of the image on the classpath, e.g. "img/gem.png".
+	 * @return The shared Image.
+	 */
+	public static Image image(String path) {
+		Image image = images.get(path);
+		if (image == null) {
+			image = new Image(path);
+			if (image.isError()) {
+				System.out.println("Could not load image " + path + ": " + image.getException());
+			}
+			images.put(path, image);
+		}
+		return image;
+	}
+
+	/**
+	 * Returns a cursor showing an image, creating it on first use
+	 *
+	 * @param path Path of the image on the classpath, e.g. "img/wand.png".
+	 * @return The shared ImageCursor.
+	 */
+	public static ImageCursor cursor(String path) {
+		ImageCursor cursor = cursors.get(path);
+		if (cursor == null) {
+			cursor = new ImageCursor(image(path));
+			cursors.put(path, cursor);
+		}
+		return cursor;
+	}
+
+	/**
+	 * Estimates the memory used by the decoded images, at 4 bytes (ARGB) per pixel.
+	 * Animated GIFs are counted by their first frame.
+	 *
+	 * @return The estimate in bytes.
+	 */
+	public static long memoryBytes() {
+		long bytes = 0;
+		for (Image image : images.values()) {
+			bytes += (long) image.getWidth() * (long) image.getHeight() * 4;
+		}
+		return bytes;
+	}
+
+	/**
+	 * @return The number of decoded images held by the cache.
+	 */
+	public static int size() {
+		return images.size();
+	}
+}
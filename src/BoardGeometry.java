@@ -0,0 +1,132 @@
+import engine.BoardTopology;
+
+/**
+ * BoardGeometry Class
+ * Positions of the cells of a board in board space: the board laid out at its cell size,
+ * without zoom or scrolling, with the 3px gap between cells and hexagon rows staggered.
+ *
+ * CanvasBoardView, BoardTileCache and BoardMinimap all place cells and map points back to
+ * cells through this class, so they always agree on where a cell is.
+ */
+public final class BoardGeometry {
+
+	//Gap between cells in pixels, as in the GridPane of ButtonBoardView
+	public static final int GAP = 3;
+
+	private final BoardTopology topology;
+	private final int cellSize;
+	private final int pitch;
+	private final boolean hex;
+
+	/**
+	 * @param topology The board.
+	 * @param cellSize Size of each cell in pixels.
+	 */
+	public BoardGeometry(BoardTopology topology, int cellSize) {
+		this.topology = topology;
+		this.cellSize = cellSize;
+		this.pitch = cellSize + GAP;
+		this.hex = topology.getShape() == BoardTopology.Shape.HEX;
+	}
+
+	public BoardTopology getTopology() {
+		return topology;
+	}
+
+	public int getCellSize() {
+		return cellSize;
+	}
+
+	/**
+	 * @return The distance between the left edges of two neighbouring cells (cell size and gap).
+	 */
+	public int getPitch() {
+		return pitch;
+	}
+
+	/**
+	 * @return The width of the board.
+	 */
+	public double width() {
+		return topology.getWidth() * pitch - GAP + (hex ? pitch / 2.0 : 0);
+	}
+
+	/**
+	 * @return The height of the board.
+	 */
+	public double height() {
+		return topology.getHeight() * pitch - GAP;
+	}
+
+	/**
+	 * @return The left edge of a cell.
+	 */
+	public double cellX(int row, int col) {
+		double x = col * (double) pitch;
+		//Hexagon rows are staggered, odd rows sit half a cell to the right
+		return hex && row % 2 == 1 ? x + pitch / 2.0 : x;
+	}
+
+	/**
+	 * @return The top edge of a cell.
+	 */
+	public double cellY(int row) {
+		return row * (double) pitch;
+	}
+
+	/**
+	 * Finds the cell under a point
+	 *
+	 * @param x Horizontal position on the board.
+	 * @param y Vertical position on the board.
+	 * @return The compact index of the cell, or -1 if the point is on a gap or off the board.
+	 */
+	public int cellAt(double x, double y) {
+		if (y < 0) {
+			return -1;
+		}
+		int row = (int) (y / pitch);
+		if (y - row * (double) pitch >= cellSize) {
+			return -1;
+		}
+		if (hex && row % 2 == 1) {
+			x -= pitch / 2.0;
+		}
+		if (x < 0) {
+			return -1;
+		}
+		int col = (int) (x / pitch);
+		if (x - col * (double) pitch >= cellSize) {
+			return -1;
+		}
+		return topology.cellAt(row, col);
+	}
+
+	/**
+	 * @return The first row reaching below a height on the board.
+	 */
+	public int firstRow(double y) {
+		return Math.max(0, (int) Math.floor(y / pitch));
+	}
+
+	/**
+	 * @return The last row starting above a height on the board.
+	 */
+	public int lastRow(double y) {
+		return Math.min(topology.getHeight() - 1, (int) Math.floor(y / pitch));
+	}
+
+	/**
+	 * @return The first column reaching right of a position on the board (one more for staggered rows).
+	 */
+	public int firstCol(double x) {
+		return Math.max(0, (int) Math.floor(x / pitch) - (hex ? 1 : 0));
+	}
+
+	/**
+	 * @return The last column starting left of a position on the board.
+	 */
+	public int lastCol(double x) {
+		return Math.min(topology.getWidth() - 1, (int) Math.floor(x / pitch));
+	}
+}
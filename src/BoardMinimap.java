@@ -0,0 +1,137 @@
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.paint.Color;
+
+/**
+ * BoardMinimap Class
+ * A small picture of the whole board with a frame around the part shown by the canvas.
+ * Clicking or dragging on it moves the view there.
+ *
+ * Each pixel of the picture takes the colour of the cell under it, sampled once when the minimap
+ * is created; afterwards only the pixels covering a changed cell are sampled again.
+ */
+public final class BoardMinimap {
+
+	/**
+	 * Receives the point of the board picked on the minimap
+	 */
+	public interface Listener {
+		/**
+		 * @param x Horizontal position on the board.
+		 * @param y Vertical position on the board.
+		 */
+		void centerOn(double x, double y);
+	}
+
+	//Largest side of the minimap in pixels
+	public static final int SIZE = 160;
+
+	private static final Color BACKGROUND = Color.rgb(255, 255, 255, 0.85);
+	private static final Color FRAME = Color.web("#AA98A9");
+
+	private final BoardGeometry geometry;
+	private final BoardTileCache.CellRenderer renderer;
+	private final double scale;
+	private final WritableImage picture;
+	private final Canvas canvas;
+	private double viewX;
+	private double viewY;
+	private double viewWidth;
+	private double viewHeight;
+
+	/**
+	 * @param geometry Positions of the cells.
+	 * @param renderer Gives the colour of each cell.
+	 * @param listener Receives the points picked on the minimap.
+	 */
+	public BoardMinimap(BoardGeometry geometry, BoardTileCache.CellRenderer renderer, Listener listener) {
+		this.geometry = geometry;
+		this.renderer = renderer;
+		this.scale = SIZE / Math.max(geometry.width(), geometry.height());
+		int width = Math.max(1, (int) Math.ceil(geometry.width() * scale));
+		int height = Math.max(1, (int) Math.ceil(geometry.height() * scale));
+		picture = new WritableImage(width, height);
+		canvas = new Canvas(width + 4, height + 4);
+		redrawAll();
+
+		canvas.setOnMousePressed(e -> pick(e, listener));
+		canvas.setOnMouseDragged(e -> pick(e, listener));
+	}
+
+	public Canvas getNode() {
+		return canvas;
+	}
+
+	/**
+	 * Samples every pixel of the picture again, e.g. when the game ends
+	 */
+	public void redrawAll() {
+		samplePixels(0, 0, (int) picture.getWidth() - 1, (int) picture.getHeight() - 1);
+		draw();
+	}
+
+	/**
+	 * Samples the pixels covering a changed cell
+	 *
+	 * @param cell Compact index of the cell.
+	 */
+	public void updateCell(int cell) {
+		int row = geometry.getTopology().row(cell);
+		int col = geometry.getTopology().col(cell);
+		double x = geometry.cellX(row, col);
+		double y = geometry.cellY(row);
+		samplePixels((int) (x * scale), (int) (y * scale),
+				(int) ((x + geometry.getCellSize()) * scale), (int) ((y + geometry.getCellSize()) * scale));
+	}
+
+	/**
+	 * Moves the frame showing the part of the board in view
+	 *
+	 * @param x Left edge of the view on the board.
+	 * @param y Top edge of the view on the board.
+	 * @param width Width of the view on the board.
+	 * @param height Height of the view on the board.
+	 */
+	public void setView(double x, double y, double width, double height) {
+		viewX = x;
+		viewY = y;
+		viewWidth = width;
+		viewHeight = height;
+	}
+
+	/**
+	 * Draws the picture and the frame
+	 */
+	public void draw() {
+		GraphicsContext gc = canvas.getGraphicsContext2D();
+		gc.setFill(BACKGROUND);
+		gc.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
+		gc.drawImage(picture, 2, 2);
+		gc.setStroke(FRAME);
+		gc.setLineWidth(2);
+		gc.strokeRect(2 + viewX * scale, 2 + viewY * scale, viewWidth * scale, viewHeight * scale);
+	}
+
+	/**
+	 * Gives each pixel of a region of the picture the colour of the cell under its centre
+	 */
+	private void samplePixels(int left, int top, int right, int bottom) {
+		PixelWriter writer = picture.getPixelWriter();
+		right = Math.min(right, (int) picture.getWidth() - 1);
+		bottom = Math.min(bottom, (int) picture.getHeight() - 1);
+		for (int py = Math.max(0, top); py <= bottom; py++) {
+			for (int px = Math.max(0, left); px <= right; px++) {
+				int cell = geometry.cellAt((px + 0.5) / scale, (py + 0.5) / scale);
+				writer.setArgb(px, py, cell < 0 ? 0 : renderer.cellColor(cell));
+			}
+		}
+	}
+
+	private void pick(MouseEvent e, Listener listener) {
+		listener.centerOn((e.getX() - 2) / scale, (e.getY() - 2) / scale);
+		e.consume();
+	}
+}
@@ -0,0 +1,157 @@
+import engine.BoardTopology;
+
+/**
+ * BoardSettings Class
+ * The shape, size and number of fires of the board, chosen on the start screen from a difficulty
+ * preset or with the custom board panel, and whether the board must be solvable without guessing.
+ *
+ * Settings are immutable; RunesReaperUI builds every per-board structure (engine, board view,
+ * reveal sequencer, cell size) from the settings when a game starts, so changing them between
+ * games never leaves structures sized for the previous board.
+ */
+public final class BoardSettings {
+
+	//Limits of the custom board panel
+	public static final int MIN_SIZE = 9;
+	public static final int MAX_SIZE = 1000;
+	public static final double MIN_DENSITY = 0.05;
+	public static final double MAX_DENSITY = 0.35;
+	//Cells kept free of fire on the first click: the clicked cell and its (at most 8) neighbours
+	private static final int SAFE_START_CELLS = 9;
+	//Largest board dealt without guessing, bigger boards take too long to validate
+	public static final int MAX_NO_GUESS_CELLS = 10_000;
+
+	/**
+	 * Difficulty presets, from a small practice board to a board far larger than the screen
+	 */
+	public enum Preset {
+		APPRENTICE("Apprentice", BoardTopology.Shape.CIRCLE, 9, 0.18),
+		ADEPT("Adept", BoardTopology.Shape.CIRCLE, 17, 0.155),
+		MASTER("Master", BoardTopology.Shape.CIRCLE, 30, 0.18),
+		ARCHMAGE("Archmage", BoardTopology.Shape.SQUARE, 60, 0.20),
+		ENDLESS("Endless Fields", BoardTopology.Shape.SQUARE, 1000, 0.15);
+
+		private final String label;
+		private final BoardTopology.Shape shape;
+		private final int size;
+		private final double density;
+
+		Preset(String label, BoardTopology.Shape shape, int size, double density) {
+			this.label = label;
+			this.shape = shape;
+			this.size = size;
+			this.density = density;
+		}
+
+		/**
+		 * @return The settings of the preset.
+		 */
+		public BoardSettings settings() {
+			return BoardSettings.of(shape, size, density);
+		}
+
+		@Override
+		public String toString() {
+			return label;
+		}
+	}
+
+	private final BoardTopology.Shape shape;
+	private final int size;
+	private final int cellCount;
+	private final int numFires;
+	private final boolean noGuess;
+
+	private BoardSettings(BoardTopology.Shape shape, int size, int cellCount, int numFires, boolean noGuess) {
+		this.shape = shape;
+		this.size = size;
+		this.cellCount = cellCount;
+		this.numFires = numFires;
+		this.noGuess = noGuess;
+	}
+
+	/**
+	 * Creates settings from a fire density.
+	 * The size and density are clamped to the limits of the custom board panel, and the fire count
+	 * leaves room for a first click that is safe together with its neighbours.
+	 *
+	 * @param shape Shape of the board.
+	 * @param size Length of each side of the board.
+	 * @param density Share of the playable cells holding a fire, e.g. 0.15.
+	 * @return The settings.
+	 */
+	public static BoardSettings of(BoardTopology.Shape shape, int size, double density) {
+		size = Math.max(MIN_SIZE, Math.min(MAX_SIZE, size));
+		density = Math.max(MIN_DENSITY, Math.min(MAX_DENSITY, density));
+		int cellCount = BoardTopology.countCells(shape, size);
+		int numFires = (int) Math.round(cellCount * density);
+		numFires = Math.max(1, Math.min(cellCount - SAFE_START_CELLS, numFires));
+		return new BoardSettings(shape, size, cellCount, numFires, false);
+	}
+
+	/**
+	 * Returns these settings with boards that can be cleared without guessing, see NoGuessGenerator.
+	 * Boards over MAX_NO_GUESS_CELLS cells stay random.
+	 *
+	 * @param noGuess true for boards that never need a guess.
+	 * @return The settings.
+	 */
+	public BoardSettings withNoGuess(boolean noGuess) {
+		return new BoardSettings(shape, size, cellCount, numFires, noGuess && cellCount <= MAX_NO_GUESS_CELLS);
+	}
+
+	/**
+	 * @return A new topology for these settings.
+	 */
+	public BoardTopology createTopology() {
+		return BoardTopology.of(shape, size);
+	}
+
+	public BoardTopology.Shape getShape() {
+		return shape;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	public int getCellCount() {
+		return cellCount;
+	}
+
+	public int getNumFires() {
+		return numFires;
+	}
+
+	public boolean isNoGuess() {
+		return noGuess;
+	}
+
+	/**
+	 * @return The share of the playable cells holding a fire.
+	 */
+	public double getDensity() {
+		return (double) numFires / cellCount;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (!(other instanceof BoardSettings)) return false;
+		BoardSettings settings = (BoardSettings) other;
+		return shape == settings.shape && size == settings.size && numFires == settings.numFires
+				&& noGuess == settings.noGuess;
+	}
+
+	@Override
+	public int hashCode() {
+		return ((shape.ordinal() * 31 + size) * 31 + numFires) * 2 + (noGuess ? 1 : 0);
+	}
+
+	/**
+	 * @return A short description, e.g. "Circle 17x17, 30 fires" or "Circle 17x17, 30 fires, no guessing".
+	 */
+	public String describe() {
+		String name = shape.name().charAt(0) + shape.name().substring(1).toLowerCase();
+		return name + " " + size + "x" + size + ", " + numFires + " fires" + (noGuess ? ", no guessing" : "");
+	}
+}
@@ -0,0 +1,266 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+/**
+ * BoardTileCache Class
+ * Keeps rendered images of square regions (tiles) of the board, so the canvas can draw a frame
+ * from a few cached images instead of painting every visible cell again.
+ *
+ * Tile Implementation
+ * 1) Tiles are rendered at zoom levels that are powers of two (1/2, 1/4, ... up to 2x the cell size).
+ *    A frame uses the smallest level at least as detailed as its zoom and scales the tiles down a little
+ * 2) Every tile is TILE_PIXELS square on screen pixels, so zoomed out levels cover more cells per tile
+ * 3) Levels with readable cells are painted cell by cell on an offscreen canvas and snapshotted;
+ *    levels where a cell is only a few pixels are sampled pixel by pixel from the cell colours
+ * 4) A cell change marks the tiles holding the cell at every level as dirty; they are rendered again
+ *    only when next drawn
+ * 5) The least recently used tiles are dropped past MAX_BYTES, and their images are reused for new tiles
+ */
+public final class BoardTileCache {
+
+	/**
+	 * Draws the cells into tiles
+	 */
+	public interface CellRenderer {
+		/**
+		 * Paints a cell with its icon or number
+		 *
+		 * @param gc Graphics context already transformed to board space.
+		 * @param cell Compact index of the cell.
+		 * @param x Left edge of the cell on the board.
+		 * @param y Top edge of the cell on the board.
+		 */
+		void paintCell(GraphicsContext gc, int cell, double x, double y);
+
+		/**
+		 * @return The colour of a cell seen from far away, as ARGB.
+		 */
+		int cellColor(int cell);
+	}
+
+	//Size of a tile in screen pixels
+	public static final int TILE_PIXELS = 256;
+	//Most and least detailed levels, 2x and 1/2^40 of the cell size
+	public static final int MAX_LEVEL = 1;
+	public static final int MIN_LEVEL = -40;
+	//Cells smaller than this on screen are sampled instead of painted
+	private static final double MIN_PAINTED_CELL_PIXELS = 6;
+	//Memory the tile images may use
+	private static final long MAX_BYTES = 96L * 1024 * 1024;
+	private static final int MAX_TILES = (int) (MAX_BYTES / (TILE_PIXELS * TILE_PIXELS * 4L));
+
+	private final BoardGeometry geometry;
+	private final CellRenderer renderer;
+	private final double outputScale;
+	private final Canvas scratch = new Canvas(TILE_PIXELS, TILE_PIXELS);
+	private final SnapshotParameters snapshotParameters = new SnapshotParameters();
+	private final int[] sampleRow = new int[TILE_PIXELS];
+
+	//Tiles by key (see key()), in least recently used order
+	private final LinkedHashMap<Long, Tile> tiles = new LinkedHashMap<>(64, 0.75f, true);
+	//Images of dropped tiles, reused for new ones
+	private final List<WritableImage> spareImages = new ArrayList<>();
+	//Number of cached tiles at each level, indexed by MAX_LEVEL - level
+	private final int[] tilesPerLevel = new int[MAX_LEVEL - MIN_LEVEL + 1];
+
+	/**
+	 * @param geometry Positions of the cells.
+	 * @param renderer Draws the cells.
+	 * @param outputScale Output scale of the screen, tiles are rendered in screen pixels.
+	 */
+	public BoardTileCache(BoardGeometry geometry, CellRenderer renderer, double outputScale) {
+		this.geometry = geometry;
+		this.renderer = renderer;
+		this.outputScale = outputScale;
+		snapshotParameters.setFill(Color.TRANSPARENT);
+	}
+
+	/**
+	 * @return The level used to draw at a zoom: the smallest level at least as detailed as the zoom.
+	 */
+	public static int levelFor(double zoom) {
+		int level = (int) Math.ceil(Math.log(zoom) / Math.log(2) - 1e-9);
+		return Math.max(MIN_LEVEL, Math.min(MAX_LEVEL, level));
+	}
+
+	/**
+	 * @return The length of board covered by one tile at a level.
+	 */
+	public double tileSpan(int level) {
+		return TILE_PIXELS / (Math.scalb(1.0, level) * outputScale);
+	}
+
+	/**
+	 * Returns the image of a tile, rendering it if it is missing or dirty and rendering is allowed
+	 *
+	 * @param level Zoom level of the tile.
+	 * @param tileX Column of the tile.
+	 * @param tileY Row of the tile.
+	 * @param render false to only return what is cached, e.g. when the frame is out of time.
+	 * @return The image, possibly dirty if render is false, or null if there is none.
+	 */
+	public WritableImage get(int level, int tileX, int tileY, boolean render) {
+		Tile tile = tiles.get(key(level, tileX, tileY));
+		if (tile != null && (!tile.dirty || !render)) {
+			return tile.image;
+		}
+		if (!render) {
+			return null;
+		}
+		if (tile == null) {
+			tile = new Tile(level, tileX, tileY, takeImage());
+			tiles.put(key(level, tileX, tileY), tile);
+			tilesPerLevel[MAX_LEVEL - level]++;
+			dropOldTiles();
+		}
+		render(tile);
+		tile.dirty = false;
+		return tile.image;
+	}
+
+	/**
+	 * @return true if a tile is cached and up to date.
+	 */
+	public boolean isFresh(int level, int tileX, int tileY) {
+		Tile tile = tiles.get(key(level, tileX, tileY));
+		return tile != null && !tile.dirty;
+	}
+
+	/**
+	 * Marks the tiles holding a cell as dirty at every level
+	 *
+	 * @param cell Compact index of the cell.
+	 */
+	public void invalidateCell(int cell) {
+		int row = geometry.getTopology().row(cell);
+		int col = geometry.getTopology().col(cell);
+		double x = geometry.cellX(row, col);
+		double y = geometry.cellY(row);
+		double size = geometry.getCellSize();
+		for (int index = 0; index < tilesPerLevel.length; index++) {
+			if (tilesPerLevel[index] == 0) continue;
+			int level = MAX_LEVEL - index;
+			double span = tileSpan(level);
+			//A cell can straddle the edges of up to four tiles
+			for (int tileY = (int) (y / span); tileY <= (int) ((y + size) / span); tileY++) {
+				for (int tileX = (int) (x / span); tileX <= (int) ((x + size) / span); tileX++) {
+					Tile tile = tiles.get(key(level, tileX, tileY));
+					if (tile != null) {
+						tile.dirty = true;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Marks every tile as dirty, e.g. when the game ends and every cell changes its look
+	 */
+	public void invalidateAll() {
+		for (Tile tile : tiles.values()) {
+			tile.dirty = true;
+		}
+	}
+
+	/**
+	 * @return The memory used by the tile images, in bytes.
+	 */
+	public long memoryBytes() {
+		return (long) (tiles.size() + spareImages.size()) * TILE_PIXELS * TILE_PIXELS * 4;
+	}
+
+	/**
+	 * Packs a tile position into a map key
+	 */
+	private static long key(int level, int tileX, int tileY) {
+		return ((long) (MAX_LEVEL - level) << 56) | ((long) tileY << 28) | tileX;
+	}
+
+	private WritableImage takeImage() {
+		if (!spareImages.isEmpty()) {
+			return spareImages.remove(spareImages.size() - 1);
+		}
+		return new WritableImage(TILE_PIXELS, TILE_PIXELS);
+	}
+
+	/**
+	 * Drops the least recently used tiles past MAX_TILES, keeping their images for reuse
+	 */
+	private void dropOldTiles() {
+		Iterator<Map.Entry<Long, Tile>> iterator = tiles.entrySet().iterator();
+		while (tiles.size() > MAX_TILES && iterator.hasNext()) {
+			Tile tile = iterator.next().getValue();
+			iterator.remove();
+			tilesPerLevel[MAX_LEVEL - tile.level]--;
+			spareImages.add(tile.image);
+		}
+	}
+
+	/**
+	 * Renders the cells inside a tile into its image
+	 */
+	private void render(Tile tile) {
+		double scale = Math.scalb(1.0, tile.level) * outputScale;
+		double span = tileSpan(tile.level);
+		double left = tile.tileX * span;
+		double top = tile.tileY * span;
+
+		if (geometry.getCellSize() * scale < MIN_PAINTED_CELL_PIXELS) {
+			//Cells are a few pixels: each pixel takes the colour of the cell under its centre
+			PixelWriter writer = tile.image.getPixelWriter();
+			for (int py = 0; py < TILE_PIXELS; py++) {
+				double y = top + (py + 0.5) / scale;
+				for (int px = 0; px < TILE_PIXELS; px++) {
+					int cell = geometry.cellAt(left + (px + 0.5) / scale, y);
+					sampleRow[px] = cell < 0 ? 0 : renderer.cellColor(cell);
+				}
+				writer.setPixels(0, py, TILE_PIXELS, 1, PixelFormat.getIntArgbInstance(), sampleRow, 0, TILE_PIXELS);
+			}
+			return;
+		}
+
+		//Paints every cell touching the tile on the offscreen canvas, then copies it into the tile image
+		GraphicsContext gc = scratch.getGraphicsContext2D();
+		gc.setTransform(1, 0, 0, 1, 0, 0);
+		gc.clearRect(0, 0, TILE_PIXELS, TILE_PIXELS);
+		gc.setTransform(scale, 0, 0, scale, -left * scale, -top * scale);
+		for (int row = geometry.firstRow(top - geometry.getCellSize()); row <= geometry.lastRow(top + span); row++) {
+			for (int col = geometry.firstCol(left - geometry.getCellSize()); col <= geometry.lastCol(left + span); col++) {
+				int cell = geometry.getTopology().cellAt(row, col);
+				if (cell >= 0) {
+					renderer.paintCell(gc, cell, geometry.cellX(row, col), geometry.cellY(row));
+				}
+			}
+		}
+		scratch.snapshot(snapshotParameters, tile.image);
+	}
+
+	/**
+	 * A cached tile: its position, image and whether a cell inside it changed since it was rendered
+	 */
+	private static final class Tile {
+		private final int level;
+		private final int tileX;
+		private final int tileY;
+		private final WritableImage image;
+		private boolean dirty = true;
+
+		private Tile(int level, int tileX, int tileY, WritableImage image) {
+			this.level = level;
+			this.tileX = tileX;
+			this.tileY = tileY;
+			this.image = image;
+		}
+	}
+}
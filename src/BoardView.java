@@ -0,0 +1,83 @@
+import javafx.scene.Node;
+
+/**
+ * BoardView Interface
+ * Draws the board of a RunesEngine game and reports the player's clicks on it.
+ *
+ * RunesReaperUI tells the view which cells changed after each engine call, and the view
+ * redraws just those cells. Two implementations exist:
+ * ButtonBoardView - one Button per cell in a GridPane, with CSS styling and fade-in animations
+ * CanvasBoardView - the whole board drawn on a single Canvas, for boards too big for one control per cell
+ */
+public interface BoardView {
+
+	//Clairvoyance marks on hidden cells, see showHint()
+	int NO_HINT = 0;
+	int HINT_SAFE = 1;
+	int HINT_FIRE = 2;
+	int HINT_GUESS = 3;
+
+	/**
+	 * Receives the player's clicks on the board
+	 */
+	interface Listener {
+		/**
+		 * A cell was (left) clicked to open it
+		 */
+		void cellClicked(int row, int col);
+
+		/**
+		 * A cell was right-clicked to toggle its flag
+		 */
+		void cellFlagged(int row, int col);
+
+		/**
+		 * A gem lying on a cell was clicked
+		 */
+		void gemClicked(int row, int col);
+	}
+
+	/**
+	 * @return The node to place in the game layout.
+	 */
+	Node getNode();
+
+	/**
+	 * Shows a safe cell as opened, with its number of adjacent fires if there are any
+	 */
+	void showOpened(int row, int col);
+
+	/**
+	 * Shows a burning fire on a cell
+	 */
+	void showFire(int row, int col);
+
+	/**
+	 * Shows a frozen (safely revealed) fire on a cell
+	 */
+	void showFrozenFire(int row, int col);
+
+	/**
+	 * Shows or removes the flag on a cell
+	 */
+	void showFlag(int row, int col, boolean flagged);
+
+	/**
+	 * Shows or hides the gem lying on a cell
+	 */
+	void showGem(int row, int col, boolean visible);
+
+	/**
+	 * Marks a hidden cell with a Clairvoyance hint. The mark goes when the cell is opened or burns,
+	 * or when NO_HINT is shown on it.
+	 *
+	 * @param hint One of NO_HINT, HINT_SAFE, HINT_FIRE or HINT_GUESS.
+	 */
+	void showHint(int row, int col, int hint);
+
+	/**
+	 * Ends the game on the board: hides the gems and disables every cell.
+	 * The fires are shown afterwards through showFire(), see RevealSequencer.
+	 */
+	void endGame();
+}
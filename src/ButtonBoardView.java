@@ -0,0 +1,343 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import engine.BoardTopology;
+import engine.RunesEngine;
+import javafx.animation.FadeTransition;
+import javafx.animation.KeyFrame;
+import javafx.animation.KeyValue;
+import javafx.animation.Timeline;
+import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.SimpleDoubleProperty;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Node;
+import javafx.scene.control.Button;
+import javafx.scene.image.ImageView;
+import javafx.scene.input.MouseButton;
+import javafx.scene.layout.GridPane;
+import javafx.util.Duration;
+
+/**
+ * ButtonBoardView Class
+ * The original board: a GridPane with one Button per playable cell.
+ *
+ * Cells are styled by the "game-cell" rules of style.css and icons fade in when they appear.
+ * Suited to the normal board sizes; very large boards use CanvasBoardView instead.
+ *
+ * Cell Icons
+ * Each cell keeps one ImageView for its flag and fire icons, made the first time it shows one.
+ * The icons shown in the same frame, e.g. the rings of the fire reveal, fade in together: their opacity
+ * follows one shared animation, which goes back to a pool once it has played.
+ *
+ * Gem Overlays
+ * Gems are shown by transparent buttons placed over their cell, in the same grid position.
+ * Only the gems around one cell lie on the board at once, so instead of a hidden gem button per
+ * cell the overlays come from a small pool: one is attached to the grid when a gem appears and
+ * detached and pooled again when it goes. Each overlay keeps its ImageView and fade-in, and the
+ * fade-in only plays when the gem appears.
+ */
+public class ButtonBoardView implements BoardView {
+
+	//Gap between cells in pixels
+	private static final int GAP = 3;
+	//Style classes of the Clairvoyance hints, indexed by hint
+	private static final String[] HINT_STYLES = { null, "hint-safe", "hint-fire", "hint-guess" };
+
+	private final RunesEngine engine;
+	private final int cellSize;
+	private final boolean hex;
+	private final Listener listener;
+	private final SpriteAtlas atlas;
+	private final Button[][] cells;
+	private final ImageView[][] icons;//Icon of each cell, null until the cell shows one
+	private final GridPane gameGrid;
+	private final String smallCellStyle;//Number style for cells too small for the 16px "number-cell" font, null otherwise
+
+	//Gem overlays waiting to be used, at most one per neighbour of a cell
+	private final GemOverlay[] gemPool;
+	private int pooledGems = 0;
+	//Gem overlays currently in the grid
+	private final List<GemOverlay> shownGems = new ArrayList<>();
+
+	//Fade of the icons shown this frame, null if none, and the fades done playing
+	private IconFade iconFade;
+	private final Deque<IconFade> idleFades = new ArrayDeque<>();
+
+	/**
+	 * Creates the grid of cells for the engine's board
+	 *
+	 * @param engine The game to show.
+	 * @param cellSize Size of each cell in pixels.
+	 * @param atlas Icons pre-scaled to the cell size.
+	 * @param listener Receives the clicks on the board.
+	 */
+	public ButtonBoardView(RunesEngine engine, int cellSize, SpriteAtlas atlas, Listener listener) {
+		this.engine = engine;
+		this.cellSize = cellSize;
+		this.atlas = atlas;
+		this.listener = listener;
+		BoardTopology topology = engine.getTopology();
+		hex = topology.getShape() == BoardTopology.Shape.HEX;
+		cells = new Button[topology.getHeight()][topology.getWidth()];
+		icons = new ImageView[topology.getHeight()][topology.getWidth()];
+		gemPool = new GemOverlay[topology.getMaxDegree()];
+		smallCellStyle = cellSize < 32 ? "-fx-padding: 0; -fx-font-size: " + Math.max(8, cellSize / 2) + "px;" : null;
+		gameGrid = createGameGrid(topology);
+	}
+
+	/**
+	 * Creates the main game grid.
+	 * This method sets up the grid of cells for the board's shape (circular by default).
+	 *
+	 * @return A GridPane containing the game cells.
+	 */
+	private GridPane createGameGrid(BoardTopology topology) {
+		GridPane gameGrid = new GridPane();
+		gameGrid.setAlignment(Pos.CENTER);
+		//Sets 3px width gap between columns and rows
+		gameGrid.setHgap(GAP);
+		gameGrid.setVgap(GAP);
+		gameGrid.setPadding(new Insets(20));
+
+		//Only the cells of the board's shape (see BoardTopology) are added
+		for (int c = 0; c < topology.getCellCount(); c++) {
+			int row = topology.row(c);
+			int col = topology.col(c);
+
+			Button cell = createCell(row, col);
+			cells[row][col] = cell;
+			placeInGrid(cell, row, col);
+			gameGrid.getChildren().add(cell);
+		}
+		return gameGrid;
+	}
+
+	/**
+	 * Puts a node at the grid position of a cell
+	 */
+	private void placeInGrid(Node node, int row, int col) {
+		GridPane.setConstraints(node, col, row);
+		//Hexagon rows are staggered, odd rows sit half a cell to the right
+		node.setTranslateX(hex && row % 2 == 1 ? (cellSize + GAP) / 2.0 : 0);
+	}
+
+	/**
+	 * Creates an individual cell button for the game grid.
+	 *
+	 * @param row The row of the cell.
+	 * @param col The column of the cell.
+	 * @return A Button representing the cell.
+	 */
+	private Button createCell(int row, int col) {
+		Button cell = new Button();
+		//Sets the size of the cell
+		cell.setPrefSize(cellSize, cellSize);
+		cell.setMinSize(cellSize, cellSize);
+		cell.setMaxSize(cellSize, cellSize);
+
+		//Left click opens the cell, right click toggles its flag
+		cell.setOnAction(e -> listener.cellClicked(row, col));
+		cell.setOnMouseClicked(e -> {
+			if (e.getButton() == MouseButton.SECONDARY) {
+				listener.cellFlagged(row, col);
+			}
+		});
+
+		//Adds CSS class "game-cell" for styling
+		cell.getStyleClass().add("game-cell");
+		return cell;
+	}
+
+	@Override
+	public Node getNode() {
+		return gameGrid;
+	}
+
+	@Override
+	public void showOpened(int row, int col) {
+		Button cell = cells[row][col];
+		showHint(row, col, NO_HINT);
+		//If there are adjacent fires, display the count
+		int adjacentFires = engine.countAdjacentFires(row, col);
+		if (adjacentFires > 0) {
+			cell.setText(String.valueOf(adjacentFires));
+			cell.getStyleClass().add("number-cell");
+			if (smallCellStyle != null) {
+				cell.setStyle(smallCellStyle);
+			}
+		}
+		//Disable the opened cell to prevent further interactions
+		cell.setDisable(true);
+	}
+
+	@Override
+	public void showFire(int row, int col) {
+		//The fire image is pre-scaled to be slightly smaller than the cell
+		ImageView image = icon(row, col, SpriteAtlas.Sprite.FIRE);
+		showHint(row, col, NO_HINT);
+		cells[row][col].setGraphic(image);
+		cells[row][col].setDisable(true);
+		fadeInImage(image);
+	}
+
+	@Override
+	public void showFrozenFire(int row, int col) {
+		ImageView image = icon(row, col, SpriteAtlas.Sprite.FROZEN);
+		showHint(row, col, NO_HINT);
+		cells[row][col].setGraphic(image);
+		cells[row][col].setStyle("-fx-background-color: #B7C9E2; -fx-border-color: #537eb9;");
+		cells[row][col].setDisable(true);
+		fadeInImage(image);
+	}
+
+	@Override
+	public void showFlag(int row, int col, boolean flagged) {
+		cells[row][col].setGraphic(flagged ? icon(row, col, SpriteAtlas.Sprite.FLAG) : null);
+	}
+
+	/**
+	 * @return The icon view of a cell, turned to the given icon.
+	 */
+	private ImageView icon(int row, int col, SpriteAtlas.Sprite sprite) {
+		ImageView icon = icons[row][col];
+		if (icon == null) {
+			icon = atlas.createView(sprite);
+			icons[row][col] = icon;
+		} else {
+			atlas.setSprite(icon, sprite);
+		}
+		return icon;
+	}
+
+	@Override
+	public void showHint(int row, int col, int hint) {
+		//A cell has at most one hint class
+		cells[row][col].getStyleClass().removeAll(HINT_STYLES[HINT_SAFE], HINT_STYLES[HINT_FIRE], HINT_STYLES[HINT_GUESS]);
+		if (hint != NO_HINT) {
+			cells[row][col].getStyleClass().add(HINT_STYLES[hint]);
+		}
+	}
+
+	@Override
+	public void showGem(int row, int col, boolean visible) {
+		GemOverlay shown = null;
+		for (GemOverlay gem : shownGems) {
+			if (gem.row == row && gem.col == col) {
+				shown = gem;
+				break;
+			}
+		}
+		if (visible && shown == null) {
+			//Attach an overlay over the cell and fade the gem in
+			GemOverlay gem = pooledGems > 0 ? gemPool[--pooledGems] : new GemOverlay();
+			gem.row = row;
+			gem.col = col;
+			placeInGrid(gem.button, row, col);
+			gameGrid.getChildren().add(gem.button);
+			shownGems.add(gem);
+			gem.fadeIn.playFromStart();
+		} else if (!visible && shown != null) {
+			releaseGem(shown);
+		}
+	}
+
+	/**
+	 * Detaches a gem overlay from the grid and keeps it for the next gem
+	 */
+	private void releaseGem(GemOverlay gem) {
+		gem.fadeIn.stop();
+		gameGrid.getChildren().remove(gem.button);
+		shownGems.remove(gem);
+		if (pooledGems < gemPool.length) {
+			gemPool[pooledGems++] = gem;
+		}
+	}
+
+	@Override
+	public void endGame() {
+		//Remove all gems
+		while (!shownGems.isEmpty()) {
+			releaseGem(shownGems.get(shownGems.size() - 1));
+		}
+		//Disabling the grid disables (and greys out) every cell in it
+		gameGrid.setDisable(true);
+	}
+
+	/**
+	 * Fades an icon in with the other icons shown this frame
+	 */
+	private void fadeInImage(ImageView image) {
+		//A fade that has not played its first frame yet started this frame
+		if (iconFade == null || iconFade.timeline.getCurrentTime().greaterThan(Duration.ZERO)) {
+			iconFade = idleFades.isEmpty() ? new IconFade() : idleFades.pop();
+			iconFade.timeline.playFromStart();
+		}
+		iconFade.add(image);
+	}
+
+	/**
+	 * One fade-in shared by icons: their opacity is bound to the animated value until it reaches 1
+	 */
+	private final class IconFade {
+		private final DoubleProperty opacity = new SimpleDoubleProperty(0.0);
+		private final Timeline timeline = new Timeline(
+				new KeyFrame(Duration.ZERO, new KeyValue(opacity, 0.0)),
+				new KeyFrame(Duration.millis(500), new KeyValue(opacity, 1.0)));
+		private final List<ImageView> images = new ArrayList<>();
+
+		private IconFade() {
+			timeline.setOnFinished(e -> finish());
+		}
+
+		private void add(ImageView image) {
+			image.opacityProperty().bind(opacity);
+			images.add(image);
+		}
+
+		/**
+		 * Leaves the icons fully shown and pools the fade
+		 */
+		private void finish() {
+			for (ImageView image : images) {
+				image.opacityProperty().unbind();
+				image.setOpacity(1.0);
+			}
+			images.clear();
+			if (iconFade == this) {
+				iconFade = null;
+			}
+			idleFades.push(this);
+		}
+	}
+
+	/**
+	 * A transparent gem button with its image and fade-in, shown over the cell at (row, col)
+	 */
+	private final class GemOverlay {
+		private final Button button = new Button();
+		private final FadeTransition fadeIn;
+		private int row;
+		private int col;
+
+		private GemOverlay() {
+			button.setPrefSize(cellSize, cellSize);
+			button.setMinSize(cellSize, cellSize);
+			button.setMaxSize(cellSize, cellSize);
+			button.setStyle("-fx-background-color: transparent;");
+
+			ImageView gemView = atlas.createView(SpriteAtlas.Sprite.GEM);
+			button.setGraphic(gemView);
+			fadeIn = new FadeTransition(Duration.millis(500), gemView);
+			fadeIn.setFromValue(0.0);
+			fadeIn.setToValue(1.0);
+
+			button.setOnAction(e -> {
+				listener.gemClicked(row, col);
+				e.consume();
+			});
+		}
+	}
+}
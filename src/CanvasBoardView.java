@@ -0,0 +1,568 @@
+import java.util.BitSet;
+
+import engine.BoardTopology;
+import engine.RunesEngine;
+import javafx.animation.AnimationTimer;
+import javafx.geometry.Rectangle2D;
+import javafx.geometry.VPos;
+import javafx.scene.Node;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.WritableImage;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
+import javafx.scene.input.ZoomEvent;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+
+/**
+ * CanvasBoardView Class
+ * Draws the whole board on a single Canvas instead of creating controls for every cell,
+ * so boards of hundreds of rows and columns stay responsive.
+ *
+ * The look follows the "game-cell" rules of style.css: hidden cells are light grey with a
+ * border and darken under the mouse, opened cells are darker grey with their number, frozen
+ * fires are light blue. Icons are copied from the SpriteAtlas, already at their final size.
+ *
+ * Canvas Implementation
+ * 1) The canvas is only as big as the space it is shown in. Boards larger than that are panned
+ *    by dragging or with the mouse wheel (shift + wheel pans sideways), and zoomed with
+ *    ctrl + wheel or a pinch, around the mouse
+ * 2) Frames are drawn from a BoardTileCache: only the tiles inside the canvas are drawn, and a
+ *    tile is rendered again only after a cell inside it changed, so panning copies images
+ * 3) Cell changes and view moves only request a frame; all requests until the next pulse are
+ *    drawn together, and tiles that do not fit in the frame budget are rendered in later frames
+ * 4) Clicks are mapped back to (row, col) from the mouse position; clicks on the gaps between
+ *    cells or outside the board's shape, and the end of a drag, are ignored
+ * 5) While the board does not fit, a BoardMinimap in the corner shows where the view is
+ */
+public class CanvasBoardView implements BoardView {
+
+	//Space around the board in pixels
+	private static final int PADDING = 20;
+	//Space between the minimap and the corner of the view
+	private static final int MINIMAP_MARGIN = 10;
+	//Most zoom in; the least zoom shows the whole board
+	private static final double MAX_ZOOM = 2;
+	//Zoom change of one wheel step
+	private static final double WHEEL_ZOOM = 1.25;
+	//Time a frame may spend rendering tiles, the rest waits for the next frame
+	private static final long TILE_BUDGET_NANOS = 8_000_000;
+
+	private static final Color HIDDEN = Color.web("#f0f0f0");
+	//Darkens a hidden cell to the #e0e0e0 of the hover style
+	private static final Color HOVER = Color.rgb(0, 0, 0, 0.067);
+	private static final Color OPENED = Color.web("#c0c0c0");
+	private static final Color BORDER = Color.web("#cccccc");
+	private static final Color FROZEN = Color.web("#B7C9E2");
+	private static final Color FROZEN_BORDER = Color.web("#537eb9");
+	private static final Color NUMBER = Color.web("#424242");
+	//Borders of the Clairvoyance hints, as the "hint-*" styles, indexed by hint
+	private static final Color[] HINT_BORDERS = { null, Color.web("#3cb371"), Color.web("#e25822"), Color.web("#e0b000") };
+
+	//Colours of the cells seen from far away, as ARGB
+	private static final int HIDDEN_ARGB = 0xfff0f0f0;
+	private static final int OPENED_ARGB = 0xffc0c0c0;
+	private static final int FROZEN_ARGB = 0xffb7c9e2;
+	private static final int FIRE_ARGB = 0xffe25822;
+	private static final int FLAG_ARGB = 0xffaa98a9;
+	private static final int GEM_ARGB = 0xff3fa7d6;
+	private static final int[] HINT_ARGB = { HIDDEN_ARGB, 0xff3cb371, 0xffe25822, 0xffe0b000 };
+
+	private final RunesEngine engine;
+	private final BoardTopology topology;
+	private final BoardGeometry geometry;
+	private final int cellSize;
+	private final SpriteAtlas atlas;
+	private final Listener listener;
+
+	private final Pane container = new Pane();
+	private final Canvas canvas = new Canvas();
+	private final GraphicsContext gc = canvas.getGraphicsContext2D();
+	private final Font numberFont;
+	private final BoardTileCache tiles;
+	private final BoardMinimap minimap;
+
+	//Draws at most one frame per pulse, however many changes were requested
+	private final AnimationTimer frameTimer = new AnimationTimer() {
+		@Override
+		public void handle(long now) {
+			stop();
+			frameRequested = false;
+			drawFrame();
+		}
+	};
+	private boolean frameRequested;
+
+	//Cells that show a burning fire and cells that show a gem, by compact cell index
+	private final BitSet burning = new BitSet();
+	private final BitSet gems = new BitSet();
+	//Clairvoyance hint of each cell, see BoardView.showHint()
+	private final byte[] hints;
+	private boolean ended;
+
+	//Cell under the mouse (-1 for none), zoom, and board position at the top left of the view
+	private int hoverCell = -1;
+	private double zoom = 1;
+	private double scrollX;
+	private double scrollY;
+	//Last mouse position of a drag
+	private double dragX;
+	private double dragY;
+
+	/**
+	 * Creates the canvas for the engine's board
+	 *
+	 * @param engine The game to show.
+	 * @param cellSize Size of each cell in pixels.
+	 * @param atlas Icons pre-scaled to the cell size.
+	 * @param listener Receives the clicks on the board.
+	 */
+	public CanvasBoardView(RunesEngine engine, int cellSize, SpriteAtlas atlas, Listener listener) {
+		this.engine = engine;
+		this.topology = engine.getTopology();
+		this.geometry = new BoardGeometry(topology, cellSize);
+		this.cellSize = cellSize;
+		this.atlas = atlas;
+		this.listener = listener;
+		//Numbers are 16px in 40px cells, like the "number-cell" style, and shrink with smaller cells
+		this.numberFont = Font.font(Math.min(16, Math.max(8, cellSize * 0.4)));
+		this.hints = new byte[topology.getCellCount()];
+
+		CellPainter painter = new CellPainter();
+		tiles = new BoardTileCache(geometry, painter, atlas.getOutputScale());
+		minimap = new BoardMinimap(geometry, painter, this::centerOn);
+
+		//The container takes whatever space the layout gives it, and the canvas follows its size
+		container.getChildren().addAll(canvas, minimap.getNode());
+		container.setMinSize(0, 0);
+		container.setPrefSize(geometry.width() + 2 * PADDING, geometry.height() + 2 * PADDING);
+		Rectangle clip = new Rectangle();
+		clip.widthProperty().bind(container.widthProperty());
+		clip.heightProperty().bind(container.heightProperty());
+		container.setClip(clip);
+		canvas.widthProperty().bind(container.widthProperty());
+		canvas.heightProperty().bind(container.heightProperty());
+		canvas.widthProperty().addListener((obs, oldValue, newValue) -> viewChanged());
+		canvas.heightProperty().addListener((obs, oldValue, newValue) -> viewChanged());
+
+		canvas.setOnMouseClicked(this::mouseClicked);
+		canvas.setOnMouseMoved(this::mouseMoved);
+		canvas.setOnMouseExited(e -> setHoverCell(-1));
+		canvas.setOnMousePressed(this::mousePressed);
+		canvas.setOnMouseDragged(this::mouseDragged);
+		canvas.setOnScroll(this::scrolled);
+		canvas.setOnZoom(this::zoomed);
+	}
+
+	@Override
+	public Node getNode() {
+		return container;
+	}
+
+	@Override
+	public void showOpened(int row, int col) {
+		int cell = topology.cellAt(row, col);
+		hints[cell] = NO_HINT;
+		cellChanged(cell);
+	}
+
+	@Override
+	public void showFire(int row, int col) {
+		int cell = topology.cellAt(row, col);
+		burning.set(cell);
+		hints[cell] = NO_HINT;
+		cellChanged(cell);
+	}
+
+	@Override
+	public void showFrozenFire(int row, int col) {
+		int cell = topology.cellAt(row, col);
+		hints[cell] = NO_HINT;
+		cellChanged(cell);
+	}
+
+	@Override
+	public void showFlag(int row, int col, boolean flagged) {
+		cellChanged(topology.cellAt(row, col));
+	}
+
+	@Override
+	public void showHint(int row, int col, int hint) {
+		int cell = topology.cellAt(row, col);
+		if (cell < 0 || hints[cell] == hint) {
+			return;
+		}
+		hints[cell] = (byte) hint;
+		cellChanged(cell);
+	}
+
+	@Override
+	public void showGem(int row, int col, boolean visible) {
+		int cell = topology.cellAt(row, col);
+		if (cell < 0 || gems.get(cell) == visible) {
+			return;
+		}
+		gems.set(cell, visible);
+		cellChanged(cell);
+	}
+
+	@Override
+	public void endGame() {
+		//Every hidden cell turns grey and every gem disappears, so every tile is rendered again
+		ended = true;
+		gems.clear();
+		hoverCell = -1;
+		tiles.invalidateAll();
+		minimap.redrawAll();
+		requestFrame();
+	}
+
+	/**
+	 * Marks the tiles and minimap pixels of a changed cell for drawing
+	 */
+	private void cellChanged(int cell) {
+		if (cell < 0) {
+			return;
+		}
+		tiles.invalidateCell(cell);
+		minimap.updateCell(cell);
+		requestFrame();
+	}
+
+	private void requestFrame() {
+		if (!frameRequested) {
+			frameRequested = true;
+			frameTimer.start();
+		}
+	}
+
+	/**
+	 * @return true if the whole board fits in the view at the current zoom.
+	 */
+	private boolean fitsWidth() {
+		return geometry.width() * zoom <= canvas.getWidth() - 2 * PADDING;
+	}
+
+	private boolean fitsHeight() {
+		return geometry.height() * zoom <= canvas.getHeight() - 2 * PADDING;
+	}
+
+	/**
+	 * Left edge of the board on the canvas; boards that fit are centred, larger ones scrolled
+	 */
+	private double originX() {
+		return fitsWidth() ? (canvas.getWidth() - geometry.width() * zoom) / 2 : PADDING - scrollX * zoom;
+	}
+
+	/**
+	 * Top edge of the board on the canvas; boards that fit are centred, larger ones scrolled
+	 */
+	private double originY() {
+		return fitsHeight() ? (canvas.getHeight() - geometry.height() * zoom) / 2 : PADDING - scrollY * zoom;
+	}
+
+	/**
+	 * @return The least zoom: the one showing the whole board, or 1 for boards that fit.
+	 */
+	private double minZoom() {
+		double fitX = (canvas.getWidth() - 2 * PADDING) / geometry.width();
+		double fitY = (canvas.getHeight() - 2 * PADDING) / geometry.height();
+		return Math.max(Math.ulp(1.0), Math.min(1, Math.min(fitX, fitY)));
+	}
+
+	/**
+	 * Keeps the zoom and scroll position inside their limits after the view or board moved
+	 */
+	private void viewChanged() {
+		zoom = Math.max(minZoom(), Math.min(MAX_ZOOM, zoom));
+		double viewWidth = (canvas.getWidth() - 2 * PADDING) / zoom;
+		double viewHeight = (canvas.getHeight() - 2 * PADDING) / zoom;
+		scrollX = Math.max(0, Math.min(geometry.width() - viewWidth, scrollX));
+		scrollY = Math.max(0, Math.min(geometry.height() - viewHeight, scrollY));
+
+		//The minimap sits in the bottom right corner while the board does not fit
+		Canvas map = minimap.getNode();
+		map.setVisible(!fitsWidth() || !fitsHeight());
+		map.setLayoutX(canvas.getWidth() - map.getWidth() - MINIMAP_MARGIN);
+		map.setLayoutY(canvas.getHeight() - map.getHeight() - MINIMAP_MARGIN);
+		requestFrame();
+	}
+
+	/**
+	 * Moves the view so a board position is in its middle, e.g. when the minimap is clicked
+	 *
+	 * @param x Horizontal position on the board.
+	 * @param y Vertical position on the board.
+	 */
+	private void centerOn(double x, double y) {
+		scrollX = x - (canvas.getWidth() - 2 * PADDING) / zoom / 2;
+		scrollY = y - (canvas.getHeight() - 2 * PADDING) / zoom / 2;
+		viewChanged();
+	}
+
+	/**
+	 * Zooms keeping the board position under a point of the canvas in place
+	 *
+	 * @param factor Zoom change, above 1 to zoom in.
+	 * @param x Horizontal position on the canvas.
+	 * @param y Vertical position on the canvas.
+	 */
+	private void zoomAround(double factor, double x, double y) {
+		double boardX = (x - originX()) / zoom;
+		double boardY = (y - originY()) / zoom;
+		zoom = Math.max(minZoom(), Math.min(MAX_ZOOM, zoom * factor));
+		scrollX = boardX - (x - PADDING) / zoom;
+		scrollY = boardY - (y - PADDING) / zoom;
+		setHoverCell(-1);
+		viewChanged();
+	}
+
+	/**
+	 * Draws the visible tiles, the hover highlight and the minimap frame
+	 */
+	private void drawFrame() {
+		gc.setTransform(1, 0, 0, 1, 0, 0);
+		gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+		if (canvas.getWidth() <= 0 || canvas.getHeight() <= 0) {
+			return;
+		}
+		double originX = originX();
+		double originY = originY();
+		int level = BoardTileCache.levelFor(zoom);
+		double span = tiles.tileSpan(level);
+		double tileSize = span * zoom;
+
+		//Only the tiles inside the canvas are visited
+		int firstX = (int) Math.max(0, Math.floor(-originX / tileSize));
+		int lastX = (int) Math.min(Math.floor(geometry.width() / span), Math.floor((canvas.getWidth() - originX) / tileSize));
+		int firstY = (int) Math.max(0, Math.floor(-originY / tileSize));
+		int lastY = (int) Math.min(Math.floor(geometry.height() / span), Math.floor((canvas.getHeight() - originY) / tileSize));
+		long deadline = System.nanoTime() + TILE_BUDGET_NANOS;
+		boolean unfinished = false;
+		for (int tileY = firstY; tileY <= lastY; tileY++) {
+			for (int tileX = firstX; tileX <= lastX; tileX++) {
+				boolean render = tiles.isFresh(level, tileX, tileY) || System.nanoTime() < deadline;
+				WritableImage image = tiles.get(level, tileX, tileY, render);
+				unfinished |= !render;
+				if (image == null) {
+					continue;
+				}
+				//Rounded edges so neighbouring tiles meet without seams
+				double left = Math.round(originX + tileX * tileSize);
+				double top = Math.round(originY + tileY * tileSize);
+				double right = Math.round(originX + (tileX + 1) * tileSize);
+				double bottom = Math.round(originY + (tileY + 1) * tileSize);
+				gc.drawImage(image, left, top, right - left, bottom - top);
+			}
+		}
+		if (unfinished) {
+			//Tiles left out of this frame are rendered in the next ones
+			requestFrame();
+		}
+
+		if (hoverCell >= 0) {
+			int row = topology.row(hoverCell);
+			int col = topology.col(hoverCell);
+			gc.setFill(HOVER);
+			gc.fillRect(originX + geometry.cellX(row, col) * zoom, originY + geometry.cellY(row) * zoom,
+					cellSize * zoom, cellSize * zoom);
+		}
+
+		if (minimap.getNode().isVisible()) {
+			double left = Math.max(0, -originX / zoom);
+			double top = Math.max(0, -originY / zoom);
+			minimap.setView(left, top, Math.min(geometry.width(), (canvas.getWidth() - originX) / zoom) - left,
+					Math.min(geometry.height(), (canvas.getHeight() - originY) / zoom) - top);
+			minimap.draw();
+		}
+	}
+
+	/**
+	 * Finds the cell under a point of the canvas
+	 *
+	 * @param x Horizontal position on the canvas.
+	 * @param y Vertical position on the canvas.
+	 * @return The compact index of the cell, or -1 if the point is on a gap or off the board.
+	 */
+	private int cellAtPoint(double x, double y) {
+		return geometry.cellAt((x - originX()) / zoom, (y - originY()) / zoom);
+	}
+
+	/**
+	 * Left click picks up a gem or opens the cell, right click toggles its flag
+	 */
+	private void mouseClicked(MouseEvent e) {
+		if (ended || !e.isStillSincePress()) {
+			return;
+		}
+		int cell = cellAtPoint(e.getX(), e.getY());
+		if (cell < 0) {
+			return;
+		}
+		int row = topology.row(cell);
+		int col = topology.col(cell);
+		if (e.getButton() == MouseButton.PRIMARY) {
+			if (gems.get(cell)) {
+				listener.gemClicked(row, col);
+			} else if (!engine.isRevealed(row, col)) {
+				listener.cellClicked(row, col);
+			}
+		} else if (e.getButton() == MouseButton.SECONDARY) {
+			listener.cellFlagged(row, col);
+		}
+	}
+
+	/**
+	 * Highlights the hidden cell under the mouse, like the hover style of the buttons
+	 */
+	private void mouseMoved(MouseEvent e) {
+		int cell = ended ? -1 : cellAtPoint(e.getX(), e.getY());
+		if (cell >= 0 && (burning.get(cell) || engine.isRevealed(topology.row(cell), topology.col(cell)))) {
+			cell = -1;
+		}
+		setHoverCell(cell);
+	}
+
+	private void setHoverCell(int cell) {
+		if (cell != hoverCell) {
+			hoverCell = cell;
+			requestFrame();
+		}
+	}
+
+	private void mousePressed(MouseEvent e) {
+		dragX = e.getX();
+		dragY = e.getY();
+	}
+
+	/**
+	 * Pans the board with the mouse
+	 */
+	private void mouseDragged(MouseEvent e) {
+		scrollX -= (e.getX() - dragX) / zoom;
+		scrollY -= (e.getY() - dragY) / zoom;
+		dragX = e.getX();
+		dragY = e.getY();
+		setHoverCell(-1);
+		viewChanged();
+	}
+
+	/**
+	 * Pans a board larger than the canvas; shift + wheel pans sideways and ctrl + wheel zooms
+	 */
+	private void scrolled(ScrollEvent e) {
+		double dx = e.getDeltaX();
+		double dy = e.getDeltaY();
+		if (e.isControlDown()) {
+			if (dy != 0) {
+				zoomAround(dy > 0 ? WHEEL_ZOOM : 1 / WHEEL_ZOOM, e.getX(), e.getY());
+			}
+			e.consume();
+			return;
+		}
+		if (e.isShiftDown() && dx == 0) {
+			dx = dy;
+			dy = 0;
+		}
+		scrollX -= dx / zoom;
+		scrollY -= dy / zoom;
+		setHoverCell(-1);
+		viewChanged();
+		e.consume();
+	}
+
+	/**
+	 * Zooms with a pinch on touch pads and screens
+	 */
+	private void zoomed(ZoomEvent e) {
+		zoomAround(e.getZoomFactor(), e.getX(), e.getY());
+		e.consume();
+	}
+
+	/**
+	 * Paints the cells into the tiles and gives their colours to the far zoom levels and minimap
+	 */
+	private final class CellPainter implements BoardTileCache.CellRenderer {
+
+		@Override
+		public void paintCell(GraphicsContext gc, int cell, double x, double y) {
+			int row = topology.row(cell);
+			int col = topology.col(cell);
+			boolean fire = engine.isFire(row, col);
+			boolean revealed = engine.isRevealed(row, col);
+			//The fire that ended the game burns, other opened fires were frozen by a Life Potion
+			boolean burns = fire && burning.get(cell);
+			boolean frozen = fire && revealed && !burns;
+
+			//Background and border of the cell
+			gc.setFill(frozen ? FROZEN : revealed || ended || burning.get(cell) ? OPENED : HIDDEN);
+			gc.fillRect(x, y, cellSize, cellSize);
+			gc.setStroke(frozen ? FROZEN_BORDER : BORDER);
+			gc.setLineWidth(1);
+			gc.strokeRect(x + 0.5, y + 0.5, cellSize - 1, cellSize - 1);
+			boolean hidden = !revealed && !ended && !burning.get(cell);
+			if (hidden && hints[cell] != NO_HINT) {
+				gc.setStroke(HINT_BORDERS[hints[cell]]);
+				gc.setLineWidth(2);
+				gc.strokeRect(x + 1, y + 1, cellSize - 2, cellSize - 2);
+			}
+
+			//Icon or number on top
+			if (burns) {
+				drawSprite(gc, SpriteAtlas.Sprite.FIRE, x, y);
+			} else if (frozen) {
+				drawSprite(gc, SpriteAtlas.Sprite.FROZEN, x, y);
+			} else if (revealed) {
+				int adjacentFires = engine.countAdjacentFires(row, col);
+				if (adjacentFires > 0) {
+					gc.setFont(numberFont);
+					gc.setTextAlign(TextAlignment.CENTER);
+					gc.setTextBaseline(VPos.CENTER);
+					gc.setFill(NUMBER);
+					gc.fillText(String.valueOf(adjacentFires), x + cellSize / 2.0, y + cellSize / 2.0);
+				}
+			} else if (engine.isFlagged(row, col)) {
+				drawSprite(gc, SpriteAtlas.Sprite.FLAG, x, y);
+			}
+			if (gems.get(cell)) {
+				drawSprite(gc, SpriteAtlas.Sprite.GEM, x, y);
+			}
+		}
+
+		@Override
+		public int cellColor(int cell) {
+			int row = topology.row(cell);
+			int col = topology.col(cell);
+			boolean fire = engine.isFire(row, col);
+			boolean revealed = engine.isRevealed(row, col);
+			if (gems.get(cell)) {
+				return GEM_ARGB;
+			} else if (fire && burning.get(cell)) {
+				return FIRE_ARGB;
+			} else if (fire && revealed) {
+				return FROZEN_ARGB;
+			} else if (revealed || ended) {
+				return OPENED_ARGB;
+			} else if (engine.isFlagged(row, col)) {
+				return FLAG_ARGB;
+			}
+			return HINT_ARGB[hints[cell]];
+		}
+
+		/**
+		 * Draws an icon of the atlas in the middle of a cell
+		 */
+		private void drawSprite(GraphicsContext gc, SpriteAtlas.Sprite sprite, double x, double y) {
+			Rectangle2D source = atlas.getViewport(sprite);
+			double size = atlas.logicalSize(sprite);
+			double inset = (cellSize - size) / 2;
+			gc.drawImage(atlas.getImage(), source.getMinX(), source.getMinY(), source.getWidth(), source.getHeight(),
+					x + inset, y + inset, size, size);
+		}
+	}
+}
@@ -0,0 +1,135 @@
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import engine.BoardSolver;
+import engine.BoardTopology;
+import javafx.application.Platform;
+
+/**
+ * ClairvoyanceService Class
+ * Runs the BoardSolver of the current game on a background thread, so hints never stall the FX thread.
+ *
+ * Thread Implementation
+ * 1) The solver lives on a single daemon thread and is only touched by tasks run there, so it needs no locking
+ * 2) The FX thread collects the cells opened by a click and hands them over as one task by flush(),
+ *    which also propagates them, so a query only has the new work left
+ * 3) A query is cancelled by the next query, click or game; the solver polls the flag and gives up,
+ *    and a result that arrives after its query was cancelled is dropped
+ * 4) Results are delivered on the FX thread through Platform.runLater
+ */
+public final class ClairvoyanceService {
+
+	private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "clairvoyance");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	//Solver of the current game, only used on the executor thread
+	private BoardSolver solver;
+
+	//Cells changed since the last flush, collected on the FX thread: their number, or -1 for a fire
+	private int[] pendingCells = new int[64];
+	private int[] pendingNumbers = new int[64];
+	private int pendingSize = 0;
+
+	private Query current;
+
+	/**
+	 * Starts solving a new game, dropping the previous one
+	 *
+	 * @param topology The board.
+	 * @param numFires Number of fires on the board.
+	 */
+	public void newGame(BoardTopology topology, int numFires) {
+		cancel();
+		pendingSize = 0;
+		executor.execute(() -> solver = new BoardSolver(topology, numFires));
+	}
+
+	/**
+	 * Records an opened cell, sent to the solver on the next flush()
+	 *
+	 * @param cell Compact index of the cell.
+	 * @param adjacentFires The number shown on the cell.
+	 */
+	public void cellOpened(int cell, int adjacentFires) {
+		if (pendingSize == pendingCells.length) {
+			pendingCells = Arrays.copyOf(pendingCells, pendingSize * 2);
+			pendingNumbers = Arrays.copyOf(pendingNumbers, pendingSize * 2);
+		}
+		pendingCells[pendingSize] = cell;
+		pendingNumbers[pendingSize++] = adjacentFires;
+	}
+
+	/**
+	 * Records a fire revealed on the board, sent to the solver on the next flush()
+	 *
+	 * @param cell Compact index of the cell.
+	 */
+	public void fireRevealed(int cell) {
+		cellOpened(cell, -1);
+	}
+
+	/**
+	 * Sends the recorded cells to the solver, which propagates them in the background
+	 */
+	public void flush() {
+		if (pendingSize == 0) return;
+		int[] cells = Arrays.copyOf(pendingCells, pendingSize);
+		int[] numbers = Arrays.copyOf(pendingNumbers, pendingSize);
+		pendingSize = 0;
+		executor.execute(() -> {
+			for (int i = 0; i < cells.length; i++) {
+				if (numbers[i] < 0) {
+					solver.fireRevealed(cells[i]);
+				} else {
+					solver.cellOpened(cells[i], numbers[i]);
+				}
+			}
+			solver.propagate(() -> false);
+		});
+	}
+
+	/**
+	 * Asks for a hint about the current position, cancelling the previous query
+	 *
+	 * @param callback Receives the hint on the FX thread, unless the query is cancelled first.
+	 */
+	public void requestHint(Consumer<BoardSolver.Hint> callback) {
+		cancel();
+		flush();
+		Query query = new Query();
+		current = query;
+		executor.execute(() -> {
+			BoardSolver.Hint hint = solver.solve(() -> query.cancelled);
+			if (hint != null) {
+				Platform.runLater(() -> {
+					if (!query.cancelled) {
+						current = null;
+						callback.accept(hint);
+					}
+				});
+			}
+		});
+	}
+
+	/**
+	 * Cancels the running query, if any; its hint is never delivered
+	 */
+	public void cancel() {
+		if (current != null) {
+			current.cancelled = true;
+			current = null;
+		}
+	}
+
+	/**
+	 * A hint request, cancelled from the FX thread and polled by the solver thread
+	 */
+	private static final class Query {
+		private volatile boolean cancelled;
+	}
+}
@@ -0,0 +1,179 @@
+import java.util.ArrayList;
+import java.util.List;
+
+import javafx.animation.FadeTransition;
+import javafx.animation.ParallelTransition;
+import javafx.animation.ScaleTransition;
+import javafx.animation.TranslateTransition;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.Pane;
+import javafx.util.Duration;
+
+/**
+ * EffectLayer Class
+ * Plays the short "fly to the top bar" animations of the game (gem pickup, potion and spell purchases)
+ * on a transparent layer stacked over the game screen.
+ *
+ * The layer sits outside the BorderPane of the game screen, so showing an effect never changes its
+ * layout, and it ignores the mouse so clicks go through to the board.
+ *
+ * Effect Pool
+ * Each effect sprite is an ImageView with its move, scale and fade transitions, created once and
+ * kept on the layer (hidden) between uses. Playing an effect takes an idle sprite, resets it and plays
+ * it again; when it finishes it is hidden, made idle and the listener is told. New sprites are only
+ * created when more effects overlap than ever before, so steady play allocates nothing.
+ */
+public final class EffectLayer {
+
+	/**
+	 * Effects that can be played, with their image, size, start position, end height and move time
+	 */
+	public enum Effect {
+		GEM("img/gem.png", 55, 275, 100, 10, 500),
+		POTION("img/potion.png", 70, 415, 100, 0, 700),
+		SPELL("img/spark.png", 100, 550, 100, 0, 700);
+
+		private final String path;
+		private final double size;
+		private final double x;
+		private final double fromY;
+		private final double toY;
+		private final double moveMillis;
+
+		Effect(String path, double size, double x, double fromY, double toY, double moveMillis) {
+			this.path = path;
+			this.size = size;
+			this.x = x;
+			this.fromY = fromY;
+			this.toY = toY;
+			this.moveMillis = moveMillis;
+		}
+	}
+
+	/**
+	 * Receives the end of each effect
+	 */
+	public interface Listener {
+		/**
+		 * @param effect The effect that finished.
+		 * @param row The row given to play(), e.g. of the collected gem.
+		 * @param col The column given to play().
+		 */
+		void effectFinished(Effect effect, int row, int col);
+	}
+
+	//Duration of the scale and fade of every effect
+	private static final Duration SHRINK_TIME = Duration.millis(500);
+	//Window width the effect positions are given for; in a wider window they move right with the centered bars
+	private static final double REFERENCE_WIDTH = 800;
+
+	private final Pane layer = new Pane();
+	private final Listener listener;
+	private final List<Sprite> idle = new ArrayList<>();
+	private final List<Sprite> playing = new ArrayList<>();
+
+	/**
+	 * @param listener Receives the end of each effect.
+	 */
+	public EffectLayer(Listener listener) {
+		this.listener = listener;
+		layer.setMouseTransparent(true);
+		layer.setPickOnBounds(false);
+	}
+
+	/**
+	 * @return The layer, to be stacked over the game screen.
+	 */
+	public Pane getNode() {
+		return layer;
+	}
+
+	/**
+	 * Plays an effect
+	 *
+	 * @param effect The effect to play.
+	 * @param row Passed back to the listener when the effect finishes, e.g. the row of a collected gem.
+	 * @param col Passed back to the listener when the effect finishes.
+	 */
+	public void play(Effect effect, int row, int col) {
+		Sprite sprite = idle.isEmpty() ? new Sprite() : idle.remove(idle.size() - 1);
+		playing.add(sprite);
+		sprite.play(effect, row, col);
+	}
+
+	/**
+	 * Stops every effect without calling the listener, e.g. when the game screen is left
+	 */
+	public void stopAll() {
+		while (!playing.isEmpty()) {
+			Sprite sprite = playing.remove(playing.size() - 1);
+			sprite.animation.stop();
+			sprite.view.setVisible(false);
+			idle.add(sprite);
+		}
+	}
+
+	/**
+	 * Makes a finished sprite idle and reports its effect
+	 */
+	private void finished(Sprite sprite) {
+		sprite.view.setVisible(false);
+		playing.remove(sprite);
+		idle.add(sprite);
+		listener.effectFinished(sprite.effect, sprite.row, sprite.col);
+	}
+
+	/**
+	 * An ImageView on the layer with the transitions that move, shrink and fade it
+	 */
+	private final class Sprite {
+		private final ImageView view = new ImageView();
+		private final TranslateTransition move = new TranslateTransition();
+		private final ScaleTransition scaleDown = new ScaleTransition(SHRINK_TIME);
+		private final FadeTransition fade = new FadeTransition(SHRINK_TIME);
+		private final ParallelTransition animation = new ParallelTransition(view, move, scaleDown, fade);
+		private Effect effect;
+		private int row;
+		private int col;
+
+		private Sprite() {
+			view.setVisible(false);
+			//Scale to half the original size and fade to fully transparent
+			scaleDown.setFromX(1.0);
+			scaleDown.setFromY(1.0);
+			scaleDown.setToX(0.5);
+			scaleDown.setToY(0.5);
+			fade.setFromValue(1.0);
+			fade.setToValue(0.0);
+			animation.setOnFinished(e -> finished(this));
+			layer.getChildren().add(view);
+		}
+
+		/**
+		 * Resets the sprite to the start of an effect and plays it
+		 */
+		private void play(Effect effect, int row, int col) {
+			this.effect = effect;
+			this.row = row;
+			this.col = col;
+
+			view.setImage(AssetCache.image(effect.path));
+			view.setFitWidth(effect.size);
+			view.setFitHeight(effect.size);
+			double x = effect.x + Math.max(0, layer.getWidth() - REFERENCE_WIDTH) / 2;
+			view.setTranslateX(x);
+			view.setTranslateY(effect.fromY);
+			view.setVisible(true);
+
+			//Keeps X constant and moves the sprite up to the top bar
+			if (move.getDuration().toMillis() != effect.moveMillis) {
+				move.setDuration(Duration.millis(effect.moveMillis));
+			}
+			move.setFromX(x);
+			move.setFromY(effect.fromY);
+			move.setToX(x);
+			move.setToY(effect.toY);
+			animation.playFromStart();
+		}
+	}
+}
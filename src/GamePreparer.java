@@ -0,0 +1,191 @@
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+
+import engine.RunesEngine;
+import javafx.application.Platform;
+
+/**
+ * GamePreparer Class
+ * Builds the next game in the background while the current one is played, so "Play Again" and "PLAY"
+ * only have to swap it in.
+ *
+ * Preparation Implementation
+ * 1) prepare() builds the engine (dealing the fires of a board that never needs a guess) and the board view
+ *    on a background thread. Nodes may be built off the FX thread as long as they are not in a shown scene
+ * 2) A game is prepared for the board settings it was asked with. take() only hands it over once it is built
+ *    and if the settings still match; a view built for another cell size or sprite atlas, e.g. after the
+ *    window was resized, is replaced by a new one, the engine (whose fires may take seconds to deal) is kept
+ * 3) take() never waits: while the game is still being built, whenReady() passes it to the FX thread once
+ *    it is, where RunesReaperUI starts it or attaches its view hidden next to the board, so its styles
+ *    and layout are done before it is shown
+ * 4) Preparing other settings or cancel() cancels the game being built, the builder polls the flag
+ *    so the background thread is free for the next game right away
+ * 5) A build that failed is reported to the caller: take() throws its failure and whenReady() passes it on
+ * Every method is called on the FX thread; only the builder runs on the background thread.
+ */
+public final class GamePreparer {
+
+	/**
+	 * Builds games and views of their boards
+	 */
+	public interface Builder {
+		/**
+		 * Builds a game, on any thread
+		 *
+		 * @param settings Shape, size and fires of the board.
+		 * @param cellSize Size of each cell in pixels.
+		 * @param atlas Icons pre-scaled to the cell size.
+		 * @param cancelled Polled while building, the build gives up as soon as it returns true.
+		 * @return The game, or null if the build was cancelled.
+		 */
+		Game build(BoardSettings settings, int cellSize, SpriteAtlas atlas, BooleanSupplier cancelled);
+
+		/**
+		 * Builds another view of the board of a game, on the FX thread
+		 *
+		 * @param engine The game.
+		 * @param settings Shape, size and fires of the board.
+		 * @param cellSize Size of each cell in pixels.
+		 * @param atlas Icons pre-scaled to the cell size.
+		 * @return The view, not in a scene yet.
+		 */
+		BoardView view(RunesEngine engine, BoardSettings settings, int cellSize, SpriteAtlas atlas);
+	}
+
+	/**
+	 * A game ready to be started: its engine, its board view and the cell to open for the player, if any
+	 */
+	public static final class Game {
+		private final RunesEngine engine;
+		private final BoardView view;
+		private final int startCell;
+
+		/**
+		 * @param engine The game.
+		 * @param view The view of its board, not in a scene yet.
+		 * @param startCell Compact index of the cell to open when the game starts, or -1.
+		 */
+		public Game(RunesEngine engine, BoardView view, int startCell) {
+			this.engine = engine;
+			this.view = view;
+			this.startCell = startCell;
+		}
+
+		public RunesEngine getEngine() {
+			return engine;
+		}
+
+		public BoardView getView() {
+			return view;
+		}
+
+		public int getStartCell() {
+			return startCell;
+		}
+	}
+
+	private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "next-game");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private final Builder builder;
+
+	//The game being prepared, what it is prepared for, when its build started (0 until then) and its cancellation
+	private CompletableFuture<Game> pending;
+	private BoardSettings settings;
+	private int cellSize;
+	private SpriteAtlas atlas;
+	private AtomicLong started;
+	private AtomicBoolean cancelled;
+
+	/**
+	 * @param builder Builds the games on the background thread, and their views again on the FX thread.
+	 */
+	public GamePreparer(Builder builder) {
+		this.builder = builder;
+	}
+
+	/**
+	 * Starts building a game in the background, unless one is already prepared for the same settings.
+	 * A game being built for other settings is cancelled.
+	 *
+	 * @param settings Shape, size and fires of the board.
+	 * @param cellSize Size of each cell in pixels.
+	 * @param atlas Icons pre-scaled to the cell size.
+	 */
+	public void prepare(BoardSettings settings, int cellSize, SpriteAtlas atlas) {
+		if (pending != null && settings.equals(this.settings)) return;
+		cancel();
+		this.settings = settings;
+		this.cellSize = cellSize;
+		this.atlas = atlas;
+		AtomicLong started = new AtomicLong();
+		AtomicBoolean cancelled = new AtomicBoolean();
+		this.started = started;
+		this.cancelled = cancelled;
+		pending = CompletableFuture.supplyAsync(() -> {
+			started.set(System.nanoTime());
+			return builder.build(settings, cellSize, atlas, cancelled::get);
+		}, executor);
+	}
+
+	/**
+	 * Hands over the prepared game if it is built, never waiting for it
+	 *
+	 * @param settings Shape, size and fires of the board.
+	 * @param cellSize Size of each cell in pixels.
+	 * @param atlas Icons pre-scaled to the cell size.
+	 * @return The game, or null if none was prepared for these settings or it is still being built (see whenReady()).
+	 * @throws CompletionException If building the game failed, with the failure as its cause.
+	 *         The game is dropped, so the next prepare() builds it again.
+	 */
+	public Game take(BoardSettings settings, int cellSize, SpriteAtlas atlas) {
+		CompletableFuture<Game> game = pending;
+		if (game == null || !settings.equals(this.settings) || !game.isDone()) return null;
+		pending = null;
+		Game ready = game.join();
+		if (ready == null || (cellSize == this.cellSize && atlas == this.atlas)) return ready;
+		//The fires are kept, only the view is built again for the new cell size
+		return new Game(ready.getEngine(), builder.view(ready.getEngine(), settings, cellSize, atlas), ready.getStartCell());
+	}
+
+	/**
+	 * Passes the prepared game to the FX thread once it is built, unless it was taken, replaced or cancelled by then
+	 *
+	 * @param consumer Receives the game on the FX thread, or null and the failure if building it failed.
+	 */
+	public void whenReady(BiConsumer<Game, Throwable> consumer) {
+		CompletableFuture<Game> game = pending;
+		if (game == null) return;
+		game.whenComplete((ready, error) -> Platform.runLater(() -> {
+			if (pending == game) {
+				//The failure of an async build comes wrapped in a CompletionException
+				consumer.accept(ready, error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+			}
+		}));
+	}
+
+	/**
+	 * @return The time the prepared game has been building for, 0 if its build has not started or there is none.
+	 */
+	public long getBuildingNanos() {
+		if (pending == null || pending.isDone() || started.get() == 0) return 0;
+		return System.nanoTime() - started.get();
+	}
+
+	/**
+	 * Cancels the game being prepared; nothing is prepared until the next prepare()
+	 */
+	public void cancel() {
+		if (pending == null) return;
+		cancelled.set(true);
+		pending = null;
+	}
+}
@@ -0,0 +1,130 @@
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Node;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.StackPane;
+import javafx.scene.layout.VBox;
+import javafx.scene.text.Text;
+
+/**
+ * NotificationLayer Class
+ * Shows the popups of the game (game over, shop, used potion, no hints) as panels drawn over the
+ * game screen, instead of opening a new window for each one.
+ *
+ * The layer covers the game screen with a dimmed backdrop that catches the mouse, so the board
+ * can't be clicked while a panel is open, like the modal windows before. Panels are built once by
+ * their owner and updated in place every time they are shown again, so showing a popup costs no
+ * new Stage, Scene, stylesheet or image.
+ */
+public final class NotificationLayer {
+
+	private final StackPane layer = new StackPane();
+	private final Region backdrop = new Region();
+	private Panel current;
+	private boolean closeOnBackdrop;
+
+	public NotificationLayer() {
+		backdrop.getStyleClass().add("popup-backdrop");
+		backdrop.setOnMouseClicked(e -> {
+			if (closeOnBackdrop) {
+				hide();
+			}
+		});
+		layer.getChildren().add(backdrop);
+		layer.setVisible(false);
+	}
+
+	/**
+	 * @return The layer, to be stacked over the game screen.
+	 */
+	public StackPane getNode() {
+		return layer;
+	}
+
+	/**
+	 * Shows a panel, replacing the panel currently shown
+	 *
+	 * @param panel The panel to show.
+	 * @param closeOnBackdrop true if a click outside the panel closes it.
+	 */
+	public void show(Panel panel, boolean closeOnBackdrop) {
+		this.closeOnBackdrop = closeOnBackdrop;
+		if (current != panel) {
+			if (current != null) {
+				layer.getChildren().remove(current);
+			}
+			layer.getChildren().add(panel);
+			current = panel;
+		}
+		layer.setVisible(true);
+	}
+
+	/**
+	 * Hides the panel currently shown
+	 */
+	public void hide() {
+		layer.setVisible(false);
+	}
+
+	/**
+	 * @return true if a panel is shown.
+	 */
+	public boolean isShowing() {
+		return layer.isVisible();
+	}
+
+	/**
+	 * A popup panel: an image, a title and a message, followed by the popup's own controls
+	 */
+	public static final class Panel extends VBox {
+		private final ImageView imageView = new ImageView();
+		private final Text title = new Text();
+		private final Text message = new Text();
+
+		/**
+		 * @param width Width of the panel.
+		 * @param height Height of the panel.
+		 * @param titleStyle Style class of the title, e.g. "title" or "title-light".
+		 */
+		public Panel(double width, double height, String titleStyle) {
+			super(15);
+			setAlignment(Pos.CENTER);
+			setPadding(new Insets(20));
+			//The panel keeps its size instead of filling the layer
+			setPrefSize(width, height);
+			setMaxSize(width, height);
+			getStyleClass().add("popup-panel");
+
+			imageView.setFitWidth(100);
+			imageView.setPreserveRatio(true);
+			title.getStyleClass().add(titleStyle);
+			message.getStyleClass().add("content");
+			getChildren().addAll(imageView, title, message);
+		}
+
+		public ImageView getImageView() {
+			return imageView;
+		}
+
+		public void setImage(Image image) {
+			imageView.setImage(image);
+		}
+
+		public void setTitle(String text) {
+			title.setText(text);
+		}
+
+		public void setMessage(String text) {
+			message.setText(text);
+		}
+
+		/**
+		 * Adds the popup's own controls below the message
+		 */
+		public void addControls(Node... controls) {
+			getChildren().addAll(controls);
+		}
+	}
+}
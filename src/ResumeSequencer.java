@@ -0,0 +1,114 @@
+import engine.BoardTopology;
+import engine.RunesEngine;
+import javafx.animation.AnimationTimer;
+
+/**
+ * ResumeSequencer Class
+ * Draws the board of a resumed game over the next frames, instead of stalling a frame on a big board.
+ *
+ * Sequencer Implementation
+ * 1) The gems lying on the board are shown right away, they are only a few
+ * 2) Each frame the sequencer walks on through the cells in compact index order and shows the opened
+ *    cells, frozen fires and flags, until the frame's time budget is used up
+ * 3) The numbers of the opened cells are passed to the ClairvoyanceService as if they had just been opened
+ * 4) RunesReaperUI opens no cells while the sequencer runs, which takes a few frames
+ *    even on a 1000x1000 board, and stops it when a new game starts
+ */
+public class ResumeSequencer {
+
+	//Time the sequencer may use in each frame
+	private static final long FRAME_BUDGET_NANOS = 4_000_000;
+	//How often the clock is checked, in cells
+	private static final int CLOCK_CHECK_INTERVAL = 256;
+
+	private final BoardView boardView;
+	private final ClairvoyanceService clairvoyance;
+	private final AnimationTimer timer;
+
+	private RunesEngine engine;
+	private Runnable onFinished;
+	private int next = 0;
+	private boolean running = false;
+
+	/**
+	 * @param boardView The board to draw the cells on.
+	 * @param clairvoyance Receives the opened cells and frozen fires.
+	 */
+	public ResumeSequencer(BoardView boardView, ClairvoyanceService clairvoyance) {
+		this.boardView = boardView;
+		this.clairvoyance = clairvoyance;
+		this.timer = new AnimationTimer() {
+			@Override
+			public void handle(long now) {
+				showFrame();
+			}
+		};
+	}
+
+	/**
+	 * Starts drawing a restored game
+	 *
+	 * @param engine The restored game.
+	 * @param onFinished Runs once every cell is drawn.
+	 */
+	public void start(RunesEngine engine, Runnable onFinished) {
+		stop();
+		this.engine = engine;
+		this.onFinished = onFinished;
+		for (int i = 0; i < engine.getLiveGemCount(); i++) {
+			boardView.showGem(engine.getLiveGemRow(i), engine.getLiveGemCol(i), true);
+		}
+		next = 0;
+		running = true;
+		timer.start();
+	}
+
+	/**
+	 * Stops drawing, leaving the cells not reached yet as they are
+	 */
+	public void stop() {
+		if (running) {
+			timer.stop();
+			running = false;
+		}
+	}
+
+	/**
+	 * @return true while cells are still being drawn.
+	 */
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * Draws the next cells, within the frame budget
+	 */
+	private void showFrame() {
+		long deadline = System.nanoTime() + FRAME_BUDGET_NANOS;
+		BoardTopology topology = engine.getTopology();
+		int cellCount = topology.getCellCount();
+		while (next < cellCount) {
+			int row = topology.row(next);
+			int col = topology.col(next);
+			if (engine.isRevealed(row, col)) {
+				if (engine.isFire(row, col)) {
+					boardView.showFrozenFire(row, col);
+					clairvoyance.fireRevealed(next);
+				} else {
+					boardView.showOpened(row, col);
+					clairvoyance.cellOpened(next, engine.countAdjacentFires(row, col));
+				}
+			} else if (engine.isFlagged(row, col)) {
+				boardView.showFlag(row, col, true);
+			}
+			next++;
+			if (next % CLOCK_CHECK_INTERVAL == 0 && System.nanoTime() >= deadline) break;
+		}
+		//Hands the cells of this frame to the solver
+		clairvoyance.flush();
+		if (next >= cellCount) {
+			stop();
+			onFinished.run();
+		}
+	}
+}
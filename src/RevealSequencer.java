@@ -0,0 +1,142 @@
+import engine.BoardTopology;
+import engine.RunesEngine;
+import javafx.animation.AnimationTimer;
+
+/**
+ * RevealSequencer Class
+ * Shows every fire at the end of a game as a ripple spreading out from the last clicked cell,
+ * instead of showing them all in a single frame.
+ *
+ * Sequencer Implementation
+ * 1) The fires are listed once from the engine and sorted by their distance (in rings of cells, as the
+ *    board's topology walks them: around a torus, in hexagons) to the clicked cell with a counting sort,
+ *    so preparing the reveal is linear in the fire count
+ * 2) Each frame shows the fires ring after ring, for as long as the frame's time budget lasts; rings without
+ *    fires take no frame, and a ring cut short by the budget is finished in the next frame
+ * 3) The sequencer runs alongside the game over popup and is stopped when a new game starts
+ */
+public class RevealSequencer {
+
+	//Time the reveal may use in each frame, leaving the rest of the frame for the popup and animations
+	private static final long FRAME_BUDGET_NANOS = 4_000_000;
+	//How often the clock is checked, in cells
+	private static final int CLOCK_CHECK_INTERVAL = 16;
+
+	private final BoardView boardView;
+	private final AnimationTimer timer;
+
+	//Fires to show, nearest to the clicked cell first, and the ring of each fire as listed by the engine
+	private int[] rows = new int[0];
+	private int[] cols = new int[0];
+	private int[] unsortedRings = new int[0];
+	private int[] ringStarts = new int[0];
+	private int originRow;
+	private int originCol;
+	private int count = 0;
+	private int next = 0;
+	private boolean running = false;
+
+	/**
+	 * @param boardView The board to show the fires on.
+	 */
+	public RevealSequencer(BoardView boardView) {
+		this.boardView = boardView;
+		this.timer = new AnimationTimer() {
+			@Override
+			public void handle(long now) {
+				revealFrame();
+			}
+		};
+	}
+
+	/**
+	 * Starts showing the fires of a finished game
+	 *
+	 * @param engine The finished game.
+	 * @param originRow Row of the last clicked cell, where the ripple starts.
+	 * @param originCol Column of the last clicked cell.
+	 */
+	public void start(RunesEngine engine, int originRow, int originCol) {
+		stop();
+		if (engine.isFiresPending()) return;
+
+		int numFires = engine.getNumFires();
+		BoardTopology topology = engine.getTopology();
+		//Hexagon rings can go past the longer side of the grid, never past both sides together
+		int maxRing = topology.getWidth() + topology.getHeight();
+		if (rows.length < numFires) {
+			rows = new int[numFires];
+			cols = new int[numFires];
+			unsortedRings = new int[numFires];
+		}
+		if (ringStarts.length < maxRing + 1) {
+			ringStarts = new int[maxRing + 1];
+		}
+
+		//Counting sort of the fires by ring (distance to the origin on the board)
+		java.util.Arrays.fill(ringStarts, 0, maxRing + 1, 0);
+		for (int i = 0; i < numFires; i++) {
+			int ring = topology.distance(originRow, originCol, engine.getFireRow(i), engine.getFireCol(i));
+			unsortedRings[i] = ring;
+			ringStarts[ring]++;
+		}
+		int position = 0;
+		for (int ring = 0; ring <= maxRing; ring++) {
+			int ringSize = ringStarts[ring];
+			ringStarts[ring] = position;
+			position += ringSize;
+		}
+		for (int i = 0; i < numFires; i++) {
+			int target = ringStarts[unsortedRings[i]]++;
+			rows[target] = engine.getFireRow(i);
+			cols[target] = engine.getFireCol(i);
+		}
+
+		this.originRow = originRow;
+		this.originCol = originCol;
+		count = numFires;
+		next = 0;
+		running = true;
+		timer.start();
+	}
+
+	/**
+	 * Stops the reveal, leaving the fires not shown yet hidden
+	 */
+	public void stop() {
+		if (running) {
+			timer.stop();
+			running = false;
+		}
+	}
+
+	/**
+	 * @return true while fires are still being revealed.
+	 */
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * Shows the next fires, nearest first, within the frame budget
+	 */
+	private void revealFrame() {
+		long deadline = System.nanoTime() + FRAME_BUDGET_NANOS;
+		int shown = 0;
+		//The fires are sorted by ring, so the rings are shown in order and empty rings are skipped
+		while (next < count) {
+			//The fire that ended the game is already burning
+			if (rows[next] != originRow || cols[next] != originCol) {
+				boardView.showFire(rows[next], cols[next]);
+			}
+			next++;
+			if (++shown % CLOCK_CHECK_INTERVAL == 0 && System.nanoTime() >= deadline) {
+				//Out of time, the rest is shown in the next frame
+				break;
+			}
+		}
+		if (next >= count) {
+			stop();
+		}
+	}
+}
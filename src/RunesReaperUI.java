@@ -1,26 +1,47 @@
 import javafx.application.Application;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.scene.Node;
+import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.control.Slider;
+import javafx.scene.control.Spinner;
 import javafx.scene.layout.*;
 import javafx.scene.text.Text;
-import javafx.stage.Modality;
+import javafx.stage.Screen;
 import javafx.stage.Stage;
-import java.util.Random;
+import javafx.geometry.Rectangle2D;
 import javafx.animation.Animation;
 import javafx.animation.FadeTransition;
 import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
 import javafx.util.Duration;
-import javafx.scene.ImageCursor;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
-import javafx.scene.input.MouseButton;
-import javafx.animation.ParallelTransition;
-import javafx.animation.ScaleTransition;
-import javafx.animation.TranslateTransition;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BooleanSupplier;
+import engine.BoardTopology;
+import engine.BoardSolver;
+import engine.GameSnapshot;
+import engine.MoveResult;
+import engine.NoGuessGenerator;
+import engine.ReplayLog;
+import engine.Replayer;
+import engine.RunesEngine;
 
 /**
  * RunesReaperUI Class
@@ -32,42 +53,96 @@ import javafx.animation.TranslateTransition;
  * 
  * Collected gems can be used to buy potions and spells which help the user throughout the game.
  * Life Potions save the user from dying when user clicks on a Fire cell (mine) 
- * Clairvoyance Spells (hints) can be used to reveal one mine adjacent to a cell, or in the cell itself if there is any.
+ * Clairvoyance Spells (hints) mark the cells that are provably safe or provably fire, worked out by a
+ * BoardSolver in the background. When no cell is certain the spell instead protects the next click:
+ * it reveals one mine adjacent to the cell, or in the cell itself if there is any.
+ *
+ * The game rules and state live in the headless {@link RunesEngine}; this class only draws
+ * the board and forwards the player's clicks to the engine.
+ * The next game is built by a {@link GamePreparer} while the current one is played, so starting it only swaps it in.
  */
 public class RunesReaperUI extends Application {
 	
 	//Game state and data
-	private int GRID_SIZE = 17;
-	private int CELL_SIZE = 40;
-	private int NUM_FIRE_RUNES = 30;
-	private boolean[][] fires;//Tracks whether cell at a position has fire
-	private boolean[][] revealed;//Tracks whether cell at a position is revealed
-	private int gemCount = 0;
-	private int hintsCount = 0;
-	private int potionCount = 0;
-	private boolean[][] flagged;//Tracks whether cell at a position is flagged
-	private int cellsOpened = 0;
-	private boolean isClairvoyant = false;
-	private Random random = new Random();
+	private BoardSettings boardSettings = BoardSettings.Preset.ADEPT.settings();//Shape, size and fires of the board, chosen on the start screen
+	private int CELL_SIZE = 40;//Fitted to the window when a game starts, between MIN_CELL_SIZE and MAX_CELL_SIZE
+	private int MIN_CELL_SIZE = 12;
+	private int BOARD_PADDING = 20;//Space around the board
+	private int MAX_CELL_SIZE = 40;
+	private boolean FIRST_CLICK_SAFE = true;//The first clicked cell and its neighbours never hold a fire
+	private Long SEED = Long.getLong("runesreaper.seed");//-Drunesreaper.seed=42 deals the same boards every game, e.g. for the UI harness
+	private String REPLAY_DIR = System.getProperty("runesreaper.replays");//-Drunesreaper.replays=dir saves a replay log of every finished game there
+	private ReplayLog replayLog;//Inputs of the current game, null if REPLAY_DIR is not set
+	private RunesEngine engine;//Rules and state of the current game
+	private ClairvoyanceService clairvoyance = new ClairvoyanceService();//Solves the board in the background for Clairvoyance hints
+	private int guessHintCell = -1;//Cell marked as the best guess by the last hint, -1 for none
+	//Builds the next game in the background
+	private GamePreparer preparer = new GamePreparer(new GamePreparer.Builder() {
+		@Override
+		public GamePreparer.Game build(BoardSettings settings, int cellSize, SpriteAtlas atlas, BooleanSupplier cancelled) {
+			return buildGame(settings, cellSize, atlas, cancelled);
+		}
+
+		@Override
+		public BoardView view(RunesEngine engine, BoardSettings settings, int cellSize, SpriteAtlas atlas) {
+			return createBoardView(engine, settings, cellSize, atlas);
+		}
+	});
+	private Timeline preparingTimeline;//Updates the preparing panel while a game is awaited, null when none is
 	private Timeline timeline;
 	private int secondsElapsed = 0;
+	//-Drunesreaper.save=file moves the saved game, which is kept in the user's home directory by default
+	private Path SAVE_FILE = Paths.get(System.getProperty("runesreaper.save",
+			Paths.get(System.getProperty("user.home"), ".runesreaper", "game.rrsv").toString()));
+	//The replay log of the saved game, so a resumed game goes on being recorded
+	private Path SAVE_REPLAY_FILE = SAVE_FILE.resolveSibling(SAVE_FILE.getFileName() + ".rrlog");
+	private int AUTOSAVE_SECONDS = 5;//The game in progress is saved this often
+	private boolean hasSave = Files.exists(SAVE_FILE);//A game is saved (or being saved) that RESUME can resume
+	//Writes the saved game in the background, in the order the saves were made
+	private ExecutorService saver = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "save-game");
+		thread.setDaemon(true);
+		return thread;
+	});
 
 	//UI components
 	private Stage primaryStage;
+	private ScreenManager screens;//Swaps the screens inside the single Scene of the main window
 	private BorderPane gameLayout;
+	private HBox topBar;
+	private HBox bottomBar;
+	private StackPane boardArea;//Holds the board, and the next board while it is made ready
+	private EffectLayer effects;//Gem pickup and purchase animations, drawn over the game screen
+	private NotificationLayer notifications;//Popups, drawn over the game screen
+	private NotificationLayer.Panel gameOverPanel;
+	private NotificationLayer.Panel shopPanel;
+	private NotificationLayer.Panel noHintsPanel;
+	private NotificationLayer.Panel guessPanel;
+	private NotificationLayer.Panel usedPotionPanel;
+	private NotificationLayer.Panel unfairBoardPanel;
+	private NotificationLayer.Panel buildFailedPanel;
+	private NotificationLayer.Panel preparingPanel;//Shown while the game PLAY or "Play Again!" starts is still being built
+	private ProgressBar preparingProgress;
 	private int WINDOW_WIDTH = 800;
 	private int WINDOW_HEIGHT = 900;
+	private int MIN_WINDOW_WIDTH = 600;
+	private int MIN_WINDOW_HEIGHT = 600;
+	private NotificationLayer settingsLayer;//Shows the board settings panel over the start screen
+	private NotificationLayer.Panel settingsPanel;
+	private Label boardLabel;//Describes the chosen board on the start screen
 	private Label timerLabel;
 	private Label cellsOpenedLabel;
-	private Button[][] cells;
+	private int CANVAS_GRID_SIZE = 40;//Boards larger than this are drawn on a canvas instead of with buttons
+	private BoardView boardView;//Draws the board and reports clicks on it
+	private RevealSequencer revealSequencer;//Shows the fires when the game ends
+	private ResumeSequencer resumeSequencer;//Draws the board of a resumed game
+	private Button resumeButton;//Resumes the saved game, only shown on the start screen if there is one
 	private String gemsLabelValue = "Gems: ";
-	private Label gemsLabel = new Label(gemsLabelValue + gemCount);
+	private Label gemsLabel = new Label(gemsLabelValue + 0);
 	private String hintsLabelValue = "Clairvoyance: ";
-	private Button hintsLabel = new Button(hintsLabelValue + hintsCount);
+	private Button hintsLabel = new Button(hintsLabelValue + 0);
 	private String potionLabelValue = "Life Potions: ";
-	private Label potionLabel = new Label(potionLabelValue + potionCount);
-	private Button[][] gemButtons = new Button[GRID_SIZE][GRID_SIZE];
-	private Image flagImage;	
+	private Label potionLabel = new Label(potionLabelValue + 0);
 
     /**
      * The main entry point.
@@ -78,9 +153,23 @@ public class RunesReaperUI extends Application {
     @Override
     public void start(Stage primaryStage) {
         this.primaryStage = primaryStage;
-        //Disabling window resizing so that animations look consistent
-        primaryStage.setResizable(false);
-        primaryStage.setMaximized(false);
+        //The window can be resized; it starts at 800x900, or smaller if the screen is smaller
+        Rectangle2D screenBounds = Screen.getPrimary().getVisualBounds();
+        primaryStage.setResizable(true);
+        primaryStage.setMinWidth(MIN_WINDOW_WIDTH);
+        primaryStage.setMinHeight(MIN_WINDOW_HEIGHT);
+        //Creates the one Scene used by every screen, with the stylesheet applied once
+        screens = new ScreenManager(primaryStage, Math.min(WINDOW_WIDTH, screenBounds.getWidth()),
+                Math.min(WINDOW_HEIGHT, screenBounds.getHeight()));
+        //Creates the layer playing the gem pickup and purchase animations, shared by every game
+        effects = new EffectLayer(this::effectFinished);
+        //Creates the layer showing the popups, also shared by every game
+        notifications = new NotificationLayer();
+        //Saves the game in progress and its replay when the window closes, it is resumed from the start screen
+        primaryStage.setOnCloseRequest(e -> {
+            saveGame(true);
+            saveReplay();
+        });
         //Calls the showStartScreen() function which is defined on line 79 to display the start screen
         showStartScreen(); 
     }
@@ -90,15 +179,42 @@ public class RunesReaperUI extends Application {
      * This method sets up the initial UI with the game logo, play button, and about button.
      */
     private void showStartScreen() {
+    	//Saves the game being left, if it is still in progress, and its replay so far
+    	saveGame(false);
+    	saveReplay();
     	//Calls reset function which is defined in Line 128
     	reset();
-            	
+    	if (resumeButton != null) {
+    		resumeButton.setVisible(hasSave);
+    		resumeButton.setManaged(hasSave);
+    	}
+
+        //Shows the start screen, which is only built the first time
+        screens.show("RunesReaper", screens.cached("start", this::createStartScreen));
+
+        //Setting up a custom cursor by calling this function define in Line TODO
+        setWandCursor();
+        
+        //Prepares the game PLAY starts
+        prepareNextGame();
+        
+        //Displays the window
+        primaryStage.show();
+    }
+
+    /**
+     * Builds the start screen with the game logo, play button, difficulty button and about button.
+     * The board settings panel is shown over it.
+     *
+     * @return The layout of the start screen.
+     */
+    private StackPane createStartScreen() {
     	//Creates a vertical box layout
         VBox startLayout = new VBox(20);
         startLayout.setAlignment(Pos.CENTER);
         
         //Creates an ImageView to display logo image
-        Image logo = new Image("img/logo.png"); 
+        Image logo = AssetCache.image("img/logo.png"); 
         ImageView logoView = new ImageView(logo);
         logoView.setFitWidth(500); 
         logoView.setPreserveRatio(true);
@@ -106,10 +222,17 @@ public class RunesReaperUI extends Application {
         //Creates "PLAY" button
         Button playButton = new Button("PLAY");
         //Sets action to show the Game screen on click (action)
-        playButton.setOnAction(e -> showGameScreen());
+        playButton.setOnAction(e -> showGameScreen(null, null));
         //Adds CSS class "button1" for styling
         playButton.getStyleClass().add("button1");
         
+        //Creates "RESUME" button that continues the saved game, hidden if there is none
+        resumeButton = new Button("RESUME");
+        resumeButton.setOnAction(e -> resumeGame());
+        resumeButton.getStyleClass().add("button1");
+        resumeButton.setVisible(hasSave);
+        resumeButton.setManaged(hasSave);
+        
         //Creates "ABOUT" button
         Button aboutButton = new Button("ABOUT");
         //Sets event listener to show the About screen on action (click)
@@ -117,24 +240,127 @@ public class RunesReaperUI extends Application {
         //Adds CSS class "button1" for styling
         aboutButton.getStyleClass().add("button1");
 
+        //Creates "DIFFICULTY" button that opens the board settings
+        Button difficultyButton = new Button("DIFFICULTY");
+        difficultyButton.setOnAction(e -> settingsLayer.show(createSettingsPanel(), false));
+        difficultyButton.getStyleClass().add("button1");
+        
+        //Shows the board that PLAY starts
+        boardLabel = new Label(boardSettings.describe());
+        boardLabel.getStyleClass().add("info1");
+
         //Adds the logo, play button, and about button to the layout
-        startLayout.getChildren().addAll(logoView,playButton, aboutButton);
+        startLayout.getChildren().addAll(logoView, playButton, resumeButton, boardLabel, difficultyButton, aboutButton);
         
-        //Creates a new Scene and adds startLayout and specified size
-        Scene startScene = new Scene(startLayout, WINDOW_WIDTH, WINDOW_HEIGHT);
-        //Adds external CSS file for styling
-        startScene.getStylesheets().add(getClass().getResource("style.css").toExternalForm());
-                
-        //Sets the created startScene as the current scene of the main window
-        primaryStage.setScene(startScene);
-        //Sets the title of window
-        primaryStage.setTitle("RunesReaper");
-
-        //Setting up a custom cursor by calling this function define in Line TODO
-        setWandCursor();
+        settingsLayer = new NotificationLayer();
+        return new StackPane(startLayout, settingsLayer.getNode());
+    }
+    
+    /**
+     * Builds the board settings panel: a difficulty preset, or a custom shape, size and fire density,
+     * and whether boards must be solvable without guessing.
+     * The chosen settings are used by every game started afterwards.
+     * The panel is built once and kept; Cancel puts its fields back to the current settings.
+     *
+     * @return The panel.
+     */
+    private NotificationLayer.Panel createSettingsPanel() {
+        if (settingsPanel != null) return settingsPanel;
+        NotificationLayer.Panel panel = new NotificationLayer.Panel(450, 600, "title");
+        panel.setImage(AssetCache.image("img/crystal.png"));
+        panel.setTitle("Choose your Board");
+        
+        ComboBox<BoardSettings.Preset> presetBox = new ComboBox<>();
+        presetBox.getItems().addAll(BoardSettings.Preset.values());
+        presetBox.setPromptText("Custom");
+        
+        ComboBox<BoardTopology.Shape> shapeBox = new ComboBox<>();
+        shapeBox.getItems().addAll(BoardTopology.Shape.values());
+        shapeBox.setValue(boardSettings.getShape());
+        
+        Spinner<Integer> sizeSpinner = new Spinner<>(BoardSettings.MIN_SIZE, BoardSettings.MAX_SIZE, boardSettings.getSize());
+        sizeSpinner.setEditable(true);
+        
+        Slider densitySlider = new Slider(BoardSettings.MIN_DENSITY * 100, BoardSettings.MAX_DENSITY * 100, boardSettings.getDensity() * 100);
+        
+        CheckBox noGuessBox = new CheckBox("Never needs a guess");
+        noGuessBox.setSelected(boardSettings.isNoGuess());
+        
+        //Describes the board the fields currently give; a board that no longer matches the preset is a custom board
+        Runnable describe = () -> {
+            BoardSettings settings = customSettings(shapeBox, sizeSpinner, densitySlider, noGuessBox);
+            panel.setMessage(settings.describe());
+            //Presets come with or without guessing
+            if (presetBox.getValue() != null && !presetBox.getValue().settings().equals(settings.withNoGuess(false))) {
+                presetBox.setValue(null);
+            }
+        };
+        describe.run();
+        
+        //A preset fills in the fields
+        presetBox.setOnAction(e -> {
+            BoardSettings.Preset preset = presetBox.getValue();
+            if (preset == null) return;
+            BoardSettings settings = preset.settings();
+            shapeBox.setValue(settings.getShape());
+            sizeSpinner.getValueFactory().setValue(settings.getSize());
+            densitySlider.setValue(settings.getDensity() * 100);
+            presetBox.setValue(preset);
+        });
+        shapeBox.setOnAction(e -> describe.run());
+        sizeSpinner.valueProperty().addListener((obs, oldValue, newValue) -> describe.run());
+        densitySlider.valueProperty().addListener((obs, oldValue, newValue) -> describe.run());
+        noGuessBox.setOnAction(e -> describe.run());
+        
+        GridPane form = new GridPane();
+        form.setHgap(10);
+        form.setVgap(10);
+        form.setAlignment(Pos.CENTER);
+        form.addRow(0, new Label("Difficulty"), presetBox);
+        form.addRow(1, new Label("Shape"), shapeBox);
+        form.addRow(2, new Label("Size"), sizeSpinner);
+        form.addRow(3, new Label("Fire density"), densitySlider);
+        form.addRow(4, new Label("Fair board"), noGuessBox);
         
-        //Displays the window
-        primaryStage.show();
+        HBox buttonBox = new HBox(10);
+        buttonBox.setAlignment(Pos.CENTER);
+        Button applyButton = new Button("Apply");
+        applyButton.getStyleClass().add("button1");
+        applyButton.setOnAction(e -> {
+            //Takes a size that is still being typed, falling back to the last valid one
+            try {
+                sizeSpinner.commitValue();
+            } catch (NumberFormatException ex) {
+                sizeSpinner.cancelEdit();
+            }
+            boardSettings = customSettings(shapeBox, sizeSpinner, densitySlider, noGuessBox);
+            boardLabel.setText(boardSettings.describe());
+            prepareNextGame();
+            settingsLayer.hide();
+        });
+        Button cancelButton = new Button("Cancel");
+        cancelButton.getStyleClass().add("button1");
+        cancelButton.setOnAction(e -> {
+            shapeBox.setValue(boardSettings.getShape());
+            sizeSpinner.getValueFactory().setValue(boardSettings.getSize());
+            densitySlider.setValue(boardSettings.getDensity() * 100);
+            noGuessBox.setSelected(boardSettings.isNoGuess());
+            settingsLayer.hide();
+        });
+        buttonBox.getChildren().addAll(applyButton, cancelButton);
+        
+        panel.addControls(form, buttonBox);
+        settingsPanel = panel;
+        return panel;
+    }
+    
+    /**
+     * @return The settings given by the fields of the board settings panel.
+     */
+    private BoardSettings customSettings(ComboBox<BoardTopology.Shape> shapeBox, Spinner<Integer> sizeSpinner, Slider densitySlider,
+            CheckBox noGuessBox) {
+        return BoardSettings.of(shapeBox.getValue(), sizeSpinner.getValue(), densitySlider.getValue() / 100)
+                .withNoGuess(noGuessBox.isSelected());
     }
     
     /**
@@ -142,29 +368,60 @@ public class RunesReaperUI extends Application {
      * This method is called when starting a new game or returning to the start screen.
      */
     private void reset() {
-    	cellsOpened = 0;
-    	gemCount = 0;
-    	gemsLabel.setText(gemsLabelValue + gemCount);
-    	hintsCount = 0;
-        hintsLabel.setText(hintsLabelValue + hintsCount);
-    	potionCount = 0;
-        potionLabel.setText(potionLabelValue + potionCount);
+    	gemsLabel.setText(gemsLabelValue + 0);
+        hintsLabel.setText(hintsLabelValue + 0);
+        hintsLabel.setDisable(false);
+        potionLabel.setText(potionLabelValue + 0);
         
         //Stops and refreshes the Timer
         stopTimer();
+        //Stops waiting for a game still being prepared
+        stopPreparing();
+        //Stops the end of game reveal of the previous board
+        if (revealSequencer != null) {
+        	revealSequencer.stop();
+        }
+        //Stops drawing a resumed board
+        if (resumeSequencer != null) {
+        	resumeSequencer.stop();
+        }
+        //Stops the effects still flying from the previous game and closes its popups
+        effects.stopAll();
+        notifications.hide();
 	}
 
+    /**
+     * Updates the gem, potion and clairvoyance labels from the engine's inventory
+     */
+    private void updateInventoryLabels() {
+    	gemsLabel.setText(gemsLabelValue + engine.getGemCount());
+    	potionLabel.setText(potionLabelValue + engine.getPotionCount());
+    	hintsLabel.setText(hintsLabelValue + engine.getHintsCount());
+    }
+
     /**
      * Displays the about dialog, which contains information about the game and how to play.
      */
     private void showAboutDialog() {
-    	
+        //Shows the about screen, which is only built the first time
+        screens.show("About RunesReaper", screens.cached("about", this::createAboutScreen));
+
+        //Sets the wand image as custom cursor
+        setWandCursor();
+    }
+
+    /**
+     * Builds the about screen
+     *
+     * @return The layout of the about screen.
+     */
+    private VBox createAboutScreen() {
     	//Creates a new vertical box layout with 20px spacing between elements which will be aligned in the center
     	VBox aboutLayout = new VBox(20);
     	aboutLayout.setAlignment(Pos.CENTER);
         
     	//Displays logo image
-        Image logo = new Image("img/logo.png"); 
+        Image logo = AssetCache.image("img/logo.png"); 
         ImageView logoView = new ImageView(logo);
         logoView.setFitWidth(500); 
         logoView.setPreserveRatio(true);
@@ -193,7 +450,7 @@ public class RunesReaperUI extends Application {
         howToPlayContent3.getStyleClass().add("content");
         
         //Displays text image
-        Image text = new Image("img/text.png"); 
+        Image text = AssetCache.image("img/text.png"); 
         ImageView textView = new ImageView(text);
         textView.setFitWidth(527); 
         textView.setPreserveRatio(true);
@@ -205,67 +462,387 @@ public class RunesReaperUI extends Application {
         homeButton.getStyleClass().add("button1");
 
         aboutLayout.getChildren().addAll(logoView,HowToPlayText,howToPlayContent1,howToPlayContent2,howToPlayContent3,textView,homeButton);
-
-        //Creates a new Scene with the aboutLayout of the same specified size and adds external CSS for styling
-        Scene aboutScene = new Scene(aboutLayout, WINDOW_WIDTH, WINDOW_HEIGHT);
-        aboutScene.getStylesheets().add(getClass().getResource("style.css").toExternalForm());
-        
-        //Sets the current scene of the primary stage to about scene
-        primaryStage.setScene(aboutScene);
-        primaryStage.setTitle("About RunesReaper");
-
-        //Sets the wand image as custom cursor
-        setWandCursor();
+        return aboutLayout;
     }
 
     /**
      * Initializes and displays the main game screen.
-     * This method sets up the game grid, initializes game state, and starts the timer.
+     * This method sets up the bars around the board, then starts a game in it.
+     *
+     * @param snapshot The saved game to resume, or null for a new game.
+     * @param restored The game restored from the snapshot, or null.
      */
-    private void showGameScreen() {
-    	cells = new Button[GRID_SIZE][GRID_SIZE];
-    	fires = new boolean[GRID_SIZE][GRID_SIZE];
-        revealed = new boolean[GRID_SIZE][GRID_SIZE];
-        flagged = new boolean[GRID_SIZE][GRID_SIZE];
-
-        reset();
-        
+    private void showGameScreen(GameSnapshot snapshot, RunesEngine restored) {
     	//Creates a BorderPane called "gameLayout"
         gameLayout = new BorderPane();
 
-        //Adds gameLayout BorderPane to the scene
-        Scene gameScene = new Scene(gameLayout, WINDOW_WIDTH, WINDOW_HEIGHT);        
-        gameScene.getStylesheets().add(getClass().getResource("style.css").toExternalForm());
-
         //Creates the top bar of the game screen by calling createTopBar() function defined in Line 202
-        HBox topBar = createTopBar();
+        topBar = createTopBar();
         //Sets the top bar at the top of the BorderPane
         gameLayout.setTop(topBar);
         //--
-                
-        //Creates new GridPane layout to organize the tiles in a grid created by calling createGameGrid() function which is defined in Line TODO
-        GridPane gameGrid = createGameGrid();
-        gameGrid.setPadding(new Insets(20));
-        //Centers the tiles to the scene
-        gameLayout.setCenter(gameGrid);
-        //--
 
         //Creates the top bar of the game screen by calling createBottomBar() function defined in Line TODO
-        HBox bottomBar = createBottomBar();
+        bottomBar = createBottomBar();
         //Sets the bottom bar to the bottom of the gameLayout BorderPane
         gameLayout.setBottom(bottomBar);
         //--        
 
-        //Sets the game scene as the current scene on the primary stage
-        primaryStage.setScene(gameScene);
-    	
-    	initializeGame();
+        //Holds the board in the centre, and the next board while it is made ready
+        boardArea = new StackPane();
+        gameLayout.setCenter(boardArea);
+
+        //Shows the game screen in the main window
+        //Stacks the popups and the effect layer over the game screen, outside the BorderPane layout
+        screens.show("RunesReaper", new StackPane(gameLayout, notifications.getNode(), effects.getNode()));
+
+        //Sizes the cells to fit the space left between the bars
+        CELL_SIZE = fitCellSize(topBar, bottomBar);
+        startGame(snapshot, restored);
+    }
+
+    /**
+     * Starts the next game on the game screen that is already shown, e.g. from "Play Again!"
+     */
+    private void playAgain() {
+        notifications.hide();
+        //The window may have been resized during the game
+        CELL_SIZE = fitCellSize(topBar, bottomBar);
+        startGame(null, null);
+    }
+
+    /**
+     * Starts a game on the game screen.
+     * The game prepared in the background is used if it was made for the current settings, otherwise
+     * one starts being prepared; the FX thread never waits for it, the game starts once it is built.
+     *
+     * @param snapshot The saved game to resume instead, or null.
+     * @param restored The game restored from the snapshot, or null.
+     */
+    private void startGame(GameSnapshot snapshot, RunesEngine restored) {
+        if (restored != null) {
+            BoardView view = createBoardView(restored, boardSettings, CELL_SIZE, spriteAtlas());
+            startBuiltGame(new GamePreparer.Game(restored, view, -1), snapshot);
+            return;
+        }
+        prepareNextGame();
+        GamePreparer.Game game;
+        try {
+            game = preparer.take(boardSettings, CELL_SIZE, spriteAtlas());
+        } catch (CompletionException e) {
+            //Building it failed, it is built once more below and a second failure is shown to the player
+            game = null;
+        }
+        if (game != null) {
+            startBuiltGame(game, null);
+        } else {
+            //Builds it again if building it failed, otherwise it is still being built
+            prepareNextGame();
+            waitForGame();
+        }
+    }
+
+    /**
+     * Waits for the game being prepared, then starts it.
+     * A panel shows how much of the time budget of a no guessing board is used, with a button to give up
+     * and go back to the start screen. It only appears after a moment, so quick builds don't flash it.
+     */
+    private void waitForGame() {
+        if (preparingPanel == null) {
+            preparingPanel = new NotificationLayer.Panel(400, 300, "title");
+            preparingPanel.setTitle("Preparing the Runes...");
+            preparingPanel.setImage(AssetCache.image("img/crystal.png"));
+            preparingProgress = new ProgressBar();
+            preparingProgress.setPrefWidth(250);
+            Button cancelButton = new Button("Cancel");
+            cancelButton.getStyleClass().add("button1");
+            cancelButton.setOnAction(e -> {
+                preparer.cancel();
+                showStartScreen();
+            });
+            preparingPanel.addControls(preparingProgress, cancelButton);
+        }
+        boolean noGuess = boardSettings.isNoGuess();
+        preparingPanel.setMessage(noGuess ? "Looking for a board that never needs a guess" : "Placing the fires");
+
+        stopPreparing();
+        preparingTimeline = new Timeline(new KeyFrame(Duration.millis(150), e -> {
+            double budgetUsed = (double) preparer.getBuildingNanos() / NoGuessGenerator.SEARCH_BUDGET_NANOS;
+            preparingProgress.setProgress(noGuess ? Math.min(1, budgetUsed) : ProgressBar.INDETERMINATE_PROGRESS);
+            notifications.show(preparingPanel, false);
+        }));
+        preparingTimeline.setCycleCount(Animation.INDEFINITE);
+        preparingTimeline.play();
+
+        Timeline waiting = preparingTimeline;
+        preparer.whenReady((ready, error) -> {
+            //The player left the game screen in the meantime, or is waiting for another game
+            if (preparingTimeline != waiting) return;
+            stopPreparing();
+            notifications.hide();
+            if (error != null) {
+                //Drops the failed game, so the next one is built again
+                preparer.cancel();
+                showBuildFailedPopup(error);
+                return;
+            }
+            GamePreparer.Game game = preparer.take(boardSettings, CELL_SIZE, spriteAtlas());
+            if (game != null) {
+                startBuiltGame(game, null);
+            } else {
+                showStartScreen();
+            }
+        });
+    }
 
-        //Starts the timer
-        startTimer();
+    /**
+     * Stops waiting for the game being prepared, it keeps being built
+     */
+    private void stopPreparing() {
+        if (preparingTimeline != null) {
+            preparingTimeline.stop();
+            preparingTimeline = null;
+        }
+    }
+
+    /**
+     * Starts a game that is built, on the game screen.
+     * Then the game after it starts being prepared.
+     *
+     * @param game The game, prepared or resumed.
+     * @param snapshot The saved game it was resumed from, or null.
+     */
+    private void startBuiltGame(GamePreparer.Game game, GameSnapshot snapshot) {
+        engine = game.getEngine();
+        boardView = game.getView();
+    	clairvoyance.newGame(engine.getTopology(), engine.getNumFires());
+    	guessHintCell = -1;
+    	//Records the game from its first input, including the opening click of a no guessing board;
+    	//a resumed game goes on with the log resumeGame() replayed it from, if any
+    	if (snapshot == null) {
+    		replayLog = null;
+    		if (REPLAY_DIR != null && engine.isSeeded()) {
+    			replayLog = new ReplayLog();
+    			engine.record(replayLog);
+    		}
+    	}
+
+        reset();
+
+        //Shows the new board in place of the previous one; a board made ready during the last game
+        //is already in the board area, hidden
+        revealSequencer = new RevealSequencer(boardView);
+        resumeSequencer = new ResumeSequencer(boardView, clairvoyance);
+        Node board = boardView.getNode();
+        boardArea.getChildren().removeIf(node -> node != board);
+        if (board.getParent() != boardArea) {
+            boardArea.getChildren().add(board);
+        }
+        board.setManaged(true);
+        board.setVisible(true);
+        updateCellsOpenedLabel();
+
+        //Starts the timer, from the time already played in a resumed game
+        startTimer(snapshot != null ? snapshot.getSecondsElapsed() : 0);
         
         //Sets up the wand image as custom cursor
         setWandCursor();
+        
+        //Draws the cells of a resumed game over the next frames, then brings back its active Clairvoyance;
+        //the hints button waits for it, as Clairvoyance reads the cells the sequencer feeds
+        if (snapshot != null) {
+            updateInventoryLabels();
+            hintsLabel.setDisable(true);
+            resumeSequencer.start(engine, () -> {
+                hintsLabel.setDisable(false);
+                if (engine.isClairvoyant()) {
+                    enableClairvoyance();
+                }
+            });
+        }
+        
+        //Opens the cell the no guessing board was dealt around
+        if (game.getStartCell() >= 0) {
+            cellClick(engine.getTopology().row(game.getStartCell()), engine.getTopology().col(game.getStartCell()));
+        } else if (snapshot == null && boardSettings.isNoGuess()) {
+            //No board without guessing was found in time, the player is told this one is an ordinary board
+            showUnfairBoardPopup();
+        }
+        
+        prepareNextGame();
+    }
+
+    /**
+     * Rebuilds a saved game.
+     * The topology of the current game is reused if it has the same board, building it is the slow part
+     * of restoring a big board.
+     *
+     * @param snapshot The saved game.
+     * @return The game.
+     * @throws IllegalArgumentException if the snapshot does not describe a valid game.
+     */
+    private RunesEngine restore(GameSnapshot snapshot) {
+        if (engine != null && engine.getTopology().getShape() == snapshot.getShape()
+                && engine.getTopology().getWidth() == snapshot.getSize()) {
+            return snapshot.restore(engine.getTopology());
+        }
+        return snapshot.restore();
+    }
+
+    /**
+     * Resumes the saved game from the start screen.
+     * The games after it are played on the same board.
+     * A save that can't be read or restored is deleted, and the player stays on the start screen.
+     */
+    private void resumeGame() {
+        GameSnapshot snapshot;
+        RunesEngine restored;
+        try {
+            snapshot = GameSnapshot.load(SAVE_FILE);
+            restored = restore(snapshot);
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Could not resume the saved game: " + e);
+            deleteSave();
+            resumeButton.setVisible(false);
+            resumeButton.setManaged(false);
+            return;
+        }
+        //Replays the log saved with the game, so the game goes on from its own seed and keeps being recorded
+        replayLog = null;
+        if (REPLAY_DIR != null && Files.exists(SAVE_REPLAY_FILE)) {
+            try {
+                ReplayLog log = ReplayLog.load(SAVE_REPLAY_FILE);
+                RunesEngine replayed = Replayer.resume(log);
+                //A log left over from another game, or behind the save, is not used
+                if (snapshot.matches(replayed)) {
+                    restored = replayed;
+                    replayLog = log;
+                }
+            } catch (IOException | RuntimeException e) {
+                System.out.println("Could not resume the replay of the saved game: " + e);
+            }
+        }
+        int cellCount = BoardTopology.countCells(snapshot.getShape(), snapshot.getSize());
+        boardSettings = BoardSettings.of(snapshot.getShape(), snapshot.getSize(), (double) snapshot.getNumFires() / cellCount)
+                .withNoGuess(boardSettings.isNoGuess());
+        boardLabel.setText(boardSettings.describe());
+        showGameScreen(snapshot, restored);
+    }
+
+    /**
+     * Saves the game in progress to SAVE_FILE, and its replay log so far to SAVE_REPLAY_FILE.
+     * The state is copied right away and written by the saver thread, so saving never holds up the game.
+     * Games without a click yet and finished games are not saved.
+     *
+     * @param wait true to wait until the game is written, e.g. when the window closes.
+     */
+    private void saveGame(boolean wait) {
+        if (engine == null || engine.isGameOver() || engine.isFiresPending()) return;
+        GameSnapshot snapshot = GameSnapshot.capture(engine, secondsElapsed);
+        byte[] replay = replayLog != null ? replayLog.toByteArray() : null;
+        hasSave = true;
+        Future<?> written = saver.submit(() -> {
+            try {
+                snapshot.save(SAVE_FILE);
+                if (replay != null) {
+                    Files.write(SAVE_REPLAY_FILE, replay);
+                } else {
+                    Files.deleteIfExists(SAVE_REPLAY_FILE);
+                }
+            } catch (IOException e) {
+                System.out.println("Could not save the game: " + e);
+            }
+        });
+        if (wait) {
+            try {
+                written.get();
+            } catch (InterruptedException | ExecutionException e) {
+                System.out.println("Could not save the game: " + e);
+            }
+        }
+    }
+
+    /**
+     * Deletes the saved game, after the saves still being written
+     */
+    private void deleteSave() {
+        hasSave = false;
+        saver.execute(() -> {
+            try {
+                Files.deleteIfExists(SAVE_FILE);
+                Files.deleteIfExists(SAVE_REPLAY_FILE);
+            } catch (IOException e) {
+                System.out.println("Could not delete the saved game: " + e);
+            }
+        });
+    }
+
+    /**
+     * Builds a game: the engine, which places the fires (on the first click if FIRST_CLICK_SAFE),
+     * and the view of its board. Runs on the GamePreparer's thread.
+     *
+     * @param settings Shape, size and fires of the board.
+     * @param cellSize Size of each cell in pixels.
+     * @param atlas Icons pre-scaled to the cell size.
+     * @param cancelled Polled while a no guessing board is searched for.
+     * @return The game, or null if it was cancelled.
+     */
+    private GamePreparer.Game buildGame(BoardSettings settings, int cellSize, SpriteAtlas atlas, BooleanSupplier cancelled) {
+    	//Every game has a seed of its own, so it can be recorded and replayed
+    	long seed = SEED != null ? SEED : ThreadLocalRandom.current().nextLong();
+    	RunesEngine engine = new RunesEngine(settings.createTopology(), settings.getNumFires(), seed, FIRST_CLICK_SAFE);
+    	//A board that never needs a guess is dealt around the middle cell, which is opened for the player;
+    	//if none is found within the search budget, an ordinary board is dealt on the first click and startGame() says so
+    	int startCell = settings.isNoGuess() ? noGuessStart(engine.getTopology()) : -1;
+    	if (startCell >= 0) {
+    		NoGuessGenerator.Board board = new NoGuessGenerator(engine.getTopology(), engine.getNumFires())
+    				.generate(startCell, seed, NoGuessGenerator.SEARCH_BUDGET_NANOS, cancelled);
+    		if (cancelled.getAsBoolean()) return null;
+    		if (board != null) {
+    			engine.newGame(board.getFireCells(), seed);
+    		} else {
+    			startCell = -1;
+    		}
+    	}
+    	return new GamePreparer.Game(engine, createBoardView(engine, settings, cellSize, atlas), startCell);
+    }
+
+    /**
+     * Starts preparing the game that PLAY or "Play Again!" starts next, also from the start screen.
+     * The cell size is measured with the bars of the game screen; before it was first shown the default
+     * cell size is used, and the view is built again if the game starts with another one.
+     */
+    private void prepareNextGame() {
+        int cellSize = topBar != null ? fitCellSize(topBar, bottomBar) : CELL_SIZE;
+        preparer.prepare(boardSettings, cellSize, SpriteAtlas.forCellSize(cellSize, primaryStage.getOutputScaleX()));
+    }
+
+    /**
+     * Attaches the view of the prepared game to the board area, hidden, so its styles and layout are done
+     * before "Play Again!" shows it
+     *
+     * @param game The prepared game, or null if building it failed.
+     */
+    private void makeReady(GamePreparer.Game game) {
+        if (game == null || engine == null || !engine.isGameOver()) return;
+        Node board = game.getView().getNode();
+        if (board.getParent() != null) return;
+        board.setVisible(false);
+        board.setManaged(false);
+        boardArea.getChildren().add(board);
+        board.applyCss();
+        board.autosize();
+        if (board instanceof Parent) {
+            ((Parent) board).layout();
+        }
+    }
+    
+    /**
+     * @return The compact index of the middle cell of the board, where no guessing boards start,
+     * or -1 if it is not playable.
+     */
+    private int noGuessStart(BoardTopology topology) {
+        return topology.cellAt(topology.getHeight() / 2, topology.getWidth() / 2);
     }
     
     /**
@@ -281,30 +858,29 @@ public class RunesReaperUI extends Application {
         //Adds padding of 20 pixels on all sides of the HBox
         topBar.setPadding(new Insets(20));
 
-        //Creates a Label to display the number of gems, initially set to ZERO
-        gemsLabel.getStyleClass().add("info1");
-        
-        //Creates a Label to display the number of potions
-        potionLabel.getStyleClass().add("info1");
-        
-        //Creates a Button to display the number of clairvoyance (hints)
-        hintsLabel.getStyleClass().add("button1");
+        //The gem, potion and clairvoyance labels are kept across games, so their style classes are only added once
+        if (!gemsLabel.getStyleClass().contains("info1")) {
+            //Styles the Label displaying the number of gems, initially set to ZERO
+            gemsLabel.getStyleClass().add("info1");
+            //Styles the Label displaying the number of potions
+            potionLabel.getStyleClass().add("info1");
+            //Styles the Button displaying the number of clairvoyance (hints)
+            hintsLabel.getStyleClass().add("button1");
+        }
         hintsLabel.setOnAction(e -> {
-        	if (this.isClairvoyant) {
-                this.disableClairvoyance();
-                hintsCount++;
-                this.hintsLabel.setText(hintsLabelValue + this.hintsCount);
-                return;
-            }
-        	if(hintsCount <= 0) {
+        	//Clairvoyance can't change once the game is over, nor while a resumed board is still being drawn
+        	if (engine.isGameOver() || resumeSequencer.isRunning()) return;
+        	//The toggle can now only fail for want of a spell
+        	if (!engine.toggleClairvoyance()) {
                 showNoHintsPopup();
                 return;
             }
-            if (!this.isClairvoyant) {
+        	if (engine.isClairvoyant()) {
                 this.enableClairvoyance();
-                this.hintsCount--;
-                this.hintsLabel.setText(hintsLabelValue + this.hintsCount);
+            } else {
+                this.disableClairvoyance();
             }
+            this.hintsLabel.setText(hintsLabelValue + engine.getHintsCount());
         });
         
         //Creates a Label to display the elapsed time, starting from 0 seconds
@@ -328,8 +904,8 @@ public class RunesReaperUI extends Application {
         bottomBar.setAlignment(Pos.CENTER);
         bottomBar.setPadding(new Insets(20));
 
-        //Creates label to show the number of opened cells
-        cellsOpenedLabel = new Label("Cells Opened: 0");
+        //Creates label to show the number of opened cells, filled in when the game starts
+        cellsOpenedLabel = new Label();
         cellsOpenedLabel.getStyleClass().add("info1");
         
         //Creates "HOME" button that goes back to the Start/Home screen
@@ -350,95 +926,61 @@ public class RunesReaperUI extends Application {
     }
     
     /**
-     * Creates the main game grid.
-     * This method sets up the circular grid of cells for the game.
+     * Picks the largest cell size (up to MAX_CELL_SIZE) at which the whole board fits in the window
+     * between the top and bottom bars. Boards that don't fit even at MIN_CELL_SIZE are scrolled.
      *
-     * @return A GridPane containing the game cells.
+     * @param topBar The top bar, already in the scene.
+     * @param bottomBar The bottom bar, already in the scene.
+     * @return The cell size in pixels.
      */
-    private GridPane createGameGrid() {
-        GridPane gameGrid = new GridPane();
-        gameGrid.setAlignment(Pos.CENTER);
-        //Sets 3px width gap between columns
-        gameGrid.setHgap(3);
-        //Sets 3px width gap between rows
-        gameGrid.setVgap(3);
-        
-		
-        /* Circular Grid Implementation 
-		 * 1) A SQUARE grid is assumed with each side being of specified length GRID_SIZE 
-		 * 2) Therefore a circle fitting inside this square will have a diameter of GRID_SIZE 
-		 * 3) The radius of this circle = GRID_SIZE/2
-		 * 4) For the grid to be in circular shape, all grid cells must lie within the circle 
-		 * 5) Therefore distance of each cell from the center of the circle must be less than the radius 
-		 * 6) For each cell postion (x,y) its distance from the center of circle is calculated using Pythagoras Theorem 
-		 * 	  a) The length of sides of the triangle to calculate this distance are calculated by subtracting radius from x and y values  
-		 * 	  b) A Cell is added only if distance is less than the radius
-		 */
-        
-        //Calculates radius of circular grid
-        int radius = GRID_SIZE / 2;
-              
-        //Nested loop for populating the grid, from 0 it counts up to GRID_SIZE (size of the grid)
-     	//col: represents the number of columns
-     	//row: represents the number of rows
-        for (int row = 0; row < GRID_SIZE; row++) {
-            for (int col = 0; col < GRID_SIZE; col++) {
-                //Calculates distance from center using Pythagoras Theorem 
-                double distance = Math.sqrt(Math.pow(row - radius, 2) + Math.pow(col - radius, 2));
-                //Checks if cell lies within the radius of circle, only then the cell is added
-                if (distance < radius) {
-                	//Creates a new Button object by calling createCell() function defined in LINE 283
-                	Button cell = createCell(row, col);
-                    cells[row][col] = cell;
-                    
-                    //Creates gem button
-                    Button gemButton = createGemButton(row, col);
-                    gemButtons[row][col] = gemButton;
-                    
-                    //Creates StackPane to hold both buttons
-                    StackPane cellStack = new StackPane();
-                    cellStack.getChildren().addAll(cell, gemButton);
-                    
-                    //Adds the created stack of cells to position
-                    gameGrid.add(cellStack, col, row);
-                }
-            }
-        }
-
-        //Returns completed grid
-        return gameGrid;
+    private int fitCellSize(HBox topBar, HBox bottomBar) {
+        //Measures the bars with their styles applied
+        topBar.applyCss();
+        bottomBar.applyCss();
+        double width = screens.getScene().getWidth() - 2 * BOARD_PADDING;
+        double height = screens.getScene().getHeight() - topBar.prefHeight(-1) - bottomBar.prefHeight(-1) - 2 * BOARD_PADDING;
+        
+        //Each cell takes its size plus the 3px gap; hexagon boards are half a cell wider
+        int size = boardSettings.getSize();
+        double columns = boardSettings.getShape() == BoardTopology.Shape.HEX ? size + 0.5 : size;
+        int fit = (int) Math.floor(Math.min(width / columns, height / size)) - 3;
+        return Math.max(MIN_CELL_SIZE, Math.min(MAX_CELL_SIZE, fit));
     }
 
     /**
-     * Creates an individual cell button for the game grid.
+     * Creates the view that draws the board.
+     * Boards up to CANVAS_GRID_SIZE are made of buttons; larger ones are drawn on a single canvas,
+     * since a control per cell makes the scene graph too slow to lay out and render.
      *
-     * @param row The row of the cell.
-     * @param col The column of the cell.
-     * @return A Button representing the cell.
+     * @param engine The game to show.
+     * @param settings Shape, size and fires of the board.
+     * @param cellSize Size of each cell in pixels.
+     * @param atlas Icons pre-scaled to the cell size.
+     * @return The board view for the engine.
      */
-    private Button createCell(int row, int col) {
-        Button cell = new Button();
-        //Sets the size of the cell
-        cell.setPrefSize(CELL_SIZE, CELL_SIZE);
+    private BoardView createBoardView(RunesEngine engine, BoardSettings settings, int cellSize, SpriteAtlas atlas) {
+        BoardView.Listener listener = new BoardView.Listener() {
+            @Override
+            public void cellClicked(int row, int col) {
+                cellClick(row, col);
+            }
 
-        cell.setMinSize(CELL_SIZE, CELL_SIZE);
-        cell.setMaxSize(CELL_SIZE, CELL_SIZE);
-        
-        //Sets event listener to call cellClick() function with the clicked button (cell) as an argument defined on Line TODO
-        cell.setOnAction(e -> cellClick(row, col));
-        
-        cell.setOnMouseClicked(e -> {
-            if (e.getButton() == MouseButton.SECONDARY) {
+            @Override
+            public void cellFlagged(int row, int col) {
                 toggleFlag(row, col);
             }
-        });
-        
-        //Adds CSS class "game-cell" for styling
-        cell.getStyleClass().add("game-cell");
-        //Returns created cell
-        return cell;
+
+            @Override
+            public void gemClicked(int row, int col) {
+                collectGem(row, col);
+            }
+        };
+        if (settings.getSize() > CANVAS_GRID_SIZE) {
+            return new CanvasBoardView(engine, cellSize, atlas, listener);
+        }
+        return new ButtonBoardView(engine, cellSize, atlas, listener);
     }
-    
+
     /**
      * Toggles the flag on a cell.
      * This method is called when a cell is right-clicked.
@@ -447,159 +989,78 @@ public class RunesReaperUI extends Application {
      * @param col The column of the cell.
      */
     private void toggleFlag(int row, int col) {
-        if (revealed[row][col]) return; // Don't allow flagging of revealed cells
-
-        flagged[row][col] = !flagged[row][col];
-        
-        if (flagged[row][col]) {
-        	flagImage = new Image("img/flag.png");
-            ImageView flagView = new ImageView(flagImage);
-            flagView.setFitWidth(CELL_SIZE - 10);
-            flagView.setFitHeight(CELL_SIZE - 10);
-            cells[row][col].setGraphic(flagView);
-        } else {
-            cells[row][col].setGraphic(null);
-        }
-    }
-    
-    /**
-     * Initializes the game state.
-     * This method sets up and places the fire runes on the game grid.
-     */
-    private void initializeGame() {
-        Random random = new Random();
-        int firesPlaced;
-
-        for (firesPlaced = 0; firesPlaced < NUM_FIRE_RUNES;) {
-            int row = random.nextInt(GRID_SIZE);
-            int col = random.nextInt(GRID_SIZE);
-            
-            if (!fires[row][col] && cells[row][col] != null) {
-            	fires[row][col] = true;
-            	firesPlaced++;
-            }
-        }
+        if (!engine.toggleFlag(row, col)) return; // Don't allow flagging of revealed cells
         
-        // Reset flagged array
-        for (int row = 0; row < GRID_SIZE; row++) {
-            for (int col = 0; col < GRID_SIZE; col++) {
-                flagged[row][col] = false;
-            }
-        }        
-        System.out.println("Fires placed: " + firesPlaced);
-    }
-   
-    /**
-     * Creates Gem buttons on a cell
-     * 
-     * @param row The row of the cell.
-     * @param col The column of the cell.
-     * @return A Button representing the gem.
-     */
-    private Button createGemButton(int row, int col) {
-    	Button gemButton = new Button();
-        gemButton.setPrefSize(CELL_SIZE, CELL_SIZE);
-        gemButton.setMinSize(CELL_SIZE, CELL_SIZE);
-        gemButton.setMaxSize(CELL_SIZE, CELL_SIZE);
-        gemButton.setVisible(false);
-        gemButton.setStyle("-fx-background-color: transparent;");
-        
-        ImageView gemView = new ImageView(new Image("img/gem.png"));
-        gemView.setFitWidth(CELL_SIZE - 7);
-        gemView.setFitHeight(CELL_SIZE - 7);
-        gemButton.setGraphic(gemView);
-        fadeInImage(gemView);
-        
-        gemButton.setOnAction(e -> {
-            collectGem(row, col);
-            e.consume();
-        });
-        
-        return gemButton;
+        boardView.showFlag(row, col, engine.isFlagged(row, col));
     }
 
     /**
-     * Enables Clairvoyance ability
+     * Shows the Clairvoyance cursor while the ability is active and asks the solver for a hint
      */
     private void enableClairvoyance()
     {
-        this.isClairvoyant = true;        
         Scene currentScene = primaryStage.getScene();
-        Image image = new Image("img/cwand.png");
-        currentScene.setCursor(new ImageCursor(image));
+        currentScene.setCursor(AssetCache.cursor("img/cwand.png"));
+        clairvoyance.requestHint(this::showHint);
     }
 
     /**
-     * Disables Clairvoyance ability
+     * Restores the wand cursor when Clairvoyance is no longer active, dropping a hint still being worked out
+     * and the mark of the last guess
      */
     private void disableClairvoyance()
     {
-        this.isClairvoyant = false;
+        clairvoyance.cancel();
+        if (guessHintCell >= 0) {
+            markHint(guessHintCell, BoardView.NO_HINT);
+            guessHintCell = -1;
+        }
         setWandCursor();
     }
-    
+
     /**
-     * Creates gems in adjacent cells
-     * 
-     * @param centerRow The row of the cell.
-     * @param centerCol The column of the cell.
+     * Shows the solver's answer to a Clairvoyance query.
+     * Proven cells are marked on the board and use up the spell. If no cell is certain, the best guess is
+     * marked and the spell stays active to protect the click on it.
+     *
+     * @param hint The answer, computed off the FX thread.
      */
-    private void spawnGemsInAdjacentCells(int centerRow, int centerCol) {
-    	//First, remove any existing gems
-        for (int row = 0; row < GRID_SIZE; row++) {
-            for (int col = 0; col < GRID_SIZE; col++) {
-                if (gemButtons[row][col] != null) {
-                    gemButtons[row][col].setVisible(false);
-                }
+    private void showHint(BoardSolver.Hint hint) {
+        //The spell may have been used or given back while the solver was working
+        if (!engine.isClairvoyant() || engine.isGameOver()) return;
+
+        if (hint.getKind() == BoardSolver.Hint.PROVEN) {
+            for (int cell : hint.getSafeCells()) {
+                markHint(cell, BoardView.HINT_SAFE);
             }
-        }
-        
-        //Determine number of gems (0-3)
-        int numGems = random.nextInt(4);
-        if (numGems == 0) return;
-        
-        //Get list of adjacent cells
-        int[][] adjacentCells = new int[8][2];
-        int validAdjacentCells = 0;
-        
-        for (int i = -1; i <= 1; i++) {
-            for (int j = -1; j <= 1; j++) {
-                if (i == 0 && j == 0) continue; // Skip the center cell
-                
-                int newRow = centerRow + i;
-                int newCol = centerCol + j;
-                
-                //Check if the cell is valid and not revealed
-                if (newRow >= 0 && newRow < GRID_SIZE && 
-                    newCol >= 0 && newCol < GRID_SIZE && 
-                    cells[newRow][newCol] != null &&
-                    gemButtons[newRow][newCol] != null &&  // Add null check for gemButtons
-                    !revealed[newRow][newCol]) {
-                    adjacentCells[validAdjacentCells][0] = newRow;
-                    adjacentCells[validAdjacentCells][1] = newCol;
-                    validAdjacentCells++;
-                }
+            for (int cell : hint.getFireCells()) {
+                markHint(cell, BoardView.HINT_FIRE);
             }
+            engine.spendClairvoyance();
+            setWandCursor();
+            return;
         }
-        
-        //Spawn gems
-        for (int i = 0; i < numGems && i < validAdjacentCells; i++) {
-            int index = random.nextInt(validAdjacentCells);
-            int gemRow = adjacentCells[index][0];
-            int gemCol = adjacentCells[index][1];
-            
-            if (gemButtons[gemRow][gemCol] != null) {  // Add null check
-                gemButtons[gemRow][gemCol].setVisible(true);
-            }
-            
-            // Swap the selected cell to the end and decrease valid count
-            int[] temp = adjacentCells[index];
-            adjacentCells[index] = adjacentCells[validAdjacentCells - 1];
-            adjacentCells[validAdjacentCells - 1] = temp;
-            validAdjacentCells--;
+        guessHintCell = hint.getGuessCell();
+        if (guessHintCell >= 0) {
+            markHint(guessHintCell, BoardView.HINT_GUESS);
         }
+        showGuessPopup(hint);
     }
 
+    /**
+     * Marks a hint on a cell that is still hidden
+     *
+     * @param cell Compact index of the cell.
+     * @param hint One of the BoardView hints.
+     */
+    private void markHint(int cell, int hint) {
+        int row = engine.getTopology().row(cell);
+        int col = engine.getTopology().col(cell);
+        if (!engine.isRevealed(row, col)) {
+            boardView.showHint(row, col, hint);
+        }
+    }
+    
     /**
      * Handles the collection of a gem when clicked
      * 
@@ -607,54 +1068,28 @@ public class RunesReaperUI extends Application {
      * @param col The column of the cell.
      */
 	private void collectGem(int row, int col) {
-	    //Check if there's a visible gem at the specified position
-	    if (gemButtons[row][col] != null && gemButtons[row][col].isVisible()) {    		
-	        //Create a new ImageView for the animated gem
-	        ImageView animatedGem = new ImageView(new Image("img/gem.png"));
-	        //Set the size of the animated gem
-	        animatedGem.setFitWidth(55);
-	        animatedGem.setFitHeight(55);
-	        //Set the initial X position of the gem
-	        int xPos = 275;
-	        //Set the initial position of the animated gem
-	        animatedGem.setTranslateX(xPos);
-	        animatedGem.setTranslateY(100);
-	        //Add the animated gem to the game layout
-	        gameLayout.getChildren().add(animatedGem);
-	        
-	        //Create a movement animation for the gem
-	        TranslateTransition move = new TranslateTransition(Duration.millis(500), animatedGem);
-	        move.setToX(xPos); // Keep X position constant
-	        move.setToY(10); // Move gem upwards
-	        
-	        //Create a scale down animation for the gem
-	        ScaleTransition scaleDown = new ScaleTransition(Duration.millis(500), animatedGem);
-	        scaleDown.setToX(0.5); // Scale to half the original width
-	        scaleDown.setToY(0.5); // Scale to half the original height
-	        
-	        //Create a fade out animation for the gem
-	        FadeTransition fade = new FadeTransition(Duration.millis(500), animatedGem);
-	        fade.setFromValue(1.0); // Start fully opaque
-	        fade.setToValue(0.0); // Fade to fully transparent
-	        
-	        //Combine all animations into a parallel transition
-	        ParallelTransition parallelTransition = new ParallelTransition();
-	        parallelTransition.getChildren().addAll(move, scaleDown, fade);
-	        
-	        //Define actions to perform after the animation completes
-	        parallelTransition.setOnFinished(e -> {
-	            //Remove the animated gem from the game layout
-	            gameLayout.getChildren().remove(animatedGem);
-	            //Increment the gem count
-	            gemCount++;
-	            //Update the gem count display
-	            gemsLabel.setText(gemsLabelValue + gemCount);
-	            //Hide the collected gem button
-	            gemButtons[row][col].setVisible(false);
-	        });
-	        
-	        //Start the animation sequence
-	        parallelTransition.play();
+	    //Check if there's a gem at the specified position and pick it up
+	    if (engine.collectGem(row, col)) {
+	        //Fly the gem up to the gem counter, the label is updated when it arrives (see effectFinished)
+	        effects.play(EffectLayer.Effect.GEM, row, col);
+	    }
+	}
+
+	/**
+	 * Finishes an effect of the effect layer once its animation is done
+	 *
+	 * @param effect The effect that finished.
+	 * @param row The row of the collected gem, for GEM effects.
+	 * @param col The column of the collected gem, for GEM effects.
+	 */
+	private void effectFinished(EffectLayer.Effect effect, int row, int col) {
+	    if (effect == EffectLayer.Effect.GEM) {
+	        //Update the gem count display
+	        gemsLabel.setText(gemsLabelValue + engine.getGemCount());
+	        //Hide the collected gem button, unless a new gem was spawned there meanwhile
+	        boardView.showGem(row, col, engine.hasGem(row, col));
+	    } else {
+	        updateInventoryLabels();
 	    }
 	}
 	
@@ -665,100 +1100,60 @@ public class RunesReaperUI extends Application {
      * @param col The column of the cell.
      */
 	private void cellClick(int row, int col) {
-	    //Check if the cell is already revealed or flagged
-	    if (revealed[row][col] || flagged[row][col]) return;
-	    
-	    //Check if there's a visible gem on this cell
-	    if (gemButtons[row][col] != null && gemButtons[row][col].isVisible()) {
-	        return; // Don't process cell click if there's a gem
+	    //Cells are not opened while a resumed board is still being drawn, see ResumeSequencer
+	    if (resumeSequencer.isRunning()) return;
+	    //Let the engine open the cell (and its neighbours) and redraw what changed
+	    MoveResult result = engine.reveal(row, col);
+	    if (result.isEmpty()) return;
+
+	    for (int i = 0; i < result.size(); i++) {
+	        int changedRow = result.row(i);
+	        int changedCol = result.col(i);
+	        switch (result.kind(i)) {
+	            case MoveResult.OPENED:
+	                //Shows the count of adjacent fires and disables the cell
+	                boardView.showOpened(changedRow, changedCol);
+	                clairvoyance.cellOpened(engine.getTopology().cellAt(changedRow, changedCol),
+	                        engine.countAdjacentFires(changedRow, changedCol));
+	                break;
+	            case MoveResult.FIRE:
+	                boardView.showFire(changedRow, changedCol);
+	                break;
+	            case MoveResult.FROZEN:
+	                boardView.showFrozenFire(changedRow, changedCol);
+	                clairvoyance.fireRevealed(engine.getTopology().cellAt(changedRow, changedCol));
+	                break;
+	            case MoveResult.GEM_SPAWNED:
+	                boardView.showGem(changedRow, changedCol, true);
+	                break;
+	            case MoveResult.GEM_REMOVED:
+	                boardView.showGem(changedRow, changedCol, false);
+	                break;
+	        }
 	    }
-	    
-	    //Mark the cell as revealed
-	    revealed[row][col] = true;
-	    //Increment the count of opened cells
-	    cellsOpened++;
+
+	    //Hands the changed cells to the solver, which propagates them in the background
+	    clairvoyance.flush();
 	    //Update the display of opened cells
 	    updateCellsOpenedLabel();
-	    
-	    //Check if the clicked cell contains a fire
-	    boolean isFireSelected = fires[row][col];
-	
-	    if (isFireSelected) {
-	        if(this.isClairvoyant) {
-	            //If clairvoyant is active, reveal the fire as frozen
-	            setFrozenFire(row, col);
-	            this.disableClairvoyance();
-	        }
-	        else if (this.potionCount > 0) {
-	            //If player has potions, use one to freeze the fire
-	            setFrozenFire(row, col);
-	            this.potionCount--;
-	            this.potionLabel.setText(potionLabelValue + this.potionCount);
-	            showUsedPotionPopup();
-	        } else {
-	            //If no protection, reveal fire and end game
-	            setFire(row, col);
-	            gameOver(false);
-	        }
-	    } else {
-	        //If not a fire, count adjacent fires
-	        int adjacentFires = countAdjacentFires(row, col);
-	        if (adjacentFires > 0) {
-	            //If there are adjacent fires, display the count
-	            cells[row][col].setText(String.valueOf(adjacentFires));
-	            cells[row][col].getStyleClass().add("number-cell");
-	            
-	            if(this.isClairvoyant) {
-	                //If clairvoyant is active, reveal one adjacent fire
-	                this.revealOneAdjacentFire(row, col);
-	                this.disableClairvoyance();
-	            }
-	        } else {
-	            //If no adjacent fires, reveal surrounding cells
-	            revealAdjacentCells(row, col);
-	        }
-	        //Spawn gems in adjacent cells
-	        spawnGemsInAdjacentCells(row, col);
+
+	    if (result.isClairvoyanceUsed()) {
+	        this.disableClairvoyance();
 	    }
-	   	
-	    //Disable the clicked cell to prevent further interactions
-	    cells[row][col].setDisable(true);   
-	   
-	    //Check if the win condition is met
-	    if (checkWinCondition()) {
-	        gameOver(true);
+	    if (result.isPotionUsed()) {
+	        this.potionLabel.setText(potionLabelValue + engine.getPotionCount());
+	        showUsedPotionPopup();
+	    }
+	    if (result.isGameOver()) {
+	        gameOver(result.isWon(), row, col);
 	    }
 	}
 	
-	/** 
-	 * Sets a fire image on a cell
-	 * @param row The row of the cell.
-     * @param col The column of the cell.
-	 */
-	private void setFire(int row, int col) {
-	    //Create an ImageView for the fire image
-	    ImageView image = new ImageView(new Image("img/fire.png"));
-	    //Set the size of the fire image (slightly smaller than the cell)
-	    image.setFitWidth(CELL_SIZE - 10);
-	    image.setFitHeight(CELL_SIZE - 10);                
-	    //Set the fire image as the graphic for the cell
-	    cells[row][col].setGraphic(image);
-	    //Apply a fade-in animation to the fire image with function defined in Line TODO
-	    fadeInImage(image);
-	}
-	
-	/** 
-	 * Sets a (disabled) frozen fire image on a cell
-	 * @param row The row of the cell.
-     * @param col The column of the cell.
+	/**
+	 * Returns the sprite atlas for the current cell size and screen scale, rebuilt if either changed
 	 */
-	private void setFrozenFire(int row, int col) {
-    	ImageView image = new ImageView(new Image("img/frozen.png"));
-    	image.setFitWidth(CELL_SIZE - 10);  // Slightly smaller than cell
-    	image.setFitHeight(CELL_SIZE - 10);                
-        cells[row][col].setGraphic(image);
-        cells[row][col].setStyle("-fx-background-color: #B7C9E2; -fx-border-color: #537eb9;");        
-        fadeInImage(image);
+	private SpriteAtlas spriteAtlas() {
+		return SpriteAtlas.forCellSize(CELL_SIZE, primaryStage.getOutputScaleX());
 	}
 	
 	/** 
@@ -773,341 +1168,163 @@ public class RunesReaperUI extends Application {
 	}
 
 	/**
-	 * Updates the label that shows the current count of opened cells
+	 * Updates the label that shows the current count of opened cells out of the safe cells on the board
 	 */
 	private void updateCellsOpenedLabel() {
-        cellsOpenedLabel.setText("Cells Opened: " + cellsOpened);
+        cellsOpenedLabel.setText("Cells Opened: " + engine.getCellsOpened() + "/" + engine.getSafeCellCount());
     }
     
-	/**
-	 * Counts adjacent fires
-	 * @param row The row of the cell.
-     * @param col The column of the cell.
-	 */
-    private int countAdjacentFires(int row, int col) {
-        int count = 0;
-        for (int i = -1; i <= 1; i++) {
-            for (int j = -1; j <= 1; j++) {
-                int newRow = row + i;
-                int newCol = col + j;
-                if (newRow >= 0 && newRow < GRID_SIZE && newCol >= 0 && newCol < GRID_SIZE) {
-                    if (fires[newRow][newCol]) count++;
-                }
-            }
-        }
-        return count;
-    }
-
-    /**
-	 * Reveals one adjacent fire when Clairvoyance is active
-	 * @param row The row of the cell.
-     * @param col The column of the cell.
-	 */
-    private void revealOneAdjacentFire(int row, int col) {
-        for (int i = -1; i <= 1; i++) {
-            for (int j = -1; j <= 1; j++) {
-                int newRow = row + i;
-                int newCol = col + j;
-                if (newRow >= 0 && newRow < GRID_SIZE && newCol >= 0 && newCol < GRID_SIZE) {
-                    if (fires[newRow][newCol]) {
-                    	setFrozenFire(newRow, newCol);
-                    	cells[newRow][newCol].setDisable(true);
-                        return;
-                    }
-                }
-            }
-        }
-    }
-
-    /**
-	 * Reveals adjacent cells recursively
-	 * @param row The row of the cell.
-     * @param col The column of the cell.
-	 */
-    private void revealAdjacentCells(int row, int col) {
-        for (int i = -1; i <= 1; i++) {
-            for (int j = -1; j <= 1; j++) {
-                int newRow = row + i;
-                int newCol = col + j;
-                if (newRow >= 0 && newRow < GRID_SIZE && newCol >= 0 && newCol < GRID_SIZE) {
-                    if (cells[newRow][newCol] != null && !revealed[newRow][newCol]) {
-                    	cellClick(newRow, newCol);
-                    }
-                }
-            }
-        }
-    }
-
-    /**
-	 * Checks if win condition is met
-	 */
-    private boolean checkWinCondition() {
-        for (int row = 0; row < GRID_SIZE; row++) {
-            for (int col = 0; col < GRID_SIZE; col++) {
-                if (cells[row][col] != null && !fires[row][col] && !revealed[row][col]) {
-                    return false;
-                }
-            }
-        }
-        return true;
-    }
-
     /**
      * Handles Game Over situation
      * @param win Stores true if game is won false otherwise
+     * @param row The row of the last clicked cell.
+     * @param col The column of the last clicked cell.
      */
-    private void gameOver(boolean win) {
-    	// Remove all gems
-        for (int row = 0; row < GRID_SIZE; row++) {
-            for (int col = 0; col < GRID_SIZE; col++) {
-                if (gemButtons[row][col] != null) {
-                    gemButtons[row][col].setVisible(false);
-                }
-            }
-        }
-        // Show all runes
-        for (int row = 0; row < GRID_SIZE; row++) {
-            for (int col = 0; col < GRID_SIZE; col++) {
-                if (cells[row][col] != null) {
-                    cells[row][col].setDisable(true);
-                    if (fires[row][col]) {
-                        setFire(row,col);
-                    }
-                }
-            }
-        }
+    private void gameOver(boolean win, int row, int col) {
+        clairvoyance.cancel();
+    	// Remove all gems and disable the board
+        boardView.endGame();
+        // Show all runes, rippling out from the clicked cell over the next frames
+        revealSequencer.start(engine, row, col);
         
         System.out.println(win ? "You Win!" : "Game Over!");
-        // Show the game over popup
+        saveReplay();
+        //A finished game can't be resumed
+        deleteSave();
+        // Show the game over popup, which doesn't wait for the reveal
         showGameOverPopup(win);
     }
 
     /**
-     * Creates and shows game over pop-ups
+     * Saves the replay log of the game being left to REPLAY_DIR, named after its seed and the time it was left:
+     * at game over, on Home and when the window closes. A game left in progress is logged up to there,
+     * and once more in full if it is resumed and finished.
+     * A failed save is only reported, it never gets in the way of the game.
+     */
+    private void saveReplay() {
+        //Games left before their first click hold no inputs worth keeping
+        if (replayLog == null || engine.isFiresPending()) return;
+        try {
+            Path dir = Paths.get(REPLAY_DIR);
+            Files.createDirectories(dir);
+            Path file = dir.resolve("game-" + System.currentTimeMillis() + "-" + replayLog.getSeed() + ".rrlog");
+            replayLog.save(file);
+        } catch (IOException e) {
+            System.out.println("Could not save the replay: " + e);
+        }
+        replayLog = null;
+    }
+
+    /**
+     * Shows the game over pop-up
      * @param win Stores true if game is won false otherwise
      */
     private void showGameOverPopup(boolean win) {
-        // Create the popup stage
-        Stage popupStage = new Stage();
-        popupStage.setWidth(400);
-        popupStage.setHeight(400);
-        popupStage.initModality(Modality.APPLICATION_MODAL);
-        popupStage.initOwner(primaryStage);
-        
-        VBox popupVBox = new VBox(15);
-        popupVBox.setAlignment(Pos.CENTER);
-        popupVBox.setPadding(new Insets(20));
-        
-        Image winImage = new Image("img/win.png");
-        Image overImage = new Image("img/over.png");
-        ImageView imageView;
-                
-        // Create title text
-        Text titleText = new Text(win ? "Victory!" : "Game Over!");
-        titleText.getStyleClass().add("title");
+        //Builds the panel the first time, it is updated in place afterwards
+        if (gameOverPanel == null) {
+            gameOverPanel = new NotificationLayer.Panel(400, 400, "title");
+            
+            // Create buttons
+            HBox buttonBox = new HBox(10);
+            buttonBox.setAlignment(Pos.CENTER);
+            
+            Button restartButton = new Button("Play Again!");
+            restartButton.getStyleClass().add("button1");
+            restartButton.setOnAction(e -> playAgain());
+            
+            Button homeButton = new Button("Home");
+            homeButton.getStyleClass().add("button1");
+            homeButton.setOnAction(e -> {
+                notifications.hide();
+                showStartScreen();
+            });
+                   
+            buttonBox.getChildren().addAll(restartButton, homeButton);
+            gameOverPanel.addControls(buttonBox);
+        }
         
-        // Create content text
-        Text contentText;
+        // Update title, content and image
+        gameOverPanel.setTitle(win ? "Victory!" : "Game Over!");
         if (win) {
-            contentText = new Text("Congratulations! You've won in " + secondsElapsed + " seconds");
-            imageView = new ImageView(winImage);
-            imageView.setFitWidth(100); 
-            imageView.setPreserveRatio(true);
+            gameOverPanel.setMessage("Congratulations! You've won in " + secondsElapsed + " seconds");
+            gameOverPanel.setImage(AssetCache.image("img/win.png"));
         } else {
-            contentText = new Text("Better Luck Next Time!");    
-            imageView = new ImageView(overImage);
-            imageView.setFitWidth(100); 
-            imageView.setPreserveRatio(true);
+            gameOverPanel.setMessage("Better Luck Next Time!");
+            gameOverPanel.setImage(AssetCache.image("img/over.png"));
         }
-        contentText.getStyleClass().add("content");
-        
-        // Create buttons
-        HBox buttonBox = new HBox(10);
-        buttonBox.setAlignment(Pos.CENTER);
-        
-        Button restartButton = new Button("Play Again!");
-        restartButton.getStyleClass().add("button1");
-        restartButton.setOnAction(e -> {
-            popupStage.close();
-            showGameScreen();
-        });
-        
-        Button homeButton = new Button("Home");
-        homeButton.getStyleClass().add("button1");
-        homeButton.setOnAction(e -> {
-            popupStage.close();
-            showStartScreen();
-        });
-               
-        buttonBox.getChildren().addAll(restartButton, homeButton);
-        
-        // Add all elements to the popup
-        popupVBox.getChildren().addAll(imageView, titleText, contentText, buttonBox);
         
-        // Create the scene and show the popup
-        Scene popupScene = new Scene(popupVBox);
-        popupScene.getStylesheets().add(getClass().getResource("style.css").toExternalForm());
-        Image image = new Image("img/wand.png");
-        popupScene.setCursor(new ImageCursor(image));
-
-        popupStage.setScene(popupScene);
         setWandCursor();
-        popupStage.show();
+        notifications.show(gameOverPanel, false);
+        //Readies the next board while the popup is read
+        preparer.whenReady((ready, error) -> makeReady(ready));
     }
     
     /**
-     * Creates and shows Shop pop-up
+     * Shows the Shop pop-up
      */
     private void showShopPopup() {
-        // Create the popup stage
-        Stage popupStage = new Stage();
-        popupStage.setWidth(450);
-        popupStage.setHeight(450);
-        popupStage.initModality(Modality.APPLICATION_MODAL);
-        popupStage.initOwner(primaryStage);
-        
-        VBox popupVBox = new VBox(15);
-        popupVBox.setAlignment(Pos.CENTER);
-        popupVBox.setPadding(new Insets(20));
-        
-        // Create title text
-        Text titleText = new Text("Enchanted Exchange!");
-        titleText.getStyleClass().add("title");
-        
-        Label messageLabel = new Label("You can buy Spells and Potions!");
-        
-        Image potionImage = new Image("img/potion.gif");
-        Image spellImage = new Image("img/wand.gif");        
-        ImageView imageView = new ImageView("img/crystal.png");
-        imageView.setFitWidth(100); 
-        imageView.setPreserveRatio(true);
-
-        Button hintButton = new Button("1 Clairvoyance Spell for 5 gems");
-        hintButton.getStyleClass().add("button1");
-        hintButton.setOnAction(e -> {
-            if (gemCount < 5) {
-            	messageLabel.setText("Sorry, you don't have enough Gems!");
-            } else {
-            	messageLabel.setText("You've bought a Clairvoyance Spell!");            	 
-                imageView.setImage(spellImage);
-                fadeInImage(imageView);
-            	buySpell();
-            }
-            	
-        });
+        //Builds the panel the first time, it is updated in place afterwards
+        if (shopPanel == null) {
+            shopPanel = new NotificationLayer.Panel(450, 450, "title");
+            shopPanel.setTitle("Enchanted Exchange!");
+            
+            Image potionImage = AssetCache.image("img/potion.gif");
+            Image spellImage = AssetCache.image("img/wand.gif");
+            
+            Button hintButton = new Button("1 Clairvoyance Spell for " + RunesEngine.SPELL_PRICE + " gems");
+            hintButton.getStyleClass().add("button1");
+            hintButton.setOnAction(e -> {
+                if (!engine.buySpell()) {
+                	shopPanel.setMessage("Sorry, you don't have enough Gems!");
+                } else {
+                	shopPanel.setMessage("You've bought a Clairvoyance Spell!");
+                    shopPanel.setImage(spellImage);
+                    fadeInImage(shopPanel.getImageView());
+                	buySpell();
+                }
+            });
+            
+            Button potionButton = new Button("1 Life Potion for " + RunesEngine.POTION_PRICE + " gems");
+            potionButton.getStyleClass().add("button1");
+            potionButton.setOnAction(e -> {
+            	if (!engine.buyPotion()) {
+            		shopPanel.setMessage("Sorry, you don't have enough Gems!");
+                } else {
+                	shopPanel.setMessage("You've bought a Life Potion!");
+                	shopPanel.setImage(potionImage);
+                    fadeInImage(shopPanel.getImageView());
+                	buyPotion();
+                }
+            });
+            
+            Button closeButton = new Button("Close");
+            closeButton.getStyleClass().add("button1");
+            closeButton.setOnAction(e -> notifications.hide());
+            shopPanel.addControls(hintButton, potionButton, closeButton);
+        }
         
-        Button potionButton = new Button("1 Life Potion for 3 gems");
-        potionButton.getStyleClass().add("button1");
-        potionButton.setOnAction(e -> {
-        	if (gemCount < 3) {
-        		messageLabel.setText("Sorry, you don't have enough Gems!");
-            } else {
-            	messageLabel.setText("You've bought a Life Potion!");            	 
-            	imageView.setImage(potionImage);
-                fadeInImage(imageView);
-            	buyPotion();
-            }
-        });
-		// Add all elements to the popup
-        popupVBox.getChildren().addAll(imageView, titleText, messageLabel, hintButton, potionButton);
+        // Start from the shop's welcome message every time it opens
+        shopPanel.setMessage("You can buy Spells and Potions!");
+        shopPanel.setImage(AssetCache.image("img/crystal.png"));
         
-        // Create the scene and show the popup
-        Scene popupScene = new Scene(popupVBox);
-        popupScene.getStylesheets().add(getClass().getResource("style.css").toExternalForm());
-        Image image = new Image("img/wand.png");
-        popupScene.setCursor(new ImageCursor(image));
-
-        popupStage.setScene(popupScene);
-        popupStage.show();
         setWandCursor();
+        notifications.show(shopPanel, true);
     }
     
     /**
-     * Handles actions when Life Potion is bought
+     * Plays the purchase animation after a Life Potion was bought from the engine
      */
     private void buyPotion() {
-    	ImageView animatedGem = new ImageView(new Image("img/potion.png"));
-		animatedGem.setFitWidth(70);
-        animatedGem.setFitHeight(70);
-        int xPos = 415;
-        animatedGem.setTranslateX(xPos);
-        animatedGem.setTranslateY(100);
-        //Adds the animated gem to the game layout
-        gameLayout.getChildren().add(animatedGem);
-        
-        //Create movement animation
-        TranslateTransition move = new TranslateTransition(Duration.millis(700), animatedGem);
-        move.setToX(xPos);
-        move.setToY(0);
-        
-        //Scale down animation
-        ScaleTransition scaleDown = new ScaleTransition(Duration.millis(500), animatedGem);
-        scaleDown.setToX(0.5);
-        scaleDown.setToY(0.5);
-        
-        //Fade out animation
-        FadeTransition fade = new FadeTransition(Duration.millis(500), animatedGem);
-        fade.setFromValue(1.0);
-        fade.setToValue(0.0);
-        
-        //Combine all animations
-        ParallelTransition parallelTransition = new ParallelTransition();
-        parallelTransition.getChildren().addAll(move, scaleDown, fade);
-        
-        //After animation completes
-        parallelTransition.setOnFinished(e -> {
-			potionCount++;
-			potionLabel.setText(potionLabelValue  + potionCount);
-			gemCount = gemCount - 3;
-			gemsLabel.setText(gemsLabelValue + gemCount);
-        });
-        
-        //Start the animation sequence
-        parallelTransition.play();
+        //Flies the item up to the top bar, the labels are updated when it arrives
+        effects.play(EffectLayer.Effect.POTION, -1, -1);
 	}
       
     /**
-     * Handles actions when Clairvoyance Spell (Hint) is bought
+     * Plays the purchase animation after a Clairvoyance Spell (Hint) was bought from the engine
      */
     private void buySpell() {
-    	ImageView animatedGem = new ImageView(new Image("img/spark.png"));
-		animatedGem.setFitWidth(100);
-        animatedGem.setFitHeight(100);
-        int xPos = 550;
-        animatedGem.setTranslateX(xPos);
-        animatedGem.setTranslateY(100);
-        //Adds the animated gem to the game layout
-        gameLayout.getChildren().add(animatedGem);
-        
-        //Creates movement animation
-        TranslateTransition move = new TranslateTransition(Duration.millis(700), animatedGem);
-        move.setToX(xPos);
-        move.setToY(0);
-        
-        //Scale down animation
-        ScaleTransition scaleDown = new ScaleTransition(Duration.millis(500), animatedGem);
-        scaleDown.setToX(0.5);
-        scaleDown.setToY(0.5);
-        
-        //Fade out animation
-        FadeTransition fade = new FadeTransition(Duration.millis(500), animatedGem);
-        fade.setFromValue(1.0);
-        fade.setToValue(0.0);
-        
-        //Combine all animations
-        ParallelTransition parallelTransition = new ParallelTransition();
-        parallelTransition.getChildren().addAll(move, scaleDown, fade);
-        
-        //After animation completes
-        parallelTransition.setOnFinished(e -> {                	
-			hintsCount++;
-        	hintsLabel.setText(hintsLabelValue + hintsCount);
-        	gemCount = gemCount - 5;
-        	gemsLabel.setText(gemsLabelValue + gemCount);
-        });
-        
-        //Start the animation sequence
-        parallelTransition.play();
+        //Flies the item up to the top bar, the labels are updated when it arrives
+        effects.play(EffectLayer.Effect.SPELL, -1, -1);
 	}
     
     /**
@@ -1115,91 +1332,115 @@ public class RunesReaperUI extends Application {
      */
     private void setWandCursor() {
     	Scene currentScene = primaryStage.getScene();
-        Image wandImage = new Image("img/wand.png");
-        currentScene.setCursor(new ImageCursor(wandImage));
+        currentScene.setCursor(AssetCache.cursor("img/wand.png"));
 	}
     
     /**
      * Handles when there is no hints (Clairvoyance Spell) left but the hints button is clicked
      */
     private void showNoHintsPopup() {
-        Stage popupStage = new Stage();
-        popupStage.setWidth(350);
-        popupStage.setHeight(350);
-        popupStage.initModality(Modality.APPLICATION_MODAL);
-        popupStage.initOwner(primaryStage);
-        
-        VBox popupVBox = new VBox(15);
-        popupVBox.setAlignment(Pos.CENTER);
-        popupVBox.setPadding(new Insets(20));
-        
-        ImageView image = new ImageView("img/sorry.png");
-        image.setFitWidth(100); 
-        image.setPreserveRatio(true);
-        
-        Text titleText = new Text("Sorry!");
-        titleText.getStyleClass().add("title-light");
-        
-        Text messageLabel = new Text("You don't have any Clairvoyance Spell!");
-        messageLabel.getStyleClass().add("content");
-
-        popupVBox.getChildren().addAll(image, titleText, messageLabel);
-
-        Scene popupScene = new Scene(popupVBox);
-        popupScene.getStylesheets().add(getClass().getResource("style.css").toExternalForm());
-        Image wandImage = new Image("img/wand.png");
-        popupScene.setCursor(new ImageCursor(wandImage));
-
-        popupStage.setScene(popupScene);
-        popupStage.show();
+        if (noHintsPanel == null) {
+            noHintsPanel = createNoticePanel("img/sorry.png", "Sorry!");
+            noHintsPanel.setMessage("You don't have any Clairvoyance Spell!");
+        }
+        notifications.show(noHintsPanel, true);
     }
     
     /**
-     * Handles when a Life Potion is used when user clicks on Fire cell. 
+     * Handles when Clairvoyance finds no certain cell and the player has to guess
+     *
+     * @param hint The answer of the solver.
      */
-    private void showUsedPotionPopup() {
-        Stage popupStage = new Stage();
-        popupStage.setWidth(350);
-        popupStage.setHeight(350);
-        popupStage.initModality(Modality.APPLICATION_MODAL);
-        popupStage.initOwner(primaryStage);
-        
-        VBox popupVBox = new VBox(15);
-        popupVBox.setAlignment(Pos.CENTER);
-        popupVBox.setPadding(new Insets(20));
-               
-        ImageView image = new ImageView("img/potion.gif");
-        image.setFitWidth(100); 
-        image.setPreserveRatio(true);
-
-        Text titleText = new Text("Life Potion used!");
-        titleText.getStyleClass().add("title-light");
-        
-        Text messageLabel = new Text("You have " + potionCount +" Life Potions left!");
-        messageLabel.getStyleClass().add("content");
+    private void showGuessPopup(BoardSolver.Hint hint) {
+        if (guessPanel == null) {
+            guessPanel = createNoticePanel("img/crystal.png", "Time to guess!");
+        }
+        String odds = hint.getGuessCell() < 0 ? ""
+                : " The marked cell has about " + Math.round(hint.getGuessFireChance() * 100) + "% chance of fire.";
+        guessPanel.setMessage("No cell is certain, the runes need a guess." + odds
+                + " Clairvoyance protects your next click.");
+        notifications.show(guessPanel, true);
+    }
 
-        popupVBox.getChildren().addAll(image, titleText, messageLabel);
+    /**
+     * Handles when no board without guessing was found within the search budget and an ordinary board is played
+     */
+    private void showUnfairBoardPopup() {
+        if (unfairBoardPanel == null) {
+            unfairBoardPanel = createNoticePanel("img/sorry.png", "No fair board found");
+            unfairBoardPanel.setMessage("This board may need a guess.\nFewer fires make fair boards quicker to find.");
+        }
+        notifications.show(unfairBoardPanel, true);
+    }
 
-        Scene popupScene = new Scene(popupVBox);
-        popupScene.getStylesheets().add(getClass().getResource("style.css").toExternalForm());
-        Image wandImage = new Image("img/wand.png");
-        popupScene.setCursor(new ImageCursor(wandImage));
+    /**
+     * Handles when the game PLAY or "Play Again!" starts could not be built, e.g. a board too large for the memory.
+     * There is no game to go back to, so the OK button leads to the start screen.
+     *
+     * @param error The failure of the build.
+     */
+    private void showBuildFailedPopup(Throwable error) {
+        if (buildFailedPanel == null) {
+            buildFailedPanel = new NotificationLayer.Panel(350, 350, "title-light");
+            buildFailedPanel.setImage(AssetCache.image("img/sorry.png"));
+            buildFailedPanel.setTitle("The runes failed!");
+            Button okButton = new Button("OK");
+            okButton.getStyleClass().add("button1");
+            okButton.setOnAction(e -> showStartScreen());
+            buildFailedPanel.addControls(okButton);
+        }
+        buildFailedPanel.setMessage("This board could not be prepared (" + error + ").\nTry a smaller board or fewer fires.");
+        notifications.show(buildFailedPanel, false);
+    }
 
-        popupStage.setScene(popupScene);
-        popupStage.show();
+    /**
+     * Handles when a Life Potion is used when user clicks on Fire cell. 
+     * The same panel is updated if potions are used one after another.
+     */
+    private void showUsedPotionPopup() {
+        if (usedPotionPanel == null) {
+            usedPotionPanel = createNoticePanel("img/potion.gif", "Life Potion used!");
+        }
+        usedPotionPanel.setMessage("You have " + engine.getPotionCount() +" Life Potions left!");
+        notifications.show(usedPotionPanel, true);
+    }
+    
+    /**
+     * Creates a small notice panel with an image, a title and an OK button
+     *
+     * @param imagePath Path of the image, e.g. "img/sorry.png".
+     * @param title Title of the notice.
+     * @return The panel.
+     */
+    private NotificationLayer.Panel createNoticePanel(String imagePath, String title) {
+        NotificationLayer.Panel panel = new NotificationLayer.Panel(350, 350, "title-light");
+        panel.setImage(AssetCache.image(imagePath));
+        panel.setTitle(title);
+        
+        Button okButton = new Button("OK");
+        okButton.getStyleClass().add("button1");
+        okButton.setOnAction(e -> notifications.hide());
+        panel.addControls(okButton);
+        return panel;
     }
     
 	/**
 	 * Timer Implementation 
 	 * 1) Check whether a Timeline is created already and create a new Timeline only if it is not have been created 
 	 * 2) Stop the Timeline before starting it again.
+	 * 3) Every AUTOSAVE_SECONDS the game in progress is saved.
+	 *
+	 * @param seconds Time already played, 0 for a new game.
 	 */
-    private void startTimer() {
+    private void startTimer(int seconds) {
     	//Initializes the Timeline only if it's null
         if (timeline == null) {
             timeline = new Timeline(new KeyFrame(Duration.seconds(1), ev -> {
                 secondsElapsed++;
                 timerLabel.setText("Time: " + secondsElapsed + "s");
+                if (secondsElapsed % AUTOSAVE_SECONDS == 0) {
+                    saveGame(false);
+                }
             }));
             timeline.setCycleCount(Animation.INDEFINITE);
         }
@@ -1207,7 +1448,7 @@ public class RunesReaperUI extends Application {
         //Stop any running timer before starting a new one
         timeline.stop();
         //Reset timer if needed
-        secondsElapsed = 0; 
+        secondsElapsed = seconds; 
         timerLabel.setText("Time: " + secondsElapsed + "s");
         timeline.play();
     }
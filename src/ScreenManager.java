@@ -0,0 +1,78 @@
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import javafx.scene.Group;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+
+/**
+ * ScreenManager Class
+ * Shows the screens of the game (start, about, game) in a single Scene by swapping its root.
+ *
+ * The Scene and its stylesheet are created once, so navigating between screens doesn't
+ * create a new Scene or apply style.css again. Screens that never change, like the start
+ * and about screens, are built on first use and kept for the rest of the session.
+ */
+public final class ScreenManager {
+
+	//External form of style.css, resolved once and shared by every scene of the game
+	private static String stylesheet;
+
+	private final Stage stage;
+	private final Scene scene;
+	private final Map<String, Parent> screens = new HashMap<>();
+
+	/**
+	 * Creates the scene and sets it on the stage
+	 *
+	 * @param stage The main window.
+	 * @param width Width of the scene.
+	 * @param height Height of the scene.
+	 */
+	public ScreenManager(Stage stage, double width, double height) {
+		this.stage = stage;
+		this.scene = new Scene(new Group(), width, height);
+		scene.getStylesheets().add(stylesheet());
+		stage.setScene(scene);
+	}
+
+	/**
+	 * Returns a cached screen, building it the first time it is asked for
+	 *
+	 * @param name Name of the screen, e.g. "start".
+	 * @param builder Builds the screen if it is not cached yet.
+	 * @return The screen.
+	 */
+	public Parent cached(String name, Supplier<Parent> builder) {
+		return screens.computeIfAbsent(name, key -> builder.get());
+	}
+
+	/**
+	 * Shows a screen in the window
+	 *
+	 * @param title Title of the window.
+	 * @param root The screen to show.
+	 */
+	public void show(String title, Parent root) {
+		if (scene.getRoot() != root) {
+			scene.setRoot(root);
+		}
+		stage.setTitle(title);
+	}
+
+	public Scene getScene() {
+		return scene;
+	}
+
+	/**
+	 * @return The URL of style.css, for scenes that need the game's styles.
+	 */
+	public static String stylesheet() {
+		if (stylesheet == null) {
+			stylesheet = ScreenManager.class.getResource("style.css").toExternalForm();
+		}
+		return stylesheet;
+	}
+}
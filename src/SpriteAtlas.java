@@ -0,0 +1,157 @@
+import javafx.geometry.Rectangle2D;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+
+/**
+ * SpriteAtlas Class
+ * Packs the board icons (fire, frozen fire, flag and gem) into one image, each pre-scaled
+ * to the size it is drawn at for the current CELL_SIZE and screen output scale.
+ *
+ * Cells show the icons through ImageViews with a viewport into the shared atlas image,
+ * so the GPU holds one small texture instead of the full-size PNGs, and nothing has to be
+ * scaled when a frame is drawn.
+ *
+ * Atlas Implementation
+ * 1) Each icon is decoded once directly at its target pixel size (logical size x output scale)
+ * 2) The icons are copied side by side into a WritableImage, 1 pixel apart so smoothing doesn't bleed
+ * 3) forCellSize() keeps the last atlas and builds a new one only when the cell size or scale changes
+ */
+public final class SpriteAtlas {
+
+	/**
+	 * Icons held by the atlas, with the file they come from and how much smaller than the cell they are drawn
+	 */
+	public enum Sprite {
+		FIRE("img/fire.png", 10),
+		FROZEN("img/frozen.png", 10),
+		FLAG("img/flag.png", 10),
+		GEM("img/gem.png", 7);
+
+		private final String path;
+		private final int inset;
+
+		Sprite(String path, int inset) {
+			this.path = path;
+			this.inset = inset;
+		}
+	}
+
+	//Gap between icons in the atlas, in pixels
+	private static final int PADDING = 1;
+	//Cell size the insets of the icons are given for; smaller or larger cells scale the insets with them
+	private static final double REFERENCE_CELL_SIZE = 40;
+
+	private static SpriteAtlas current;
+
+	private final int cellSize;
+	private final double outputScale;
+	private final WritableImage image;
+	private final Rectangle2D[] viewports = new Rectangle2D[Sprite.values().length];
+
+	/**
+	 * Returns the atlas for a cell size, building it if the cell size or output scale changed
+	 *
+	 * @param cellSize Size of a cell in logical pixels.
+	 * @param outputScale Output scale of the screen (e.g. 2.0 on HiDPI displays).
+	 * @return The atlas.
+	 */
+	public static SpriteAtlas forCellSize(int cellSize, double outputScale) {
+		if (current == null || current.cellSize != cellSize || current.outputScale != outputScale) {
+			current = new SpriteAtlas(cellSize, outputScale);
+		}
+		return current;
+	}
+
+	private SpriteAtlas(int cellSize, double outputScale) {
+		this.cellSize = cellSize;
+		this.outputScale = outputScale;
+
+		//Decodes every icon at its final pixel size
+		Sprite[] sprites = Sprite.values();
+		Image[] scaled = new Image[sprites.length];
+		int width = 0;
+		int height = 0;
+		for (Sprite sprite : sprites) {
+			int size = pixelSize(sprite);
+			scaled[sprite.ordinal()] = new Image(sprite.path, size, size, false, true);
+			width += size + PADDING;
+			height = Math.max(height, size);
+		}
+
+		//Copies the icons side by side into the atlas
+		image = new WritableImage(Math.max(1, width), Math.max(1, height));
+		PixelWriter writer = image.getPixelWriter();
+		int x = 0;
+		for (Sprite sprite : sprites) {
+			int size = pixelSize(sprite);
+			Image icon = scaled[sprite.ordinal()];
+			if (!icon.isError()) {
+				writer.setPixels(x, 0, size, size, icon.getPixelReader(), 0, 0);
+			}
+			viewports[sprite.ordinal()] = new Rectangle2D(x, 0, size, size);
+			x += size + PADDING;
+		}
+	}
+
+	/**
+	 * @return The size in pixels of an icon in the atlas.
+	 */
+	private int pixelSize(Sprite sprite) {
+		return Math.max(1, (int) Math.round(logicalSize(sprite) * outputScale));
+	}
+
+	/**
+	 * @return The size an icon is drawn at inside a cell, in logical pixels.
+	 */
+	public double logicalSize(Sprite sprite) {
+		return Math.max(1, cellSize - sprite.inset * cellSize / REFERENCE_CELL_SIZE);
+	}
+
+	/**
+	 * Creates a view showing one icon of the atlas at its cell size
+	 *
+	 * @param sprite The icon to show.
+	 * @return An ImageView with a viewport into the atlas.
+	 */
+	public ImageView createView(Sprite sprite) {
+		ImageView view = new ImageView(image);
+		setSprite(view, sprite);
+		return view;
+	}
+
+	/**
+	 * Turns a view of the atlas to another icon, so a cell can keep one view for every icon it shows
+	 *
+	 * @param view A view made by createView().
+	 * @param sprite The icon to show.
+	 */
+	public void setSprite(ImageView view, Sprite sprite) {
+		view.setViewport(viewports[sprite.ordinal()]);
+		view.setFitWidth(logicalSize(sprite));
+		view.setFitHeight(logicalSize(sprite));
+	}
+
+	/**
+	 * @return The atlas image, for renderers that draw icons themselves.
+	 */
+	public Image getImage() {
+		return image;
+	}
+
+	/**
+	 * @return The region of the atlas image holding an icon, in pixels.
+	 */
+	public Rectangle2D getViewport(Sprite sprite) {
+		return viewports[sprite.ordinal()];
+	}
+
+	public int getCellSize() {
+		return cellSize;
+	}
+
+	public double getOutputScale() {
+		return outputScale;
+	}
+}
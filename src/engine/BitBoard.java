@@ -0,0 +1,248 @@
+package engine;
+
+import java.util.Arrays;
+
+/**
+ * BitBoard Class
+ * Packed storage for the layers of a RunesReaper board.
+ *
+ * Each layer (playable, fire, revealed, flagged, gem) is a bitplane of one bit per cell,
+ * stored row by row in a long[] where every row starts on a new word.
+ * The number of fires around each cell is kept in four more bitplanes holding the
+ * bits of the count (bit-sliced), so a 10,000x10,000 board with all its layers and fire counts
+ * fits in about 110 MB, where boolean[][] arrays would need over 500 MB.
+ *
+ * Neighbour Count Implementation
+ * 1) For each word of a row, the eight neighbour bitvectors are built by shifting the words
+ *    of the row above, the row itself and the row below one column left and right,
+ *    carrying the bit that crosses into the next or previous word
+ * 2) The eight vectors are added into the four count planes with a carry-save adder tree,
+ *    so 64 cells are counted with a few dozen word operations and no per-cell branches
+ */
+public final class BitBoard {
+
+	//Layers
+	public static final int PLAYABLE = 0;//Cell is part of the board
+	public static final int FIRE = 1;//Cell has fire
+	public static final int REVEALED = 2;//Cell is revealed
+	public static final int FLAGGED = 3;//Cell is flagged
+	public static final int GEM = 4;//A gem is lying on the cell
+	public static final int LAYERS = 5;
+
+	//Bits needed to count up to 8 neighbours
+	private static final int COUNT_BITS = 4;
+
+	private final int width;
+	private final int height;
+	private final int wordsPerRow;
+	private final long lastWordMask;//Valid bits of the last word of each row
+	private final long[][] layers = new long[LAYERS][];
+	private final long[][] counts = new long[COUNT_BITS][];
+
+	/**
+	 * Creates an empty board
+	 *
+	 * @param width Number of columns.
+	 * @param height Number of rows.
+	 */
+	public BitBoard(int width, int height) {
+		if (width <= 0 || height <= 0) {
+			throw new IllegalArgumentException("Board size must be positive: " + width + "x" + height);
+		}
+		this.width = width;
+		this.height = height;
+		this.wordsPerRow = (width + 63) >>> 6;
+		this.lastWordMask = (width & 63) == 0 ? -1L : (1L << (width & 63)) - 1;
+		int words = Math.multiplyExact(wordsPerRow, height);
+		for (int layer = 0; layer < LAYERS; layer++) {
+			layers[layer] = new long[words];
+		}
+		for (int bit = 0; bit < COUNT_BITS; bit++) {
+			counts[bit] = new long[words];
+		}
+	}
+
+	/**
+	 * @return true if the bit of a cell is set in a layer.
+	 */
+	public boolean get(int layer, int row, int col) {
+		//Shifts use the low 6 bits of col, which is the position inside the word
+		return (layers[layer][row * wordsPerRow + (col >>> 6)] >>> col & 1L) != 0;
+	}
+
+	/**
+	 * Sets the bit of a cell in a layer
+	 */
+	public void set(int layer, int row, int col) {
+		layers[layer][row * wordsPerRow + (col >>> 6)] |= 1L << col;
+	}
+
+	/**
+	 * Clears the bit of a cell in a layer
+	 */
+	public void clear(int layer, int row, int col) {
+		layers[layer][row * wordsPerRow + (col >>> 6)] &= ~(1L << col);
+	}
+
+	/**
+	 * Flips the bit of a cell in a layer
+	 *
+	 * @return The new value of the bit.
+	 */
+	public boolean flip(int layer, int row, int col) {
+		int word = row * wordsPerRow + (col >>> 6);
+		layers[layer][word] ^= 1L << col;
+		return (layers[layer][word] >>> col & 1L) != 0;
+	}
+
+	/**
+	 * Clears every bit of a layer
+	 */
+	public void clearLayer(int layer) {
+		Arrays.fill(layers[layer], 0L);
+	}
+
+	/**
+	 * Copies the words of a layer, e.g. to save it on another thread while the game goes on
+	 *
+	 * @return The words, row after row, every row starting on a new word.
+	 */
+	public long[] copyLayer(int layer) {
+		return layers[layer].clone();
+	}
+
+	/**
+	 * Replaces the words of a layer with words from copyLayer() of a board of the same size.
+	 * Bits of cells outside the PLAYABLE layer are dropped.
+	 *
+	 * @param words The words, copied into the layer.
+	 */
+	public void loadLayer(int layer, long[] words) {
+		long[] target = layers[layer];
+		if (words.length != target.length) {
+			throw new IllegalArgumentException("Expected " + target.length + " words, got " + words.length);
+		}
+		long[] playable = layers[PLAYABLE];
+		for (int i = 0; i < words.length; i++) {
+			target[i] = words[i] & playable[i];
+		}
+	}
+
+	/**
+	 * @return The number of cells set in a layer.
+	 */
+	public int cardinality(int layer) {
+		int count = 0;
+		for (long word : layers[layer]) {
+			count += Long.bitCount(word);
+		}
+		return count;
+	}
+
+	/**
+	 * Recomputes the number of fires around every cell.
+	 * Must be called after the FIRE layer changes and before neighbourCount() is used.
+	 */
+	public void countNeighbours() {
+		long[] fire = layers[FIRE];
+		for (int row = 0; row < height; row++) {
+			int up = (row - 1) * wordsPerRow;
+			int mid = row * wordsPerRow;
+			int down = (row + 1) * wordsPerRow;
+			boolean hasUp = row > 0;
+			boolean hasDown = row + 1 < height;
+
+			for (int k = 0; k < wordsPerRow; k++) {
+				boolean hasPrev = k > 0;
+				boolean hasNext = k + 1 < wordsPerRow;
+
+				//Words of the rows above and below (0 outside the board)
+				long upWord = hasUp ? fire[up + k] : 0L;
+				long upPrev = hasUp && hasPrev ? fire[up + k - 1] : 0L;
+				long upNext = hasUp && hasNext ? fire[up + k + 1] : 0L;
+				long downWord = hasDown ? fire[down + k] : 0L;
+				long downPrev = hasDown && hasPrev ? fire[down + k - 1] : 0L;
+				long downNext = hasDown && hasNext ? fire[down + k + 1] : 0L;
+				long midWord = fire[mid + k];
+				long midPrev = hasPrev ? fire[mid + k - 1] : 0L;
+				long midNext = hasNext ? fire[mid + k + 1] : 0L;
+
+				//The eight neighbours: bit c of each vector is the neighbour of column c
+				long n1 = upWord;
+				long n2 = (upWord << 1) | (upPrev >>> 63);
+				long n3 = (upWord >>> 1) | (upNext << 63);
+				long n4 = (midWord << 1) | (midPrev >>> 63);
+				long n5 = (midWord >>> 1) | (midNext << 63);
+				long n6 = downWord;
+				long n7 = (downWord << 1) | (downPrev >>> 63);
+				long n8 = (downWord >>> 1) | (downNext << 63);
+
+				//Carry-save adder tree summing the eight vectors into four count bits
+				long s1 = n1 ^ n2 ^ n3;
+				long carry1 = (n1 & n2) | (n3 & (n1 ^ n2));
+				long s2 = n4 ^ n5 ^ n6;
+				long carry2 = (n4 & n5) | (n6 & (n4 ^ n5));
+				long s3 = n7 ^ n8;
+				long carry3 = n7 & n8;
+				long ones = s1 ^ s2 ^ s3;
+				long carryA = (s1 & s2) | (s3 & (s1 ^ s2));
+				long t = carry1 ^ carry2 ^ carry3;
+				long carryB = (carry1 & carry2) | (carry3 & (carry1 ^ carry2));
+				long twos = t ^ carryA;
+				long carryC = t & carryA;
+
+				//Bits past the last column are not cells
+				long mask = hasNext ? -1L : lastWordMask;
+				counts[0][mid + k] = ones & mask;
+				counts[1][mid + k] = twos & mask;
+				counts[2][mid + k] = (carryB ^ carryC) & mask;
+				counts[3][mid + k] = (carryB & carryC) & mask;
+			}
+		}
+	}
+
+	/**
+	 * Stores the fire count of a cell directly.
+	 * Used by boards whose neighbours are not the 8 surrounding grid cells (hex, torus),
+	 * where the counts are computed from the neighbour table instead of countNeighbours().
+	 *
+	 * @param count The count, from 0 to 15.
+	 */
+	public void setNeighbourCount(int row, int col, int count) {
+		int word = row * wordsPerRow + (col >>> 6);
+		long bit = 1L << col;
+		for (int i = 0; i < COUNT_BITS; i++) {
+			if ((count >>> i & 1) != 0) {
+				counts[i][word] |= bit;
+			} else {
+				counts[i][word] &= ~bit;
+			}
+		}
+	}
+
+	/**
+	 * @return The number of fires around a cell, as computed by the last countNeighbours() or setNeighbourCount().
+	 */
+	public int neighbourCount(int row, int col) {
+		int word = row * wordsPerRow + (col >>> 6);
+		return (int) ((counts[0][word] >>> col & 1L)
+				| (counts[1][word] >>> col & 1L) << 1
+				| (counts[2][word] >>> col & 1L) << 2
+				| (counts[3][word] >>> col & 1L) << 3);
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * @return Approximate heap size of the board in bytes.
+	 */
+	public long memoryBytes() {
+		return (long) (LAYERS + COUNT_BITS) * wordsPerRow * height * Long.BYTES;
+	}
+}
@@ -0,0 +1,666 @@
+package engine;
+
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+
+/**
+ * BoardSolver Class
+ * Works out which hidden cells are certainly safe and which are certainly fire, from what the player
+ * can see: the numbers of the opened cells and the fires already revealed (frozen).
+ * Flags are only the player's guesses, so they are ignored.
+ *
+ * Every opened cell with hidden neighbours is a constraint: those neighbours hold exactly its number
+ * minus the fires known around it. The cells are referred to by their compact index in the topology.
+ *
+ * Solver Implementation
+ * 1) Propagation: cells opened or revealed since the last call queue the constraints around them.
+ *    A constraint with no fires left proves its hidden neighbours safe, one with as many fires left as
+ *    hidden neighbours proves them all fire
+ * 2) Subset and coupling: a queued constraint A is compared with each constraint B sharing a hidden cell.
+ *    If B needs exactly as many more fires than A as B has cells outside A, those cells are all fire and
+ *    A's cells outside B are all safe (a subset is the case where A has no cells outside B)
+ * 3) Proofs are kept for the whole game; a proven cell queues the constraints around it again,
+ *    until the queue is empty
+ * 4) Only when propagation has no safe cell and no new fire to show, windows of up to MAX_WINDOW_CELLS
+ *    frontier cells are enumerated by backtracking over the constraints touching them. A cell that is fire in every or
+ *    in no arrangement is proven, and the counts give the odds used to suggest the best guess
+ * 5) A window gives up after MAX_WINDOW_STEPS backtracking steps, and the enumeration stops at the
+ *    query's deadline or as soon as the query is cancelled. Without a deadline the answer only depends
+ *    on the board, which NoGuessGenerator relies on to validate boards the same way on every machine
+ *
+ * The total number of fires only proves cells at the very end, when every fire is known or every hidden
+ * cell must be one. Arrangements are counted without weighting them by it, and it only gives the odds of
+ * hidden cells away from the frontier; the odds are estimates, the proofs are exact.
+ * A solver is not thread safe: ClairvoyanceService keeps it on a thread of its own.
+ */
+public final class BoardSolver {
+
+	//Time a query may spend enumerating, well within a 60 Hz frame
+	public static final long QUERY_BUDGET_NANOS = 12_000_000;
+	//Most hidden cells enumerated together
+	public static final int MAX_WINDOW_CELLS = 16;
+	//Most backtracking steps spent on one window
+	public static final int MAX_WINDOW_STEPS = 1 << 17;
+	//Backtracking steps between two checks of the deadline and cancellation
+	private static final int CHECK_INTERVAL = 1024;
+
+	//What the player knows about each cell
+	private static final byte UNKNOWN = 0;
+	private static final byte OPEN = 1;//Opened, its number is known
+	private static final byte SEEN_FIRE = 2;//Fire revealed on the board
+	private static final byte PROVEN_FIRE = 3;//Hidden, but certainly a fire
+	private static final byte PROVEN_SAFE = 4;//Hidden, but certainly safe
+
+	private final BoardTopology topology;
+	private final int numFires;
+	private final byte[] state;
+	private final byte[] number;//Number of the opened cells
+	private int unknownCells;
+	private int knownFires = 0;//Seen and proven fires
+	private int provenSafe = 0;//Proven safe cells still hidden
+	private int provenFire = 0;//Proven fires still hidden
+	private int newFires = 0;//Fires proven since the last hint, at most provenFire
+
+	//Constraints waiting to be propagated, a ring of opened cells
+	private final int[] queue;
+	private final boolean[] queued;
+	private int queueHead = 0;
+	private int queueSize = 0;
+
+	//Scratch lists of hidden neighbours and the visit marks of the coupling and windows
+	private final int[] hiddenA;
+	private final int[] hiddenB;
+	private final int[] mark;
+	private int markValue = 0;
+
+	//Enumeration window: its cells (local index -> cell), the cell -> local index map and its constraints
+	private final int[] windowCells = new int[MAX_WINDOW_CELLS];
+	private final int[] localIndex;
+	private int windowSize;
+	private final int[] windowConstraints;
+	private final int[][] constraintCells;
+	private final int[] constraintSize;
+	private final int[] constraintMin;
+	private final int[] constraintMax;
+	private final int[] constraintFires;
+	private final int[] constraintLeft;
+	private int constraintCount;
+	private final int[][] cellConstraints;
+	private final int[] cellConstraintCount = new int[MAX_WINDOW_CELLS];
+	private final boolean[] assigned = new boolean[MAX_WINDOW_CELLS];
+	private final long[] fireArrangements = new long[MAX_WINDOW_CELLS];
+	private long arrangements;
+	private int steps;
+	private boolean aborted;
+	private final int[] coveredMark;
+	private int coveredValue = 0;
+
+	//Best guess found by the last enumeration
+	private int guessCell;
+	private double guessFireChance;
+
+	/**
+	 * Creates a solver for a new game, with every cell hidden
+	 *
+	 * @param topology The board.
+	 * @param numFires Number of fires on the board.
+	 */
+	public BoardSolver(BoardTopology topology, int numFires) {
+		this.topology = topology;
+		this.numFires = numFires;
+		int cells = topology.getCellCount();
+		int degree = topology.getMaxDegree();
+		state = new byte[cells];
+		number = new byte[cells];
+		unknownCells = cells;
+		queue = new int[cells];
+		queued = new boolean[cells];
+		hiddenA = new int[degree];
+		hiddenB = new int[degree];
+		mark = new int[cells];
+		coveredMark = new int[cells];
+		localIndex = new int[cells];
+		Arrays.fill(localIndex, -1);
+
+		int maxConstraints = MAX_WINDOW_CELLS * degree;
+		windowConstraints = new int[maxConstraints];
+		constraintCells = new int[maxConstraints][degree];
+		constraintSize = new int[maxConstraints];
+		constraintMin = new int[maxConstraints];
+		constraintMax = new int[maxConstraints];
+		constraintFires = new int[maxConstraints];
+		constraintLeft = new int[maxConstraints];
+		cellConstraints = new int[MAX_WINDOW_CELLS][degree];
+	}
+
+	/**
+	 * Forgets everything, as if every cell was hidden again, so the solver can be reused for another board
+	 */
+	public void reset() {
+		Arrays.fill(state, UNKNOWN);
+		Arrays.fill(queued, false);
+		unknownCells = state.length;
+		knownFires = 0;
+		provenSafe = 0;
+		provenFire = 0;
+		newFires = 0;
+		queueHead = 0;
+		queueSize = 0;
+	}
+
+	/**
+	 * Records an opened cell
+	 *
+	 * @param cell Compact index of the cell.
+	 * @param adjacentFires The number shown on the cell.
+	 */
+	public void cellOpened(int cell, int adjacentFires) {
+		byte previous = state[cell];
+		if (previous == OPEN) return;
+		if (previous == UNKNOWN) {
+			unknownCells--;
+		} else if (previous == PROVEN_SAFE) {
+			provenSafe--;
+		}
+		state[cell] = OPEN;
+		number[cell] = (byte) adjacentFires;
+		enqueue(cell);
+		queueOpenNeighbours(cell);
+	}
+
+	/**
+	 * Records a fire revealed on the board, e.g. frozen by a Life Potion or Clairvoyance
+	 *
+	 * @param cell Compact index of the cell.
+	 */
+	public void fireRevealed(int cell) {
+		byte previous = state[cell];
+		if (previous == SEEN_FIRE) return;
+		if (previous == UNKNOWN) {
+			unknownCells--;
+			knownFires++;
+		} else if (previous == PROVEN_FIRE) {
+			provenFire--;
+			newFires = Math.min(newFires, provenFire);
+		}
+		state[cell] = SEEN_FIRE;
+		queueOpenNeighbours(cell);
+	}
+
+	/**
+	 * Propagates the queued constraints until nothing more can be proven
+	 *
+	 * @param cancelled Polled between constraints.
+	 * @return false if cancelled before the queue was empty, the rest stays queued for the next call.
+	 */
+	public boolean propagate(BooleanSupplier cancelled) {
+		while (queueSize > 0) {
+			if ((queueSize & (CHECK_INTERVAL - 1)) == 0 && cancelled.getAsBoolean()) {
+				return false;
+			}
+			int c = queue[queueHead];
+			queueHead = (queueHead + 1) % queue.length;
+			queueSize--;
+			queued[c] = false;
+			propagateConstraint(c);
+		}
+		return true;
+	}
+
+	/**
+	 * Answers a Clairvoyance query within QUERY_BUDGET_NANOS
+	 *
+	 * @param cancelled Polled while solving, the query gives up as soon as it returns true.
+	 * @return The hint, or null if the query was cancelled.
+	 */
+	public Hint solve(BooleanSupplier cancelled) {
+		return solve(cancelled, QUERY_BUDGET_NANOS);
+	}
+
+	/**
+	 * Answers a query: the proven cells, or the best guess if no hidden cell is certain.
+	 * Proven fires stay hidden for the rest of the game, so they only make a PROVEN answer while they are new:
+	 * once they have been answered, the query looks for safe cells again and otherwise answers GUESS.
+	 *
+	 * @param cancelled Polled while solving, the query gives up as soon as it returns true.
+	 * @param budgetNanos Time the enumeration may take, 0 or less for no deadline.
+	 * @return The hint, or null if the query was cancelled.
+	 */
+	public Hint solve(BooleanSupplier cancelled, long budgetNanos) {
+		long deadline = budgetNanos > 0 ? System.nanoTime() + budgetNanos : Long.MAX_VALUE;
+		if (!propagate(cancelled)) return null;
+
+		guessCell = -1;
+		guessFireChance = 1;
+		if (provenSafe == 0 && newFires == 0) {
+			//Once every fire is known the other hidden cells are safe, and once the hidden cells
+			//are as many as the fires left they are all fire
+			int firesLeft = numFires - knownFires;
+			if (unknownCells > 0 && (firesLeft == 0 || firesLeft == unknownCells)) {
+				byte proof = firesLeft == 0 ? PROVEN_SAFE : PROVEN_FIRE;
+				for (int c = 0; c < state.length; c++) {
+					prove(c, proof);
+				}
+			} else {
+				//Propagation alone found nothing new, try the arrangements of the frontier
+				if (!enumerate(cancelled, deadline) || !propagate(cancelled)) return null;
+			}
+		}
+		if (provenSafe + newFires > 0) {
+			return provenHint();
+		}
+		return guessHint();
+	}
+
+	/**
+	 * @return The proven cells still hidden, after which their fires are no longer new.
+	 */
+	private Hint provenHint() {
+		newFires = 0;
+		int[] safeCells = new int[provenSafe];
+		int[] fireCells = new int[provenFire];
+		int safe = 0;
+		int fire = 0;
+		for (int c = 0; c < state.length; c++) {
+			if (state[c] == PROVEN_SAFE) {
+				safeCells[safe++] = c;
+			} else if (state[c] == PROVEN_FIRE) {
+				fireCells[fire++] = c;
+			}
+		}
+		return new Hint(Hint.PROVEN, safeCells, fireCells, -1, 0);
+	}
+
+	/**
+	 * @return The guess with the lowest odds of fire: the best frontier cell from the enumeration,
+	 * or a hidden cell away from the frontier if the remaining fires are spread thinner there.
+	 */
+	private Hint guessHint() {
+		double density = unknownCells > 0 ? (double) (numFires - knownFires) / unknownCells : 1;
+		if (guessCell < 0 || density < guessFireChance) {
+			for (int c = 0; c < state.length; c++) {
+				if (state[c] == UNKNOWN && !hasOpenNeighbour(c)) {
+					guessCell = c;
+					guessFireChance = density;
+					break;
+				}
+			}
+		}
+		return new Hint(Hint.GUESS, new int[0], new int[0], guessCell, Math.max(0, Math.min(1, guessFireChance)));
+	}
+
+	/**
+	 * Applies the single constraint rules to an opened cell, then couples it with its neighbouring constraints
+	 */
+	private void propagateConstraint(int c) {
+		int hidden = hiddenNeighbours(c, hiddenA);
+		if (hidden == 0) return;
+		int left = firesLeft(c);
+		if (left == 0 || left == hidden) {
+			byte proof = left == 0 ? PROVEN_SAFE : PROVEN_FIRE;
+			for (int i = 0; i < hidden; i++) {
+				prove(hiddenA[i], proof);
+			}
+			return;
+		}
+
+		//Subset and coupling with every opened cell sharing a hidden neighbour
+		markValue++;
+		mark[c] = markValue;
+		for (int i = 0; i < hidden; i++) {
+			int h = hiddenA[i];
+			for (int j = topology.neighbourStart(h), end = topology.neighbourEnd(h); j < end; j++) {
+				int other = topology.neighbour(j);
+				if (state[other] != OPEN || mark[other] == markValue) continue;
+				mark[other] = markValue;
+				//A proof changes the hidden neighbours of c, which is queued again by prove()
+				if (couple(hidden, left, other)) return;
+			}
+		}
+	}
+
+	/**
+	 * Compares the constraint in hiddenA with the constraint of another opened cell
+	 *
+	 * @param hidden Number of hidden neighbours in hiddenA.
+	 * @param left Fires left among them.
+	 * @param other The other opened cell.
+	 * @return true if cells were proven.
+	 */
+	private boolean couple(int hidden, int left, int other) {
+		int otherHidden = hiddenNeighbours(other, hiddenB);
+		if (otherHidden == 0) return false;
+		int otherLeft = firesLeft(other);
+		int onlyA = countOutside(hiddenA, hidden, hiddenB, otherHidden);
+		int onlyB = countOutside(hiddenB, otherHidden, hiddenA, hidden);
+		if (onlyA + onlyB == 0) return false;
+
+		//B needs (otherLeft - left) more fires than A, which only its onlyB cells can hold
+		if (otherLeft - left == onlyB) {
+			proveOutside(hiddenB, otherHidden, hiddenA, hidden, PROVEN_FIRE);
+			proveOutside(hiddenA, hidden, hiddenB, otherHidden, PROVEN_SAFE);
+			return true;
+		}
+		if (left - otherLeft == onlyA) {
+			proveOutside(hiddenA, hidden, hiddenB, otherHidden, PROVEN_FIRE);
+			proveOutside(hiddenB, otherHidden, hiddenA, hidden, PROVEN_SAFE);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Enumerates windows of frontier cells, proving the cells that are the same in every arrangement
+	 *
+	 * @return false if cancelled.
+	 */
+	private boolean enumerate(BooleanSupplier cancelled, long deadline) {
+		//Constraints already wholly inside a window are not used to start another one
+		coveredValue++;
+		for (int c = 0; c < state.length; c++) {
+			if (state[c] != OPEN || coveredMark[c] == coveredValue || hiddenNeighbours(c, hiddenA) == 0) continue;
+			if (cancelled.getAsBoolean()) return false;
+			if (System.nanoTime() > deadline) return true;
+
+			buildWindow(c);
+			steps = 0;
+			aborted = false;
+			arrangements = 0;
+			Arrays.fill(fireArrangements, 0, windowSize, 0);
+			Arrays.fill(constraintFires, 0, constraintCount, 0);
+			for (int k = 0; k < constraintCount; k++) {
+				constraintLeft[k] = constraintSize[k];
+			}
+			arrange(0, cancelled, deadline);
+
+			if (!aborted && arrangements > 0) {
+				for (int i = 0; i < windowSize; i++) {
+					int cell = windowCells[i];
+					if (fireArrangements[i] == 0) {
+						prove(cell, PROVEN_SAFE);
+					} else if (fireArrangements[i] == arrangements) {
+						prove(cell, PROVEN_FIRE);
+					} else {
+						double chance = (double) fireArrangements[i] / arrangements;
+						if (chance < guessFireChance) {
+							guessFireChance = chance;
+							guessCell = cell;
+						}
+					}
+				}
+			}
+			for (int i = 0; i < windowSize; i++) {
+				localIndex[windowCells[i]] = -1;
+			}
+			if (aborted && cancelled.getAsBoolean()) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Gathers up to MAX_WINDOW_CELLS hidden cells around an opened cell, spreading through the
+	 * constraints they share, and the constraints touching them.
+	 * A constraint with hidden cells outside the window still bounds the fires inside it.
+	 */
+	private void buildWindow(int seed) {
+		windowSize = 0;
+		constraintCount = 0;
+		markValue++;
+		mark[seed] = markValue;
+		windowConstraints[constraintCount++] = seed;
+		//Breadth first through the constraints, windowConstraints doubles as the queue
+		for (int head = 0; head < constraintCount; head++) {
+			int hidden = hiddenNeighbours(windowConstraints[head], hiddenA);
+			for (int i = 0; i < hidden && windowSize < MAX_WINDOW_CELLS; i++) {
+				int h = hiddenA[i];
+				if (localIndex[h] >= 0) continue;
+				localIndex[h] = windowSize;
+				windowCells[windowSize++] = h;
+				for (int j = topology.neighbourStart(h), end = topology.neighbourEnd(h); j < end; j++) {
+					int other = topology.neighbour(j);
+					if (state[other] == OPEN && mark[other] != markValue && constraintCount < windowConstraints.length) {
+						mark[other] = markValue;
+						windowConstraints[constraintCount++] = other;
+					}
+				}
+			}
+		}
+
+		//Each constraint keeps its cells inside the window and the bounds on their fires
+		Arrays.fill(cellConstraintCount, 0, windowSize, 0);
+		for (int k = 0; k < constraintCount; k++) {
+			int c = windowConstraints[k];
+			int hidden = hiddenNeighbours(c, hiddenA);
+			int inside = 0;
+			for (int i = 0; i < hidden; i++) {
+				int local = localIndex[hiddenA[i]];
+				if (local >= 0) {
+					constraintCells[k][inside++] = local;
+					cellConstraints[local][cellConstraintCount[local]++] = k;
+				}
+			}
+			int left = firesLeft(c);
+			int outside = hidden - inside;
+			constraintSize[k] = inside;
+			constraintMin[k] = Math.max(0, left - outside);
+			constraintMax[k] = Math.min(inside, left);
+			if (outside == 0) {
+				coveredMark[c] = coveredValue;
+			}
+		}
+	}
+
+	/**
+	 * Tries both values for the window cell at index i and the cells after it, counting the arrangements
+	 * that meet every constraint
+	 */
+	private void arrange(int i, BooleanSupplier cancelled, long deadline) {
+		if (aborted) return;
+		if (++steps > MAX_WINDOW_STEPS) {
+			aborted = true;
+			return;
+		}
+		if (steps % CHECK_INTERVAL == 0 && (System.nanoTime() > deadline || cancelled.getAsBoolean())) {
+			aborted = true;
+			return;
+		}
+		if (i == windowSize) {
+			arrangements++;
+			for (int j = 0; j < windowSize; j++) {
+				if (assigned[j]) {
+					fireArrangements[j]++;
+				}
+			}
+			return;
+		}
+		for (int value = 0; value <= 1; value++) {
+			assigned[i] = value == 1;
+			if (assign(i, value)) {
+				arrange(i + 1, cancelled, deadline);
+			}
+			unassign(i, value);
+		}
+	}
+
+	/**
+	 * Sets a window cell in its constraints
+	 *
+	 * @return false if a constraint can no longer be met.
+	 */
+	private boolean assign(int i, int value) {
+		boolean possible = true;
+		for (int j = 0; j < cellConstraintCount[i]; j++) {
+			int k = cellConstraints[i][j];
+			constraintFires[k] += value;
+			constraintLeft[k]--;
+			if (constraintFires[k] > constraintMax[k] || constraintFires[k] + constraintLeft[k] < constraintMin[k]) {
+				possible = false;
+			}
+		}
+		return possible;
+	}
+
+	private void unassign(int i, int value) {
+		for (int j = 0; j < cellConstraintCount[i]; j++) {
+			int k = cellConstraints[i][j];
+			constraintFires[k] -= value;
+			constraintLeft[k]++;
+		}
+	}
+
+	/**
+	 * Records a proof about a hidden cell and queues the constraints around it again
+	 */
+	private void prove(int cell, byte proof) {
+		if (state[cell] != UNKNOWN) return;
+		state[cell] = proof;
+		unknownCells--;
+		if (proof == PROVEN_FIRE) {
+			knownFires++;
+			provenFire++;
+			newFires++;
+		} else {
+			provenSafe++;
+		}
+		queueOpenNeighbours(cell);
+	}
+
+	/**
+	 * Proves the cells of list that are not in other
+	 */
+	private void proveOutside(int[] list, int size, int[] other, int otherSize, byte proof) {
+		for (int i = 0; i < size; i++) {
+			if (!contains(other, otherSize, list[i])) {
+				prove(list[i], proof);
+			}
+		}
+	}
+
+	private static int countOutside(int[] list, int size, int[] other, int otherSize) {
+		int outside = 0;
+		for (int i = 0; i < size; i++) {
+			if (!contains(other, otherSize, list[i])) {
+				outside++;
+			}
+		}
+		return outside;
+	}
+
+	private static boolean contains(int[] list, int size, int value) {
+		for (int i = 0; i < size; i++) {
+			if (list[i] == value) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Lists the neighbours of a cell that are hidden and not proven
+	 *
+	 * @return The number of cells written to out.
+	 */
+	private int hiddenNeighbours(int c, int[] out) {
+		int size = 0;
+		for (int i = topology.neighbourStart(c), end = topology.neighbourEnd(c); i < end; i++) {
+			int neighbour = topology.neighbour(i);
+			if (state[neighbour] == UNKNOWN) {
+				out[size++] = neighbour;
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * @return The fires around an opened cell that are not seen or proven yet.
+	 */
+	private int firesLeft(int c) {
+		int left = number[c];
+		for (int i = topology.neighbourStart(c), end = topology.neighbourEnd(c); i < end; i++) {
+			byte neighbour = state[topology.neighbour(i)];
+			if (neighbour == SEEN_FIRE || neighbour == PROVEN_FIRE) {
+				left--;
+			}
+		}
+		return left;
+	}
+
+	private boolean hasOpenNeighbour(int c) {
+		for (int i = topology.neighbourStart(c), end = topology.neighbourEnd(c); i < end; i++) {
+			if (state[topology.neighbour(i)] == OPEN) return true;
+		}
+		return false;
+	}
+
+	private void queueOpenNeighbours(int c) {
+		for (int i = topology.neighbourStart(c), end = topology.neighbourEnd(c); i < end; i++) {
+			int neighbour = topology.neighbour(i);
+			if (state[neighbour] == OPEN) {
+				enqueue(neighbour);
+			}
+		}
+	}
+
+	private void enqueue(int c) {
+		if (queued[c]) return;
+		queued[c] = true;
+		queue[(queueHead + queueSize) % queue.length] = c;
+		queueSize++;
+	}
+
+	/**
+	 * Hint Class
+	 * The answer to a Clairvoyance query, by compact cell index
+	 */
+	public static final class Hint {
+		public static final int PROVEN = 0;//Some hidden cells are certainly safe or certainly fire
+		public static final int GUESS = 1;//No hidden cell is certain, the player has to guess
+
+		private final int kind;
+		private final int[] safeCells;
+		private final int[] fireCells;
+		private final int guessCell;
+		private final double guessFireChance;
+
+		private Hint(int kind, int[] safeCells, int[] fireCells, int guessCell, double guessFireChance) {
+			this.kind = kind;
+			this.safeCells = safeCells;
+			this.fireCells = fireCells;
+			this.guessCell = guessCell;
+			this.guessFireChance = guessFireChance;
+		}
+
+		/**
+		 * @return PROVEN or GUESS.
+		 */
+		public int getKind() {
+			return kind;
+		}
+
+		/**
+		 * @return The hidden cells that are certainly safe.
+		 */
+		public int[] getSafeCells() {
+			return safeCells;
+		}
+
+		/**
+		 * @return The hidden cells that are certainly fire.
+		 */
+		public int[] getFireCells() {
+			return fireCells;
+		}
+
+		/**
+		 * @return The hidden cell with the lowest estimated odds of fire for a GUESS, or -1 if none is known.
+		 */
+		public int getGuessCell() {
+			return guessCell;
+		}
+
+		/**
+		 * @return The estimated odds of fire of the guess cell, between 0 and 1.
+		 */
+		public double getGuessFireChance() {
+			return guessFireChance;
+		}
+	}
+}
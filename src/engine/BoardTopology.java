@@ -0,0 +1,391 @@
+package engine;
+
+import java.util.Arrays;
+
+/**
+ * BoardTopology Class
+ * Describes the shape of a board: which cells of a width x height grid can be played and
+ * which cells are neighbours of each other.
+ *
+ * Playable cells are numbered 0 to getCellCount() - 1 in row order (the compact index).
+ * The neighbours of cell c are neighbour(i) for i from neighbourStart(c) to neighbourEnd(c) - 1.
+ * Code walking neighbours uses this table instead of its own 3x3 loop with bounds checks,
+ * so the same rules work on every shape.
+ *
+ * Neighbour Table Implementation
+ * 1) Circles and tori smaller than 3x3 precompute a CSR (compressed sparse row) table, with the row,
+ *    column and compact index of every cell
+ * 2) The other full grids store nothing per cell: the compact index is the grid position, and the table
+ *    is virtual, with MAX_SLOTS entries per cell. neighbour(i) finds the cell of entry i, then adds the
+ *    offset of its edge class (which sides of the grid it touches, and its row parity on hex boards)
+ * 3) The edge classes list the same offsets in the same order as the CSR table would,
+ *    so both tables give the same neighbours
+ * A 10,000x10,000 grid thus needs no topology memory, where the CSR table took around 4.8 GB.
+ *
+ * Available shapes:
+ * CIRCLE - the original round board, cells closer to the center than GRID_SIZE/2
+ * SQUARE - the full grid
+ * HEX - the full grid of hexagons, odd rows shifted half a cell to the right (6 neighbours)
+ * TORUS - the full grid with edges wrapping around to the opposite side
+ */
+public final class BoardTopology {
+
+	/**
+	 * Shapes of board
+	 */
+	public enum Shape {
+		CIRCLE, SQUARE, HEX, TORUS
+	}
+
+	//Neighbour offsets {row, col} for each kind of grid
+	private static final int[][] SQUARE_OFFSETS = {
+			{-1, -1}, {-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, -1}, {1, 0}, {1, 1}};
+	private static final int[][] HEX_EVEN_ROW_OFFSETS = {
+			{-1, -1}, {-1, 0}, {0, -1}, {0, 1}, {1, -1}, {1, 0}};
+	private static final int[][] HEX_ODD_ROW_OFFSETS = {
+			{-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, 0}, {1, 1}};
+
+	//Entries of the virtual neighbour table per cell, a power of two
+	private static final int SLOT_BITS = 3;
+	private static final int MAX_SLOTS = 1 << SLOT_BITS;
+
+	//Edge class bits of a cell of a virtual table
+	private static final int TOP = 1;
+	private static final int BOTTOM = 2;
+	private static final int LEFT = 4;
+	private static final int RIGHT = 8;
+	private static final int ODD_ROW = 16;
+	private static final int CLASSES = 32;
+
+	private final Shape shape;
+	private final int width;
+	private final int height;
+	private final int cellCount;
+	private final int[] rows;//Row of each playable cell, null for a virtual table
+	private final int[] cols;//Column of each playable cell, null for a virtual table
+	private final int[] indexOf;//Compact index of each grid position, -1 if not playable, null for a virtual table
+	private final int[] neighbourStart;//CSR offsets into neighbours, one more entry than cells, null for a virtual table
+	private final int[] neighbours;//Compact indices of the neighbours of every cell, cell after cell, null for a virtual table
+	private final int[][] classRows;//Row offsets of the neighbours of each edge class of a virtual table
+	private final int[][] classCols;//Column offsets of the neighbours of each edge class of a virtual table
+	private final int maxDegree;
+
+	/**
+	 * Creates a topology of the given shape on a size x size grid
+	 *
+	 * @param shape The shape of the board.
+	 * @param size Length of each side of the grid.
+	 * @return The topology.
+	 */
+	public static BoardTopology of(Shape shape, int size) {
+		return new BoardTopology(shape, size, size);
+	}
+
+	/**
+	 * Counts the playable cells of a board without building its topology,
+	 * e.g. to turn a fire density into a number of fires while the player edits the settings.
+	 *
+	 * @param shape The shape of the board.
+	 * @param size Length of each side of the grid.
+	 * @return The number of playable cells.
+	 */
+	public static int countCells(Shape shape, int size) {
+		if (shape != Shape.CIRCLE) return Math.multiplyExact(size, size);
+		int count = 0;
+		for (int row = 0; row < size; row++) {
+			for (int col = 0; col < size; col++) {
+				if (isInShape(shape, size, row, col)) count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @return The original circular board on a size x size grid.
+	 */
+	public static BoardTopology circle(int size) {
+		return of(Shape.CIRCLE, size);
+	}
+
+	private BoardTopology(Shape shape, int width, int height) {
+		if (width <= 0 || height <= 0) {
+			throw new IllegalArgumentException("Board size must be positive: " + width + "x" + height);
+		}
+		this.shape = shape;
+		this.width = width;
+		this.height = height;
+
+		if (shape != Shape.CIRCLE && (shape != Shape.TORUS || (width >= 3 && height >= 3))) {
+			//Virtual table: on smaller tori several offsets wrap onto the same cell, which only the CSR table removes
+			cellCount = Math.multiplyExact(width, height);
+			if (cellCount > Integer.MAX_VALUE >> SLOT_BITS) {
+				throw new IllegalArgumentException("Board too large: " + width + "x" + height);
+			}
+			rows = null;
+			cols = null;
+			indexOf = null;
+			neighbourStart = null;
+			neighbours = null;
+			classRows = new int[CLASSES][];
+			classCols = new int[CLASSES][];
+			for (int edges = 0; edges < CLASSES; edges++) {
+				int[][] offsets = offsets((edges & ODD_ROW) != 0 ? 1 : 0);
+				int n = 0;
+				int[] dRows = new int[offsets.length];
+				int[] dCols = new int[offsets.length];
+				for (int[] offset : offsets) {
+					if (shape != Shape.TORUS && !isInsideEdges(edges, offset[0], offset[1])) continue;
+					dRows[n] = offset[0];
+					dCols[n] = offset[1];
+					n++;
+				}
+				classRows[edges] = Arrays.copyOf(dRows, n);
+				classCols[edges] = Arrays.copyOf(dCols, n);
+			}
+			//Rows 1 and 2 and column 1 are the inner cells of both parities when the grid has any
+			int degree = 0;
+			for (int row : new int[] {0, 1, 2, height - 1}) {
+				for (int col : new int[] {0, 1, width - 1}) {
+					if (row < height && col < width) {
+						degree = Math.max(degree, classRows[edgeClass(row, col)].length);
+					}
+				}
+			}
+			maxDegree = degree;
+			return;
+		}
+		classRows = null;
+		classCols = null;
+
+		//Compact playable-cell index
+		indexOf = new int[Math.multiplyExact(width, height)];
+		Arrays.fill(indexOf, -1);
+		int count = 0;
+		for (int row = 0; row < height; row++) {
+			for (int col = 0; col < width; col++) {
+				if (isInShape(shape, width, row, col)) {
+					indexOf[row * width + col] = count++;
+				}
+			}
+		}
+		cellCount = count;
+		rows = new int[count];
+		cols = new int[count];
+		for (int position = 0; position < indexOf.length; position++) {
+			if (indexOf[position] >= 0) {
+				rows[indexOf[position]] = position / width;
+				cols[indexOf[position]] = position % width;
+			}
+		}
+
+		//CSR neighbour table, built in two passes: sizes first, then the entries
+		neighbourStart = new int[count + 1];
+		int[] scratch = new int[MAX_SLOTS];
+		int degree = 0;
+		for (int c = 0; c < count; c++) {
+			int n = collectNeighbours(c, scratch);
+			neighbourStart[c + 1] = neighbourStart[c] + n;
+			degree = Math.max(degree, n);
+		}
+		maxDegree = degree;
+		neighbours = new int[neighbourStart[count]];
+		for (int c = 0; c < count; c++) {
+			int n = collectNeighbours(c, scratch);
+			System.arraycopy(scratch, 0, neighbours, neighbourStart[c], n);
+		}
+	}
+
+	/**
+	 * @return true if the grid position is part of a board of this shape and width.
+	 */
+	private static boolean isInShape(Shape shape, int width, int row, int col) {
+		if (shape != Shape.CIRCLE) return true;
+		//A cell is added only if its distance from the center is less than the radius (compared squared)
+		int radius = width / 2;
+		int dRow = row - radius;
+		int dCol = col - radius;
+		return dRow * dRow + dCol * dCol < radius * radius;
+	}
+
+	/**
+	 * @return The neighbour offsets {row, col} of a row of the given parity.
+	 */
+	private int[][] offsets(int parity) {
+		if (shape != Shape.HEX) return SQUARE_OFFSETS;
+		return parity == 0 ? HEX_EVEN_ROW_OFFSETS : HEX_ODD_ROW_OFFSETS;
+	}
+
+	/**
+	 * @return true if an offset stays on the grid from a cell touching the given edges.
+	 */
+	private static boolean isInsideEdges(int edges, int dRow, int dCol) {
+		return !(dRow < 0 && (edges & TOP) != 0) && !(dRow > 0 && (edges & BOTTOM) != 0)
+				&& !(dCol < 0 && (edges & LEFT) != 0) && !(dCol > 0 && (edges & RIGHT) != 0);
+	}
+
+	/**
+	 * @return The edge class of a grid position: the edges of the grid it touches and its row parity.
+	 */
+	private int edgeClass(int row, int col) {
+		int edges = (row & 1) == 0 ? 0 : ODD_ROW;
+		if (row == 0) edges |= TOP;
+		if (row == height - 1) edges |= BOTTOM;
+		if (col == 0) edges |= LEFT;
+		if (col == width - 1) edges |= RIGHT;
+		return edges;
+	}
+
+	/**
+	 * Finds the distinct playable neighbours of a cell
+	 *
+	 * @param c Compact index of the cell.
+	 * @param out Receives the compact indices of the neighbours.
+	 * @return The number of neighbours.
+	 */
+	private int collectNeighbours(int c, int[] out) {
+		int row = row(c);
+		int col = col(c);
+		int n = 0;
+		for (int[] offset : offsets(row & 1)) {
+			int newRow = row + offset[0];
+			int newCol = col + offset[1];
+			if (shape == Shape.TORUS) {
+				newRow = Math.floorMod(newRow, height);
+				newCol = Math.floorMod(newCol, width);
+			}
+			int neighbour = cellAt(newRow, newCol);
+			//On very small tori several offsets wrap onto the same cell, or onto the cell itself
+			if (neighbour < 0 || neighbour == c || contains(out, n, neighbour)) continue;
+			out[n++] = neighbour;
+		}
+		return n;
+	}
+
+	private static boolean contains(int[] values, int size, int value) {
+		for (int i = 0; i < size; i++) {
+			if (values[i] == value) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @return The compact index of the cell at a grid position, or -1 if it is outside the grid or not playable.
+	 */
+	public int cellAt(int row, int col) {
+		if (row < 0 || row >= height || col < 0 || col >= width) return -1;
+		if (indexOf == null) return row * width + col;
+		return indexOf[row * width + col];
+	}
+
+	/**
+	 * @return The row of a cell given by its compact index.
+	 */
+	public int row(int c) {
+		if (rows == null) return c / width;
+		return rows[c];
+	}
+
+	/**
+	 * @return The column of a cell given by its compact index.
+	 */
+	public int col(int c) {
+		if (cols == null) return c % width;
+		return cols[c];
+	}
+
+	/**
+	 * @return Index of the first neighbour of cell c in the neighbour table.
+	 */
+	public int neighbourStart(int c) {
+		if (neighbourStart == null) return c << SLOT_BITS;
+		return neighbourStart[c];
+	}
+
+	/**
+	 * @return Index past the last neighbour of cell c in the neighbour table.
+	 */
+	public int neighbourEnd(int c) {
+		if (neighbourStart == null) {
+			int row = c / width;
+			return (c << SLOT_BITS) + classRows[edgeClass(row, c - row * width)].length;
+		}
+		return neighbourStart[c + 1];
+	}
+
+	/**
+	 * @return The compact index of the neighbour at position i of the neighbour table.
+	 */
+	public int neighbour(int i) {
+		if (neighbours != null) return neighbours[i];
+		int c = i >>> SLOT_BITS;
+		int slot = i & (MAX_SLOTS - 1);
+		int row = c / width;
+		int col = c - row * width;
+		int edges = edgeClass(row, col);
+		int newRow = row + classRows[edges][slot];
+		int newCol = col + classCols[edges][slot];
+		if (shape == Shape.TORUS) {
+			newRow = Math.floorMod(newRow, height);
+			newCol = Math.floorMod(newCol, width);
+		}
+		return newRow * width + newCol;
+	}
+
+	/**
+	 * Counts the rings of cells between two grid positions, the fewest neighbour steps from one to the other:
+	 * the Chebyshev distance on square grids, with the shorter way around each axis on a torus, and the
+	 * hexagon distance on hex boards. On a circle the board edge can make the walk longer.
+	 *
+	 * @return The distance, 0 for the same position.
+	 */
+	public int distance(int fromRow, int fromCol, int toRow, int toCol) {
+		int rowSteps = Math.abs(toRow - fromRow);
+		int colSteps = Math.abs(toCol - fromCol);
+		switch (shape) {
+			case TORUS:
+				return Math.max(Math.min(rowSteps, height - rowSteps), Math.min(colSteps, width - colSteps));
+			case HEX: {
+				//Cube coordinates of the shifted rows: x along the row, z down the rows and y = -x - z
+				int dx = (toCol - (toRow - (toRow & 1)) / 2) - (fromCol - (fromRow - (fromRow & 1)) / 2);
+				int dz = toRow - fromRow;
+				return Math.max(Math.max(Math.abs(dx), Math.abs(dz)), Math.abs(dx + dz));
+			}
+			default:
+				return Math.max(rowSteps, colSteps);
+		}
+	}
+
+	/**
+	 * @return true if neighbours are the 8 surrounding cells of a grid without wrapping,
+	 *         so fire counts can be computed with BitBoard.countNeighbours().
+	 */
+	public boolean isGridNeighbourhood() {
+		return shape == Shape.CIRCLE || shape == Shape.SQUARE;
+	}
+
+	public Shape getShape() {
+		return shape;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * @return The number of playable cells.
+	 */
+	public int getCellCount() {
+		return cellCount;
+	}
+
+	/**
+	 * @return The most neighbours any cell has (8, or 6 on hex boards).
+	 */
+	public int getMaxDegree() {
+		return maxDegree;
+	}
+}
@@ -0,0 +1,52 @@
+package engine;
+
+/**
+ * Economy Class
+ * The balance of the gem economy: how many gems a reveal may spawn and what the shop charges.
+ * The game plays with DEFAULT; a {@link Simulator} passes other economies to the engine to tune them.
+ *
+ * Replay logs and saved games don't store the economy, Replayer and GameSnapshot rebuild games with DEFAULT.
+ */
+public final class Economy {
+
+	public static final Economy DEFAULT = new Economy(
+			RunesEngine.MAX_GEMS_PER_REVEAL, RunesEngine.POTION_PRICE, RunesEngine.SPELL_PRICE);
+
+	private final int maxGemsPerReveal;
+	private final int potionPrice;
+	private final int spellPrice;
+
+	/**
+	 * @param maxGemsPerReveal Most gems spawned around an opened cell, each reveal spawns 0 to this many.
+	 * @param potionPrice Gems paid for a Life Potion, at least 1.
+	 * @param spellPrice Gems paid for a Clairvoyance Spell, at least 1.
+	 */
+	public Economy(int maxGemsPerReveal, int potionPrice, int spellPrice) {
+		if (maxGemsPerReveal < 0) {
+			throw new IllegalArgumentException("maxGemsPerReveal must not be negative: " + maxGemsPerReveal);
+		}
+		if (potionPrice < 1 || spellPrice < 1) {
+			throw new IllegalArgumentException("Prices must be at least 1 gem: " + potionPrice + ", " + spellPrice);
+		}
+		this.maxGemsPerReveal = maxGemsPerReveal;
+		this.potionPrice = potionPrice;
+		this.spellPrice = spellPrice;
+	}
+
+	public int getMaxGemsPerReveal() {
+		return maxGemsPerReveal;
+	}
+
+	public int getPotionPrice() {
+		return potionPrice;
+	}
+
+	public int getSpellPrice() {
+		return spellPrice;
+	}
+
+	@Override
+	public String toString() {
+		return "0-" + maxGemsPerReveal + " gems per reveal, potion " + potionPrice + ", spell " + spellPrice;
+	}
+}
@@ -0,0 +1,390 @@
+package engine;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * GameSnapshot Class
+ * A saved game in progress: the board, the gems lying on it, the inventory and the time played,
+ * so a game left through the Home button or by closing the window can be resumed later.
+ *
+ * Snapshot Implementation
+ * 1) capture() copies the words of the board layers and the counters, which takes well under a millisecond
+ *    even on a 1000x1000 board, so the game can go on while save() encodes and writes the copy on another thread
+ * 2) Fires placed from the seed of the game are saved as the seed and the first clicked cell, and placed
+ *    again on load. Other fires (e.g. a board dealt by NoGuessGenerator) are saved as a layer
+ * 3) Layers are saved as the lengths of their alternating runs of clear and set bits, as varints,
+ *    so the opened regions of a big board take a few bytes per run
+ * 4) save() deflates the snapshot into a temporary file next to the target and moves it over the target,
+ *    so a crash or a full disk never leaves a half written save behind
+ *
+ * File Format
+ * The magic bytes "RRSV" and the format version as a byte, then deflated: the board shape (ordinal of
+ * BoardTopology.Shape), size, number of fires and flags, the seed (8 bytes, big-endian), the first
+ * clicked cell + 1, the gems, Clairvoyance Spells and Life Potions of the player, the seconds played,
+ * the number of gems on the board and their cells, then the FIRE layer (only if FIRES_LISTED),
+ * the REVEALED layer and the FLAGGED layer. Numbers are varints, see ReplayLog.
+ * A layer is its number of words, then run lengths starting with a run of clear bits, until all bits are covered.
+ * Only the first run may be empty, when the first bit is set.
+ */
+public final class GameSnapshot {
+
+	public static final int VERSION = 1;
+	private static final byte[] MAGIC = {'R', 'R', 'S', 'V'};
+
+	//Flags
+	private static final int FIRST_CLICK_SAFE = 1;
+	private static final int FIRES_PENDING = 2;
+	private static final int FIRES_LISTED = 4;
+	private static final int CLAIRVOYANT = 8;
+
+	private final BoardTopology.Shape shape;
+	private final int size;
+	private final int numFires;
+	private final int flags;
+	private final long seed;
+	private final int firstCell;
+	private final int gemCount;
+	private final int hintsCount;
+	private final int potionCount;
+	private final int secondsElapsed;
+	private final int[] gemCells;
+	private final long[] fires;//null unless FIRES_LISTED
+	private final long[] revealed;
+	private final long[] flagged;
+
+	private GameSnapshot(BoardTopology.Shape shape, int size, int numFires, int flags, long seed, int firstCell,
+			int gemCount, int hintsCount, int potionCount, int secondsElapsed, int[] gemCells,
+			long[] fires, long[] revealed, long[] flagged) {
+		this.shape = shape;
+		this.size = size;
+		this.numFires = numFires;
+		this.flags = flags;
+		this.seed = seed;
+		this.firstCell = firstCell;
+		this.gemCount = gemCount;
+		this.hintsCount = hintsCount;
+		this.potionCount = potionCount;
+		this.secondsElapsed = secondsElapsed;
+		this.gemCells = gemCells;
+		this.fires = fires;
+		this.revealed = revealed;
+		this.flagged = flagged;
+	}
+
+	/**
+	 * Copies the state of a game, on the thread playing it
+	 *
+	 * @param engine The game, not over.
+	 * @param secondsElapsed Time played so far.
+	 * @return The snapshot, which no longer depends on the engine.
+	 */
+	public static GameSnapshot capture(RunesEngine engine, int secondsElapsed) {
+		BoardTopology topology = engine.getTopology();
+		BitBoard board = engine.getBoard();
+		boolean pending = engine.isFiresPending();
+		boolean listed = !pending && !engine.isFiresFromSeed();
+		int flags = (engine.isFirstClickSafe() ? FIRST_CLICK_SAFE : 0) | (pending ? FIRES_PENDING : 0)
+				| (listed ? FIRES_LISTED : 0) | (engine.isClairvoyant() ? CLAIRVOYANT : 0);
+		int[] gemCells = new int[engine.getLiveGemCount()];
+		for (int i = 0; i < gemCells.length; i++) {
+			gemCells[i] = topology.cellAt(engine.getLiveGemRow(i), engine.getLiveGemCol(i));
+		}
+		//A game placing its fires on the first click without a seed gets a seed now
+		long seed = engine.isSeeded() || engine.isFiresFromSeed() ? engine.getSeed() : new SplittableRandom().nextLong();
+		return new GameSnapshot(topology.getShape(), topology.getWidth(), engine.getNumFires(), flags,
+				seed, engine.getFirstCell(), engine.getGemCount(), engine.getHintsCount(), engine.getPotionCount(),
+				secondsElapsed, gemCells, listed ? board.copyLayer(BitBoard.FIRE) : null,
+				board.copyLayer(BitBoard.REVEALED), board.copyLayer(BitBoard.FLAGGED));
+	}
+
+	/**
+	 * Compares a game with the saved one, e.g. a game replayed from the replay log saved with it
+	 *
+	 * @param engine The game.
+	 * @return true if the game is in the saved state; the time played is not compared.
+	 */
+	public boolean matches(RunesEngine engine) {
+		GameSnapshot other = capture(engine, secondsElapsed);
+		int[] gems = gemCells.clone();
+		int[] otherGems = other.gemCells.clone();
+		Arrays.sort(gems);
+		Arrays.sort(otherGems);
+		return shape == other.shape && size == other.size && numFires == other.numFires && flags == other.flags
+				&& seed == other.seed && firstCell == other.firstCell && gemCount == other.gemCount
+				&& hintsCount == other.hintsCount && potionCount == other.potionCount && Arrays.equals(gems, otherGems)
+				&& Arrays.equals(fires, other.fires) && Arrays.equals(revealed, other.revealed)
+				&& Arrays.equals(flagged, other.flagged);
+	}
+
+	/**
+	 * Builds the saved game on a new engine
+	 *
+	 * @return The engine, ready to be played on.
+	 */
+	public RunesEngine restore() {
+		return restore(BoardTopology.of(shape, size));
+	}
+
+	/**
+	 * Builds the saved game on a new engine sharing a topology, since building the topology of a big board
+	 * takes far longer than restoring the game
+	 *
+	 * @param topology A topology of the shape and size of the snapshot.
+	 * @return The engine, ready to be played on.
+	 */
+	public RunesEngine restore(BoardTopology topology) {
+		if (topology.getShape() != shape || topology.getWidth() != size) {
+			throw new IllegalArgumentException("The topology doesn't have the board of the snapshot");
+		}
+		RunesEngine engine = new RunesEngine(topology, numFires, seed, (flags & FIRST_CLICK_SAFE) != 0);
+		if ((flags & FIRES_LISTED) != 0) {
+			//The fires are listed through the board, which drops bits outside it
+			engine.getBoard().loadLayer(BitBoard.FIRE, fires);
+			int[] fireCells = new int[numFires];
+			int count = 0;
+			for (int c = 0; c < topology.getCellCount(); c++) {
+				if (engine.isFire(topology.row(c), topology.col(c))) {
+					if (count == numFires) throw new IllegalArgumentException("More than " + numFires + " fires");
+					fireCells[count++] = c;
+				}
+			}
+			if (count != numFires) throw new IllegalArgumentException("Expected " + numFires + " fires, found " + count);
+			engine.newGame(fireCells);
+		} else if ((flags & FIRES_PENDING) == 0 && firstCell >= 0) {
+			engine.placeFiresAround(firstCell);
+		}
+		engine.restore(revealed, flagged, gemCells, gemCount, hintsCount, potionCount, (flags & CLAIRVOYANT) != 0);
+		return engine;
+	}
+
+	/**
+	 * Writes the snapshot to a file, replacing it atomically. May run on any thread.
+	 *
+	 * @param path The file.
+	 * @throws IOException if writing fails, the file is then left as it was.
+	 */
+	public void save(Path path) throws IOException {
+		Path dir = path.toAbsolutePath().getParent();
+		Files.createDirectories(dir);
+		Path temp = Files.createTempFile(dir, path.getFileName().toString(), ".tmp");
+		//Deflating at BEST_SPEED, the run lengths are already compact
+		Deflater compressor = new Deflater(Deflater.BEST_SPEED);
+		try {
+			try (OutputStream file = Files.newOutputStream(temp)) {
+				file.write(MAGIC);
+				file.write(VERSION);
+				DeflaterOutputStream deflater = new DeflaterOutputStream(file, compressor, 8192);
+				OutputStream out = new BufferedOutputStream(deflater, 8192);
+				write(out);
+				out.flush();
+				deflater.finish();
+			}
+			try {
+				Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			compressor.end();
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	private void write(OutputStream out) throws IOException {
+		writeVarint(out, shape.ordinal());
+		writeVarint(out, size);
+		writeVarint(out, numFires);
+		writeVarint(out, flags);
+		for (int shift = 56; shift >= 0; shift -= 8) {
+			out.write((int) (seed >>> shift));
+		}
+		writeVarint(out, firstCell + 1);
+		writeVarint(out, gemCount);
+		writeVarint(out, hintsCount);
+		writeVarint(out, potionCount);
+		writeVarint(out, secondsElapsed);
+		writeVarint(out, gemCells.length);
+		for (int gem : gemCells) {
+			writeVarint(out, gem);
+		}
+		if (fires != null) {
+			writeLayer(out, fires);
+		}
+		writeLayer(out, revealed);
+		writeLayer(out, flagged);
+	}
+
+	/**
+	 * Reads a snapshot written by save()
+	 *
+	 * @param path The file.
+	 * @return The snapshot.
+	 * @throws IOException if the file can't be read or is not a snapshot of a supported version.
+	 */
+	public static GameSnapshot load(Path path) throws IOException {
+		InputStream file = Files.newInputStream(path);
+		try (InputStream in = new BufferedInputStream(new InflaterInputStream(file), 8192)) {
+			for (byte b : MAGIC) {
+				if (file.read() != b) throw new IOException("Not a saved game: " + path);
+			}
+			int version = file.read();
+			if (version != VERSION) throw new IOException("Unsupported saved game version " + version + ": " + path);
+			return read(in);
+		} catch (RuntimeException e) {
+			throw new IOException("Corrupt saved game: " + path, e);
+		}
+	}
+
+	private static GameSnapshot read(InputStream in) throws IOException {
+		BoardTopology.Shape shape = BoardTopology.Shape.values()[readVarint(in)];
+		int size = readVarint(in);
+		int numFires = readVarint(in);
+		int flags = readVarint(in);
+		long seed = 0;
+		for (int i = 0; i < 8; i++) {
+			seed = (seed << 8) | readByte(in);
+		}
+		int firstCell = readVarint(in) - 1;
+		int gemCount = readVarint(in);
+		int hintsCount = readVarint(in);
+		int potionCount = readVarint(in);
+		int secondsElapsed = readVarint(in);
+		int[] gemCells = new int[readVarint(in)];
+		for (int i = 0; i < gemCells.length; i++) {
+			gemCells[i] = readVarint(in);
+		}
+		long[] fires = (flags & FIRES_LISTED) != 0 ? readLayer(in) : null;
+		long[] revealed = readLayer(in);
+		long[] flagged = readLayer(in);
+		return new GameSnapshot(shape, size, numFires, flags, seed, firstCell, gemCount, hintsCount, potionCount,
+				secondsElapsed, gemCells, fires, revealed, flagged);
+	}
+
+	/**
+	 * Writes a layer as the lengths of its runs of clear and set bits
+	 */
+	private static void writeLayer(OutputStream out, long[] words) throws IOException {
+		writeVarint(out, words.length);
+		long total = (long) words.length * Long.SIZE;
+		long position = 0;
+		boolean set = false;
+		while (position < total) {
+			long end = nextChange(words, position, set);
+			writeVarint(out, (int) (end - position));
+			position = end;
+			set = !set;
+		}
+	}
+
+	/**
+	 * @return The first bit at or after position that is not equal to set, or the number of bits if there is none.
+	 */
+	private static long nextChange(long[] words, long position, boolean set) {
+		int w = (int) (position >>> 6);
+		//Looks for the first set bit, in the inverted words if the run is of set bits
+		long word = (set ? ~words[w] : words[w]) & (-1L << position);
+		while (word == 0) {
+			if (++w == words.length) return (long) words.length * Long.SIZE;
+			word = set ? ~words[w] : words[w];
+		}
+		return (long) w * Long.SIZE + Long.numberOfTrailingZeros(word);
+	}
+
+	private static long[] readLayer(InputStream in) throws IOException {
+		long[] words = new long[readVarint(in)];
+		long total = (long) words.length * Long.SIZE;
+		long position = 0;
+		boolean set = false;
+		while (position < total) {
+			int run = readVarint(in);
+			//The first run, of clear bits, is empty when the first bit is set
+			boolean empty = run == 0 && (position > 0 || set);
+			if (run < 0 || empty || position + run > total) throw new IllegalArgumentException("Bad run length " + run);
+			if (set) {
+				setBits(words, position, position + run);
+			}
+			position += run;
+			set = !set;
+		}
+		return words;
+	}
+
+	/**
+	 * Sets the bits from start (inclusive) to end (exclusive), a word at a time
+	 */
+	private static void setBits(long[] words, long start, long end) {
+		int first = (int) (start >>> 6);
+		int last = (int) ((end - 1) >>> 6);
+		long firstMask = -1L << start;
+		long lastMask = -1L >>> -end;
+		if (first == last) {
+			words[first] |= firstMask & lastMask;
+			return;
+		}
+		words[first] |= firstMask;
+		for (int w = first + 1; w < last; w++) {
+			words[w] = -1L;
+		}
+		words[last] |= lastMask;
+	}
+
+	private static void writeVarint(OutputStream out, int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write(value);
+	}
+
+	private static int readVarint(InputStream in) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			int b = readByte(in);
+			value |= (b & 0x7F) << shift;
+			if (b < 0x80) return value;
+		}
+		throw new IOException("Varint too long");
+	}
+
+	private static int readByte(InputStream in) throws IOException {
+		int b = in.read();
+		if (b < 0) throw new EOFException("Saved game ends too early");
+		return b;
+	}
+
+	public BoardTopology.Shape getShape() {
+		return shape;
+	}
+
+	/**
+	 * @return Length of each side of the board.
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	public int getNumFires() {
+		return numFires;
+	}
+
+	/**
+	 * @return Time played before the game was saved.
+	 */
+	public int getSecondsElapsed() {
+		return secondsElapsed;
+	}
+}
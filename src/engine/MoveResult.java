@@ -0,0 +1,142 @@
+package engine;
+
+/**
+ * MoveResult Class
+ * Describes what changed on the board after a single player action on a {@link RunesEngine}.
+ *
+ * The result lists every cell whose state changed (opened, burnt or frozen) in the order
+ * in which the engine changed them, together with a few flags describing side effects
+ * such as a Life Potion being used or the game ending.
+ * Gem events are listed the same way: the gems removed from the board and the gems spawned
+ * by the reveal, so views only touch the cells that actually gained or lost a gem.
+ *
+ * A single instance is reused by the engine, so it is only valid until the next call
+ * that returns it. Views should read it right away and not keep a reference.
+ */
+public final class MoveResult {
+
+	//Kinds of cell changes
+	public static final int OPENED = 0;//A safe cell was opened, its number is engine.countAdjacentFires(row, col)
+	public static final int FIRE = 1;//A fire was triggered
+	public static final int FROZEN = 2;//A fire was revealed safely (by a Life Potion or Clairvoyance)
+	public static final int GEM_SPAWNED = 3;//A gem appeared on a hidden cell
+	public static final int GEM_REMOVED = 4;//A gem that was not collected disappeared from the board
+
+	private int[] rows = new int[16];
+	private int[] cols = new int[16];
+	private int[] kinds = new int[16];
+	private int size = 0;
+	private boolean potionUsed = false;
+	private boolean clairvoyanceUsed = false;
+	private boolean gameOver = false;
+	private boolean won = false;
+
+	/**
+	 * Clears the result so that it can be reused for the next action.
+	 */
+	void clear() {
+		size = 0;
+		potionUsed = false;
+		clairvoyanceUsed = false;
+		gameOver = false;
+		won = false;
+	}
+
+	/**
+	 * Records a changed cell
+	 *
+	 * @param row The row of the cell.
+	 * @param col The column of the cell.
+	 * @param kind One of OPENED, FIRE, FROZEN, GEM_SPAWNED or GEM_REMOVED.
+	 */
+	void add(int row, int col, int kind) {
+		if (size == rows.length) {
+			rows = java.util.Arrays.copyOf(rows, size * 2);
+			cols = java.util.Arrays.copyOf(cols, size * 2);
+			kinds = java.util.Arrays.copyOf(kinds, size * 2);
+		}
+		rows[size] = row;
+		cols[size] = col;
+		kinds[size] = kind;
+		size++;
+	}
+
+	void setPotionUsed() {
+		potionUsed = true;
+	}
+
+	void setClairvoyanceUsed() {
+		clairvoyanceUsed = true;
+	}
+
+	void setGameOver(boolean win) {
+		gameOver = true;
+		won = win;
+	}
+
+	/**
+	 * @return The number of cells changed by the action.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @param i Index of the change, from 0 to size() - 1.
+	 * @return The row of the changed cell.
+	 */
+	public int row(int i) {
+		return rows[i];
+	}
+
+	/**
+	 * @param i Index of the change, from 0 to size() - 1.
+	 * @return The column of the changed cell.
+	 */
+	public int col(int i) {
+		return cols[i];
+	}
+
+	/**
+	 * @param i Index of the change, from 0 to size() - 1.
+	 * @return The kind of change, one of OPENED, FIRE, FROZEN, GEM_SPAWNED or GEM_REMOVED.
+	 */
+	public int kind(int i) {
+		return kinds[i];
+	}
+
+	/**
+	 * @return true if nothing changed (the action was ignored).
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @return true if a Life Potion was used to survive a fire.
+	 */
+	public boolean isPotionUsed() {
+		return potionUsed;
+	}
+
+	/**
+	 * @return true if the active Clairvoyance Spell was used up by this action.
+	 */
+	public boolean isClairvoyanceUsed() {
+		return clairvoyanceUsed;
+	}
+
+	/**
+	 * @return true if the action ended the game.
+	 */
+	public boolean isGameOver() {
+		return gameOver;
+	}
+
+	/**
+	 * @return true if the action ended the game with a win.
+	 */
+	public boolean isWon() {
+		return won;
+	}
+}
@@ -0,0 +1,290 @@
+package engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * NoGuessGenerator Class
+ * Generates boards that can be cleared from a known first click without ever guessing: a BoardSolver,
+ * fed only what the player would see, keeps proving safe cells until every safe cell is open.
+ *
+ * Generator Implementation
+ * 1) Candidate k is dealt from candidateSeed(seed, k) with the same partial Fisher-Yates placement as
+ *    RunesEngine, keeping the first click and its neighbours free of fire
+ * 2) Every worker of the ForkJoinPool takes the next candidate number from a shared counter and validates
+ *    it with its own solver and scratch arrays. Workers share nothing else, so generation scales with the cores
+ * 3) A valid candidate lowers the shared best number. Workers stop taking numbers past it, but finish
+ *    the candidates below it, so the lowest valid number always wins
+ * 4) The board therefore only depends on the seed, not on the number of workers or their timing,
+ *    and deal() rebuilds it on one thread from its candidate seed
+ * 5) The search is bounded by time, not by a number of candidates, as a candidate costs more on larger
+ *    boards. Past the deadline workers take no new number but finish the one they hold; every number
+ *    below a valid one was taken before it, so a board found in time is still the lowest valid one
+ * 6) Validation opens the first click with the engine's cascade, then opens every cell the solver proves
+ *    safe, again and again; the board is valid once all safe cells are open
+ */
+public final class NoGuessGenerator {
+
+	//Time the search may take before giving up; a 16x16 board at 30% fire density takes around 80 000 candidates
+	public static final long SEARCH_BUDGET_NANOS = 5_000_000_000L;
+
+	private final BoardTopology topology;
+	private final int numFires;
+	private final ForkJoinPool pool;
+
+	/**
+	 * Creates a generator running on the common ForkJoinPool
+	 *
+	 * @param topology The board.
+	 * @param numFires Number of fires to place.
+	 */
+	public NoGuessGenerator(BoardTopology topology, int numFires) {
+		this(topology, numFires, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @param topology The board.
+	 * @param numFires Number of fires to place.
+	 * @param pool Pool running the workers, one per thread of its parallelism.
+	 */
+	public NoGuessGenerator(BoardTopology topology, int numFires, ForkJoinPool pool) {
+		this.topology = topology;
+		this.numFires = numFires;
+		this.pool = pool;
+	}
+
+	/**
+	 * Finds a board that can be cleared from the start cell without guessing, within SEARCH_BUDGET_NANOS
+	 *
+	 * @param startCell Compact index of the first click.
+	 * @param seed Seed of the generation, the same seed always gives the same board.
+	 * @return The board, or null if no candidate tried in time can be cleared without guessing.
+	 */
+	public Board generate(int startCell, long seed) {
+		return generate(startCell, seed, SEARCH_BUDGET_NANOS, () -> false);
+	}
+
+	/**
+	 * Finds a board that can be cleared from the start cell without guessing
+	 *
+	 * @param startCell Compact index of the first click.
+	 * @param seed Seed of the generation, the same seed always gives the same board when one is found.
+	 * @param budgetNanos Time the search may take, 0 or less for no deadline.
+	 * @param cancelled Polled while searching, the search gives up as soon as it returns true.
+	 * @return The board, or null if the search was cancelled or no candidate tried in time can be cleared
+	 *         without guessing.
+	 */
+	public Board generate(int startCell, long seed, long budgetNanos, BooleanSupplier cancelled) {
+		long deadline = budgetNanos > 0 ? System.nanoTime() + budgetNanos : Long.MAX_VALUE;
+		AtomicInteger next = new AtomicInteger();
+		AtomicInteger best = new AtomicInteger(Integer.MAX_VALUE);
+		List<ForkJoinTask<?>> workers = new ArrayList<>();
+		for (int w = 0; w < pool.getParallelism(); w++) {
+			workers.add(pool.submit(() -> {
+				Validator validator = new Validator();
+				while (System.nanoTime() < deadline && !cancelled.getAsBoolean()) {
+					int k = next.getAndIncrement();
+					if (k >= best.get() || k == Integer.MAX_VALUE) break;
+					if (validator.validate(startCell, candidateSeed(seed, k), cancelled)) {
+						best.accumulateAndGet(k, Math::min);
+					}
+				}
+			}));
+		}
+		for (ForkJoinTask<?> worker : workers) {
+			worker.join();
+		}
+
+		int candidate = best.get();
+		if (candidate == Integer.MAX_VALUE || cancelled.getAsBoolean()) return null;
+		long candidateSeed = candidateSeed(seed, candidate);
+		return new Board(startCell, candidate, candidateSeed, deal(startCell, candidateSeed));
+	}
+
+	/**
+	 * Deals the fires of a candidate, the same way on any thread
+	 *
+	 * @param startCell Compact index of the first click.
+	 * @param candidateSeed Seed of the candidate, see candidateSeed().
+	 * @return The compact indexes of the fire cells.
+	 */
+	public int[] deal(int startCell, long candidateSeed) {
+		Validator validator = new Validator();
+		validator.deal(startCell, candidateSeed);
+		return validator.fires.clone();
+	}
+
+	/**
+	 * @return The seed of candidate k of a generation, well spread even for consecutive seeds and k.
+	 */
+	public static long candidateSeed(long seed, int k) {
+		//SplittableRandom mixes its seed, so the golden ratio steps between candidates come out unrelated
+		return new SplittableRandom(seed + k * 0x9E3779B97F4A7C15L).nextLong();
+	}
+
+	/**
+	 * Deals and validates candidates, with scratch arrays of its own so each worker can keep one
+	 */
+	private final class Validator {
+		private final int[] pool = new int[topology.getCellCount()];
+		private final int[] fires = new int[numFires];
+		private final boolean[] fire = new boolean[topology.getCellCount()];
+		private final boolean[] opened = new boolean[topology.getCellCount()];
+		private final int[] openQueue = new int[topology.getCellCount()];
+		private final BoardSolver solver = new BoardSolver(topology, numFires);
+		private int openedCount;
+
+		/**
+		 * Places the fires of a candidate into fires and fire
+		 */
+		private void deal(int startCell, long candidateSeed) {
+			for (int c : fires) {
+				fire[c] = false;
+			}
+			for (int c = 0; c < pool.length; c++) {
+				pool[c] = c;
+			}
+			//The start cell and its neighbours are moved out of the sampled range, as RunesEngine.placeFires() does
+			int range = pool.length;
+			range = moveToEnd(startCell, range);
+			int start = topology.neighbourStart(startCell);
+			int end = topology.neighbourEnd(startCell);
+			if (end - start <= range - numFires) {
+				for (int i = start; i < end; i++) {
+					range = moveToEnd(topology.neighbour(i), range);
+				}
+			}
+
+			SplittableRandom random = new SplittableRandom(candidateSeed);
+			for (int placed = 0; placed < numFires; placed++) {
+				int pick = placed + random.nextInt(range - placed);
+				int c = pool[pick];
+				pool[pick] = pool[placed];
+				pool[placed] = c;
+				fires[placed] = c;
+				fire[c] = true;
+			}
+		}
+
+		/**
+		 * Swaps a cell to the last position of the range, found by a scan as the pool is rebuilt for each candidate
+		 *
+		 * @return The range without the cell.
+		 */
+		private int moveToEnd(int cell, int range) {
+			for (int i = 0; i < range; i++) {
+				if (pool[i] == cell) {
+					pool[i] = pool[range - 1];
+					pool[range - 1] = cell;
+					return range - 1;
+				}
+			}
+			return range;
+		}
+
+		/**
+		 * @param cancelled Polled by the solver, a cancelled candidate counts as not valid.
+		 * @return true if the candidate can be cleared from the start cell without guessing.
+		 */
+		private boolean validate(int startCell, long candidateSeed, BooleanSupplier cancelled) {
+			deal(startCell, candidateSeed);
+			Arrays.fill(opened, false);
+			openedCount = 0;
+			solver.reset();
+
+			int safeCells = pool.length - numFires;
+			open(startCell);
+			while (openedCount < safeCells) {
+				BoardSolver.Hint hint = solver.solve(cancelled, 0);
+				if (hint == null || hint.getKind() == BoardSolver.Hint.GUESS) return false;
+				//A hint with new fires only is followed by another query, which looks for safe cells again
+				for (int c : hint.getSafeCells()) {
+					open(c);
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Opens a safe cell and cascades through cells without adjacent fires, like RunesEngine.open(),
+		 * telling the solver every number that appears
+		 */
+		private void open(int start) {
+			if (opened[start]) return;
+			int head = 0;
+			int tail = 0;
+			opened[start] = true;
+			openQueue[tail++] = start;
+			while (head < tail) {
+				int c = openQueue[head++];
+				openedCount++;
+				int adjacentFires = 0;
+				for (int i = topology.neighbourStart(c), end = topology.neighbourEnd(c); i < end; i++) {
+					if (fire[topology.neighbour(i)]) adjacentFires++;
+				}
+				solver.cellOpened(c, adjacentFires);
+				if (adjacentFires > 0) continue;
+
+				for (int i = topology.neighbourStart(c), end = topology.neighbourEnd(c); i < end; i++) {
+					int neighbour = topology.neighbour(i);
+					if (!opened[neighbour]) {
+						opened[neighbour] = true;
+						openQueue[tail++] = neighbour;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Board Class
+	 * A board found by the generator, with what is needed to deal it again
+	 */
+	public static final class Board {
+		private final int startCell;
+		private final int candidate;
+		private final long candidateSeed;
+		private final int[] fireCells;
+
+		private Board(int startCell, int candidate, long candidateSeed, int[] fireCells) {
+			this.startCell = startCell;
+			this.candidate = candidate;
+			this.candidateSeed = candidateSeed;
+			this.fireCells = fireCells;
+		}
+
+		/**
+		 * @return The compact index of the first click the board was validated from.
+		 */
+		public int getStartCell() {
+			return startCell;
+		}
+
+		/**
+		 * @return The number of the winning candidate, the candidates before it needed a guess.
+		 */
+		public int getCandidate() {
+			return candidate;
+		}
+
+		/**
+		 * @return The seed that deals this board again through deal().
+		 */
+		public long getCandidateSeed() {
+			return candidateSeed;
+		}
+
+		/**
+		 * @return The compact indexes of the fire cells, for RunesEngine.newGame(int[]).
+		 */
+		public int[] getFireCells() {
+			return fireCells;
+		}
+	}
+}
@@ -0,0 +1,309 @@
+package engine;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * ReplayLog Class
+ * A compact binary record of one game: the board it was played on, its seed and every input of the player.
+ * A {@link RunesEngine} appends to the log while the game is played (see RunesEngine.record()),
+ * and a {@link Replayer} plays the game again from it, e.g. to look into a disputed game or to feed
+ * recorded sessions into performance tests.
+ *
+ * Log Format
+ * 1) Header: the magic bytes "RRLG", then as varints the format version, the board shape (ordinal of
+ *    BoardTopology.Shape), the board size, the number of fires and the flags (FIRST_CLICK_SAFE,
+ *    FIRES_LISTED), then the seed as 8 bytes, big-endian
+ * 2) If FIRES_LISTED, the compact indexes of the fires in increasing order, each as the varint of its
+ *    distance to the previous one. Fires placed by the first click are not listed, the seed places them again
+ * 3) Events, one varint each: the compact index of the cell shifted left by 3, or-ed with the action.
+ *    Actions without a cell use cell 0, so a click on one of the first 16 cells or a shop purchase takes
+ *    a single byte, and a click anywhere on a 1000x1000 board at most 3
+ * A varint stores 7 bits per byte, lowest first, with the top bit set on every byte but the last.
+ *
+ * Events are appended to a byte array that doubles when full, so recording a click is a few array
+ * stores and allocates nothing most of the time. The log is written out in one go by save().
+ */
+public final class ReplayLog {
+
+	//Actions of the events
+	public static final int REVEAL = 0;
+	public static final int FLAG = 1;
+	public static final int COLLECT_GEM = 2;
+	public static final int TOGGLE_CLAIRVOYANCE = 3;
+	public static final int SPEND_CLAIRVOYANCE = 4;
+	public static final int BUY_POTION = 5;
+	public static final int BUY_SPELL = 6;
+	static final int ACTION_BITS = 3;
+	static final int ACTION_MASK = (1 << ACTION_BITS) - 1;
+
+	//Header
+	private static final byte[] MAGIC = {'R', 'R', 'L', 'G'};
+	public static final int VERSION = 1;
+	private static final int FIRST_CLICK_SAFE = 1;
+	private static final int FIRES_LISTED = 2;
+
+	private byte[] bytes;
+	private int size = 0;
+
+	//The game of the log, read back from the header
+	private BoardTopology.Shape shape;
+	private int boardSize;
+	private int numFires;
+	private boolean firstClickSafe;
+	private long seed;
+	private int[] fireCells;//Compact indexes of the fires, null if the first click placed them
+	private int eventStart = -1;//Offset of the first event, -1 until the header is written
+
+	/**
+	 * Creates an empty log, to be passed to RunesEngine.record()
+	 */
+	public ReplayLog() {
+		bytes = new byte[256];
+	}
+
+	private ReplayLog(byte[] bytes) {
+		this.bytes = bytes;
+		this.size = bytes.length;
+	}
+
+	/**
+	 * Reads a log written by save()
+	 *
+	 * @param path The file.
+	 * @return The log.
+	 * @throws IOException if the file can't be read or is not a replay log.
+	 */
+	public static ReplayLog load(Path path) throws IOException {
+		return of(Files.readAllBytes(path));
+	}
+
+	/**
+	 * Reads a log from its bytes
+	 *
+	 * @param bytes The log, as written by save() or writeTo(). The array is kept by the log.
+	 * @return The log.
+	 * @throws IOException if the bytes are not a replay log.
+	 */
+	public static ReplayLog of(byte[] bytes) throws IOException {
+		ReplayLog log = new ReplayLog(bytes);
+		try {
+			log.readHeader();
+		} catch (RuntimeException e) {
+			throw new IOException("Corrupt replay log", e);
+		}
+		return log;
+	}
+
+	/**
+	 * Writes the header of the engine's current game, called by RunesEngine.record()
+	 */
+	void writeHeader(RunesEngine engine) {
+		if (eventStart >= 0) {
+			throw new IllegalStateException("The log already holds a game");
+		}
+		BoardTopology topology = engine.getTopology();
+		shape = topology.getShape();
+		boardSize = topology.getWidth();
+		numFires = engine.getNumFires();
+		firstClickSafe = engine.isFirstClickSafe();
+		seed = engine.getSeed();
+		fireCells = null;
+		if (!engine.isFiresPending()) {
+			fireCells = new int[numFires];
+			for (int i = 0; i < numFires; i++) {
+				fireCells[i] = topology.cellAt(engine.getFireRow(i), engine.getFireCol(i));
+			}
+			Arrays.sort(fireCells);
+		}
+
+		for (byte b : MAGIC) {
+			writeByte(b);
+		}
+		writeVarint(VERSION);
+		writeVarint(shape.ordinal());
+		writeVarint(boardSize);
+		writeVarint(numFires);
+		writeVarint((firstClickSafe ? FIRST_CLICK_SAFE : 0) | (fireCells != null ? FIRES_LISTED : 0));
+		for (int shift = 56; shift >= 0; shift -= 8) {
+			writeByte((int) (seed >>> shift));
+		}
+		if (fireCells != null) {
+			int previous = 0;
+			for (int fire : fireCells) {
+				writeVarint(fire - previous);
+				previous = fire;
+			}
+		}
+		eventStart = size;
+	}
+
+	private void readHeader() {
+		int[] position = {0};
+		for (byte b : MAGIC) {
+			if (bytes[position[0]++] != b) throw new IllegalArgumentException("Not a replay log");
+		}
+		int version = readVarint(position);
+		if (version != VERSION) throw new IllegalArgumentException("Unsupported replay log version " + version);
+		shape = BoardTopology.Shape.values()[readVarint(position)];
+		boardSize = readVarint(position);
+		numFires = readVarint(position);
+		int flags = readVarint(position);
+		firstClickSafe = (flags & FIRST_CLICK_SAFE) != 0;
+		seed = 0;
+		for (int i = 0; i < 8; i++) {
+			seed = (seed << 8) | (bytes[position[0]++] & 0xFF);
+		}
+		if ((flags & FIRES_LISTED) != 0) {
+			fireCells = new int[numFires];
+			int previous = 0;
+			for (int i = 0; i < numFires; i++) {
+				previous += readVarint(position);
+				fireCells[i] = previous;
+			}
+		}
+		eventStart = position[0];
+	}
+
+	/**
+	 * Appends an event, called by the engine on every input
+	 *
+	 * @param action One of the actions above.
+	 * @param cell Compact index of the cell, 0 for actions without a cell.
+	 */
+	void append(int action, int cell) {
+		writeVarint((cell << ACTION_BITS) | action);
+	}
+
+	private void writeVarint(int value) {
+		if (size + 5 > bytes.length) {
+			bytes = Arrays.copyOf(bytes, bytes.length * 2);
+		}
+		while ((value & ~0x7F) != 0) {
+			bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		bytes[size++] = (byte) value;
+	}
+
+	private void writeByte(int value) {
+		if (size == bytes.length) {
+			bytes = Arrays.copyOf(bytes, bytes.length * 2);
+		}
+		bytes[size++] = (byte) value;
+	}
+
+	/**
+	 * Reads a varint
+	 *
+	 * @param position Offset of the varint, moved past it.
+	 * @return The value.
+	 */
+	private int readVarint(int[] position) {
+		int p = position[0];
+		int value = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = bytes[p++];
+			value |= (b & 0x7F) << shift;
+			shift += 7;
+		} while (b < 0);
+		position[0] = p;
+		return value;
+	}
+
+	/**
+	 * Writes the log to a stream
+	 *
+	 * @param out The stream, left open.
+	 * @throws IOException if writing fails.
+	 */
+	public void writeTo(OutputStream out) throws IOException {
+		out.write(bytes, 0, size);
+	}
+
+	/**
+	 * @return A copy of the log, e.g. to write it on another thread while the game goes on.
+	 */
+	public byte[] toByteArray() {
+		return Arrays.copyOf(bytes, size);
+	}
+
+	/**
+	 * Writes the log to a file
+	 *
+	 * @param path The file, replaced if it exists.
+	 * @throws IOException if writing fails.
+	 */
+	public void save(Path path) throws IOException {
+		try (OutputStream out = Files.newOutputStream(path)) {
+			writeTo(out);
+		}
+	}
+
+	/**
+	 * @return The length of the log in bytes.
+	 */
+	public int size() {
+		return size;
+	}
+
+	//Raw access for the Replayer
+	byte[] bytes() {
+		return bytes;
+	}
+
+	int eventStart() {
+		return eventStart;
+	}
+
+	int[] fireCells() {
+		return fireCells;
+	}
+
+	/**
+	 * @return true once the header of a game is in the log.
+	 */
+	public boolean hasGame() {
+		return eventStart >= 0;
+	}
+
+	public BoardTopology.Shape getShape() {
+		return shape;
+	}
+
+	/**
+	 * @return Length of each side of the board.
+	 */
+	public int getBoardSize() {
+		return boardSize;
+	}
+
+	public int getNumFires() {
+		return numFires;
+	}
+
+	public boolean isFirstClickSafe() {
+		return firstClickSafe;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * @return The number of events in the log.
+	 */
+	public int countEvents() {
+		if (eventStart < 0) return 0;
+		int count = 0;
+		for (int p = eventStart; p < size; p++) {
+			if (bytes[p] >= 0) count++;
+		}
+		return count;
+	}
+}
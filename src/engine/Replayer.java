@@ -0,0 +1,154 @@
+package engine;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Replayer Class
+ * Plays a recorded game again from its {@link ReplayLog}, headless, on a {@link RunesEngine}.
+ *
+ * The engine restarts the game from the seed in the log (and its fires, if they are listed), so the
+ * same fires and gems come up, and every event is passed to the engine method it was recorded from.
+ * Nothing is drawn and nothing is allocated per event, so a replay runs at millions of events per second.
+ *
+ * From the command line it replays every log given and prints how the game ended and the replay speed:
+ *   java engine.Replayer game-1.rrlog game-2.rrlog
+ */
+public final class Replayer {
+
+	//Time spent replaying each log again and again to measure the speed
+	private static final long MEASURE_NANOS = 1_000_000_000L;
+
+	private Replayer() {
+	}
+
+	/**
+	 * Replays a log on a new engine
+	 *
+	 * @param log The log.
+	 * @return The engine, in the state the recorded game ended in.
+	 */
+	public static RunesEngine replay(ReplayLog log) {
+		BoardTopology topology = BoardTopology.of(log.getShape(), log.getBoardSize());
+		RunesEngine engine = new RunesEngine(topology, log.getNumFires(), log.getSeed(), log.isFirstClickSafe());
+		replay(log, engine);
+		return engine;
+	}
+
+	/**
+	 * Replays a log on a new engine, which then goes on recording into the log, e.g. to go on with a saved
+	 * game without breaking its record
+	 *
+	 * @param log The log, of a game that may not be over.
+	 * @return The engine, in the state the recorded game was left in, appending its next inputs to the log.
+	 */
+	public static RunesEngine resume(ReplayLog log) {
+		RunesEngine engine = replay(log);
+		engine.continueRecording(log);
+		return engine;
+	}
+
+	/**
+	 * Replays a log on an engine that has the board of the log, e.g. to replay it many times without
+	 * building a new engine every time
+	 *
+	 * @param log The log.
+	 * @param engine The engine, its game is replaced by the game of the log.
+	 * @return The number of events replayed.
+	 */
+	public static int replay(ReplayLog log, RunesEngine engine) {
+		if (!log.hasGame()) {
+			throw new IllegalArgumentException("The log holds no game");
+		}
+		BoardTopology topology = engine.getTopology();
+		if (topology.getShape() != log.getShape() || topology.getWidth() != log.getBoardSize()
+				|| engine.getNumFires() != log.getNumFires() || engine.isFirstClickSafe() != log.isFirstClickSafe()
+				|| engine.getEconomy() != Economy.DEFAULT) {
+			throw new IllegalArgumentException("The engine doesn't have the board and economy of the log");
+		}
+		if (log.fireCells() != null) {
+			engine.newGame(log.fireCells(), log.getSeed());
+		} else {
+			engine.newGame(log.getSeed());
+		}
+
+		//Events are decoded inline, see the log format in ReplayLog
+		byte[] bytes = log.bytes();
+		int end = log.size();
+		int events = 0;
+		for (int p = log.eventStart(); p < end; events++) {
+			int value = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = bytes[p++];
+				value |= (b & 0x7F) << shift;
+				shift += 7;
+			} while (b < 0);
+
+			int cell = value >>> ReplayLog.ACTION_BITS;
+			switch (value & ReplayLog.ACTION_MASK) {
+				case ReplayLog.REVEAL:
+					engine.reveal(topology.row(cell), topology.col(cell));
+					break;
+				case ReplayLog.FLAG:
+					engine.toggleFlag(topology.row(cell), topology.col(cell));
+					break;
+				case ReplayLog.COLLECT_GEM:
+					engine.collectGem(topology.row(cell), topology.col(cell));
+					break;
+				case ReplayLog.TOGGLE_CLAIRVOYANCE:
+					engine.toggleClairvoyance();
+					break;
+				case ReplayLog.SPEND_CLAIRVOYANCE:
+					engine.spendClairvoyance();
+					break;
+				case ReplayLog.BUY_POTION:
+					engine.buyPotion();
+					break;
+				case ReplayLog.BUY_SPELL:
+					engine.buySpell();
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown action in replay log: " + (value & ReplayLog.ACTION_MASK));
+			}
+		}
+		return events;
+	}
+
+	/**
+	 * Replays the logs given on the command line
+	 *
+	 * @param args Paths of the logs.
+	 * @throws IOException if a log can't be read.
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length == 0) {
+			System.out.println("Usage: java engine.Replayer <replay log>...");
+			return;
+		}
+		for (String arg : args) {
+			Path path = Paths.get(arg);
+			ReplayLog log = ReplayLog.load(path);
+			RunesEngine engine = replay(log);
+			String outcome = !engine.isGameOver() ? "unfinished" : engine.isWon() ? "won" : "lost";
+			System.out.println(path.getFileName() + ": " + log.getShape() + " " + log.getBoardSize() + "x"
+					+ log.getBoardSize() + ", " + log.getNumFires() + " fires, seed " + log.getSeed());
+			System.out.println("  " + outcome + ", " + engine.getCellsOpened() + "/" + engine.getSafeCellCount()
+					+ " cells opened, " + engine.getGemCount() + " gems, " + engine.getPotionCount() + " Life Potions, "
+					+ engine.getHintsCount() + " Clairvoyance Spells");
+
+			//Replays the log on the same engine until MEASURE_NANOS have passed
+			long events = 0;
+			long start = System.nanoTime();
+			long elapsed;
+			do {
+				events += replay(log, engine);
+				elapsed = System.nanoTime() - start;
+			} while (elapsed < MEASURE_NANOS);
+			System.out.printf("  %d events in %d bytes, replayed at %.1f million events/s%n",
+					log.countEvents(), log.size(), events * 1000.0 / elapsed);
+		}
+	}
+}
@@ -0,0 +1,898 @@
+package engine;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * RunesEngine Class
+ * This class holds the complete rules and state of a RunesReaper game without any JavaFX dependency.
+ *
+ * The engine owns the board (fires, revealed and flagged cells, gems lying on the board)
+ * and the player's inventory (gems, Life Potions and Clairvoyance Spells).
+ * Views such as RunesReaperUI call the operations below and redraw the cells listed
+ * in the returned {@link MoveResult}, which lets bots, simulations and benchmarks play
+ * games without a JavaFX toolkit.
+ *
+ * The shape of the board and the neighbours of each cell come from a {@link BoardTopology}.
+ * Internally cells are referred to by their compact index in the topology.
+ *
+ * A game started from a seed draws its fires and its gems from two streams split from that seed,
+ * so it can be recorded into a {@link ReplayLog} and played again by a {@link Replayer}.
+ */
+public final class RunesEngine {
+
+	//Shop prices of Economy.DEFAULT
+	public static final int POTION_PRICE = 3;
+	public static final int SPELL_PRICE = 5;
+	//Most gems spawned around an opened cell in Economy.DEFAULT
+	public static final int MAX_GEMS_PER_REVEAL = 3;
+
+	//Board settings
+	private final BoardTopology topology;
+	private final int numFires;
+	private RandomGenerator fireRandom;//Random source of fire placement
+	private RandomGenerator gemRandom;//Random source of gem spawning
+	private long seed;//Seed of the current game, valid if seeded
+	private boolean seeded = false;//The current game was started from a seed, so it can be replayed
+	private boolean firesFromSeed = false;//The fires were placed from the seed, around firstCell, so a snapshot needn't list them
+	private int firstCell = -1;//Cell the fires were placed around, -1 if none
+	private final boolean firstClickSafe;//Fires are placed on the first click, away from the clicked cell
+	private final Economy economy;//Gem spawning and shop prices
+
+	//Board state, one bitplane per layer (playable, fire, revealed, flagged, gem) and the fire counts
+	private final BitBoard board;
+	private final SparsePool firePool;//Every playable cell, shuffled by each fire placement
+	private final int[] fires;//Cells on fire, in the order they were placed
+	private boolean firesPending = false;//Fires are not placed yet (first click safe mode)
+	private int safeCells = 0;//Number of playable cells without fire
+	private int safeCellsRemaining = 0;//Number of safe cells still hidden, the game is won when it reaches 0
+	private int[] openQueue = new int[256];//Ring buffer of cells waiting to be opened by a cascade, a power of two
+	private final int[] candidates;//Scratch list of neighbours for gem spawning
+	private final int[] liveGems;//Cells holding a gem, they all come from the last reveal
+	private int liveGemCount = 0;
+
+	//Player state
+	private int gemCount = 0;
+	private int hintsCount = 0;
+	private int potionCount = 0;
+	private boolean isClairvoyant = false;
+	private boolean gameOver = false;
+	private boolean won = false;
+
+	private final MoveResult result = new MoveResult();
+	private ReplayLog log;//Records the player's inputs, null if the game isn't recorded
+
+	/**
+	 * Creates an engine for the circular board and starts a new game.
+	 *
+	 * @param gridSize Length of each side of the square holding the circular board.
+	 * @param numFires Number of fire runes to place.
+	 */
+	public RunesEngine(int gridSize, int numFires) {
+		this(BoardTopology.circle(gridSize), numFires, new Random(), false);
+	}
+
+	/**
+	 * Creates an engine for the circular board using the given random source and starts a new game.
+	 *
+	 * @param gridSize Length of each side of the square holding the circular board.
+	 * @param numFires Number of fire runes to place.
+	 * @param random Random source used for fire placement and gem spawning.
+	 */
+	public RunesEngine(int gridSize, int numFires, Random random) {
+		this(BoardTopology.circle(gridSize), numFires, random, false);
+	}
+
+	/**
+	 * Creates an engine using the given random source and starts a new game.
+	 *
+	 * @param topology Shape and neighbours of the board.
+	 * @param numFires Number of fire runes to place.
+	 * @param random Random source used for fire placement and gem spawning.
+	 * @param firstClickSafe If true, fires are placed on the first click so that the clicked cell
+	 *                       and its neighbours never hold a fire.
+	 */
+	public RunesEngine(BoardTopology topology, int numFires, Random random, boolean firstClickSafe) {
+		this(topology, numFires, firstClickSafe, Economy.DEFAULT);
+		this.fireRandom = random;
+		this.gemRandom = random;
+		newGame();
+	}
+
+	/**
+	 * Creates an engine and starts a new game from a seed, see newGame(long).
+	 *
+	 * @param topology Shape and neighbours of the board.
+	 * @param numFires Number of fire runes to place.
+	 * @param seed Seed of the game.
+	 * @param firstClickSafe If true, fires are placed on the first click so that the clicked cell
+	 *                       and its neighbours never hold a fire.
+	 */
+	public RunesEngine(BoardTopology topology, int numFires, long seed, boolean firstClickSafe) {
+		this(topology, numFires, seed, firstClickSafe, Economy.DEFAULT);
+	}
+
+	/**
+	 * Creates an engine with its own gem economy and starts a new game from a seed, e.g. for a Simulator.
+	 *
+	 * @param topology Shape and neighbours of the board.
+	 * @param numFires Number of fire runes to place.
+	 * @param seed Seed of the game.
+	 * @param firstClickSafe If true, fires are placed on the first click so that the clicked cell
+	 *                       and its neighbours never hold a fire.
+	 * @param economy Gem spawning and shop prices.
+	 */
+	public RunesEngine(BoardTopology topology, int numFires, long seed, boolean firstClickSafe, Economy economy) {
+		this(topology, numFires, firstClickSafe, economy);
+		newGame(seed);
+	}
+
+	/**
+	 * Creates the board structures, the constructors above then start the first game
+	 */
+	private RunesEngine(BoardTopology topology, int numFires, boolean firstClickSafe, Economy economy) {
+		int cellCount = topology.getCellCount();
+		if (numFires < 0) {
+			throw new IllegalArgumentException("numFires must not be negative: " + numFires);
+		}
+		if (numFires > cellCount || (firstClickSafe && numFires == cellCount && numFires > 0)) {
+			throw new IllegalArgumentException("Cannot place " + numFires + " fires on " + cellCount + " cells");
+		}
+		this.topology = topology;
+		this.numFires = numFires;
+		this.firstClickSafe = firstClickSafe;
+		this.economy = economy;
+		this.liveGems = new int[economy.getMaxGemsPerReveal()];
+		this.board = new BitBoard(topology.getWidth(), topology.getHeight());
+		this.candidates = new int[topology.getMaxDegree()];
+
+		//A placement writes two positions per safe cell moved out of the range and one per fire
+		firePool = new SparsePool(numFires + 2 * (topology.getMaxDegree() + 1));
+		fires = new int[numFires];
+		for (int c = 0; c < cellCount; c++) {
+			board.set(BitBoard.PLAYABLE, topology.row(c), topology.col(c));
+		}
+	}
+
+	/**
+	 * Resets the board, the counters and the inventory and places new fires.
+	 * In first click safe mode the fires are placed by the first reveal instead.
+	 */
+	public void newGame() {
+		clearGame();
+		//The random sources carry on from the last game, so this game can't be rebuilt from a seed
+		seeded = false;
+		firesPending = firstClickSafe;
+		if (!firesPending) {
+			placeFires(-1);
+		}
+	}
+
+	/**
+	 * Resets the game like newGame(), drawing the fires and the gems from two streams split from a seed.
+	 * Every placement starts from firePool in row order, so the same seed and the same clicks always give the same game.
+	 *
+	 * @param seed Seed of the game.
+	 */
+	public void newGame(long seed) {
+		seedStreams(seed);
+		clearGame();
+		firesPending = firstClickSafe;
+		if (!firesPending) {
+			placeFires(-1);
+		}
+	}
+
+	/**
+	 * Resets the game like newGame(), but with the fires on the given cells instead of random ones,
+	 * e.g. a board from NoGuessGenerator
+	 *
+	 * @param fireCells Compact indexes of numFires distinct cells.
+	 */
+	public void newGame(int[] fireCells) {
+		dealFires(fireCells);
+		seeded = false;
+	}
+
+	/**
+	 * Resets the game with the fires on the given cells, drawing the gems from the stream split from a seed
+	 * like newGame(long) does, so the game can be recorded
+	 *
+	 * @param fireCells Compact indexes of numFires distinct cells.
+	 * @param seed Seed of the game.
+	 */
+	public void newGame(int[] fireCells, long seed) {
+		seedStreams(seed);
+		dealFires(fireCells);
+	}
+
+	/**
+	 * Starts the fire and gem streams of a seeded game
+	 */
+	private void seedStreams(long seed) {
+		SplittableRandom fires = new SplittableRandom(seed);
+		fireRandom = fires;
+		gemRandom = fires.split();
+		this.seed = seed;
+		seeded = true;
+	}
+
+	/**
+	 * Clears the game and sets the fires on the given cells
+	 */
+	private void dealFires(int[] fireCells) {
+		if (fireCells.length != numFires) {
+			throw new IllegalArgumentException("Expected " + numFires + " fires, got " + fireCells.length);
+		}
+		clearGame();
+		//The fires are listed in the given order by getFireRow() and getFireCol()
+		for (int i = 0; i < fireCells.length; i++) {
+			fires[i] = fireCells[i];
+			set(BitBoard.FIRE, fireCells[i]);
+		}
+		countFires();
+		firesPending = false;
+	}
+
+	/**
+	 * Clears the board layers, the counters and the inventory
+	 */
+	private void clearGame() {
+		board.clearLayer(BitBoard.FIRE);
+		board.clearLayer(BitBoard.REVEALED);
+		board.clearLayer(BitBoard.FLAGGED);
+		board.clearLayer(BitBoard.GEM);
+		liveGemCount = 0;
+		log = null;
+		firesFromSeed = false;
+		firstCell = -1;
+
+		gemCount = 0;
+		hintsCount = 0;
+		potionCount = 0;
+		isClairvoyant = false;
+		gameOver = false;
+		won = false;
+
+		safeCells = topology.getCellCount() - numFires;
+		safeCellsRemaining = safeCells;
+	}
+
+	/**
+	 * Places the fire runes on random playable cells, away from a cell and its neighbours if given.
+	 *
+	 * Fire Placement Implementation (partial Fisher-Yates shuffle)
+	 * 1) firePool goes back to row order, and cells that must stay safe are swapped to the end, out of the sampled range
+	 * 2) For each fire i, a random cell from positions i to the end of the range is swapped into position i
+	 *    and set on fire
+	 * 3) The first numFires positions then hold a uniformly random set of distinct cells
+	 * Each fire takes exactly one random draw, so placement is O(fires) and terminates at any density.
+	 * firePool only stores the positions written, so it takes memory for the fires, not for the board.
+	 *
+	 * @param safeCell Compact index of the cell to keep safe, or -1.
+	 */
+	private void placeFires(int safeCell) {
+		firePool.reset();
+		int range = topology.getCellCount();
+		if (safeCell >= 0) {
+			int start = topology.neighbourStart(safeCell);
+			int end = topology.neighbourEnd(safeCell);
+			range--;
+			firePool.swap(firePool.positionOf(safeCell), range);
+			//Keeps the neighbours safe too if there is room for the fires, otherwise only the clicked cell
+			if (end - start <= range - numFires) {
+				for (int i = start; i < end; i++) {
+					range--;
+					firePool.swap(firePool.positionOf(topology.neighbour(i)), range);
+				}
+			}
+		}
+
+		for (int placed = 0; placed < numFires; placed++) {
+			//Position placed is never read again, so only the cell it gives away is written
+			int pick = placed + fireRandom.nextInt(range - placed);
+			fires[placed] = firePool.get(pick);
+			firePool.set(pick, firePool.get(placed));
+			set(BitBoard.FIRE, fires[placed]);
+		}
+		countFires();
+		firesPending = false;
+		firesFromSeed = seeded;
+		firstCell = safeCell;
+	}
+
+	/**
+	 * Fills the fire count table of the board.
+	 * Plain grids use the word-level BitBoard.countNeighbours(), other shapes count through the neighbour table.
+	 */
+	private void countFires() {
+		if (topology.isGridNeighbourhood()) {
+			board.countNeighbours();
+			return;
+		}
+		for (int c = 0; c < topology.getCellCount(); c++) {
+			int count = 0;
+			for (int i = topology.neighbourStart(c), end = topology.neighbourEnd(c); i < end; i++) {
+				if (get(BitBoard.FIRE, topology.neighbour(i))) count++;
+			}
+			board.setNeighbourCount(topology.row(c), topology.col(c), count);
+		}
+	}
+
+	/**
+	 * Handles a (left) click on a cell.
+	 *
+	 * @param row The row of the cell.
+	 * @param col The column of the cell.
+	 * @return The cells changed by the click. Empty if the click was ignored.
+	 */
+	public MoveResult reveal(int row, int col) {
+		result.clear();
+		int c = topology.cellAt(row, col);
+		if (log != null && c >= 0) log.append(ReplayLog.REVEAL, c);
+		if (gameOver || c < 0) return result;
+
+		//In first click safe mode the board is only generated now, around the clicked cell
+		if (firesPending && !get(BitBoard.FLAGGED, c)) {
+			placeFires(c);
+		}
+		open(c);
+
+		//Check if the win condition is met, all safe cells are open
+		if (!gameOver && safeCellsRemaining == 0) {
+			gameOver = true;
+			won = true;
+			result.setGameOver(true);
+		}
+		return result;
+	}
+
+	/**
+	 * Opens a cell and, if it has no adjacent fires, the whole region around it.
+	 *
+	 * Flood Fill Implementation
+	 * 1) Cells are marked as revealed when they are queued, so each cell enters the queue at most once
+	 * 2) Cells are taken from the queue in order; a cell without adjacent fires queues its hidden neighbours
+	 * 3) Flagged cells and cells covered by a gem stop the cascade, like a click on them would be ignored
+	 * 4) Gems are spawned once, around the clicked cell, after the whole region has been opened
+	 * The queue replaces recursion, so big openings can't overflow the stack. It is a ring buffer holding
+	 * only the front of the cascade, grown when the front outgrows it.
+	 *
+	 * @param start Compact index of the clicked cell.
+	 */
+	private void open(int start) {
+		//Check if the cell is already revealed or flagged, or covered by a gem
+		if (!canOpen(start)) return;
+
+		int head = 0;
+		int tail = 0;
+		set(BitBoard.REVEALED, start);
+		openQueue[tail++ & (openQueue.length - 1)] = start;
+
+		while (head < tail) {
+			int c = openQueue[head++ & (openQueue.length - 1)];
+			int row = topology.row(c);
+			int col = topology.col(c);
+
+			if (board.get(BitBoard.FIRE, row, col)) {
+				//Only the clicked cell can be a fire, cascades stop at numbered cells
+				openFire(c);
+				return;
+			}
+
+			safeCellsRemaining--;
+			result.add(row, col, MoveResult.OPENED);
+			if (board.neighbourCount(row, col) > 0) {
+				if (isClairvoyant) {
+					//If clairvoyant is active, reveal one adjacent fire
+					revealOneAdjacentFire(c);
+					useClairvoyance();
+				}
+				continue;
+			}
+
+			//If no adjacent fires, queue the surrounding cells
+			for (int i = topology.neighbourStart(c), end = topology.neighbourEnd(c); i < end; i++) {
+				int neighbour = topology.neighbour(i);
+				if (canOpen(neighbour)) {
+					set(BitBoard.REVEALED, neighbour);
+					if (tail - head == openQueue.length) growOpenQueue(head, tail);
+					openQueue[tail++ & (openQueue.length - 1)] = neighbour;
+				}
+			}
+		}
+
+		//Spawn gems next to the clicked cell, as the recursive reveal did once its cascade returned
+		spawnGemsInAdjacentCells(start);
+	}
+
+	/**
+	 * Doubles the open queue, keeping each queued cell at its position modulo the new length
+	 *
+	 * @param head Position of the first queued cell.
+	 * @param tail Position past the last queued cell.
+	 */
+	private void growOpenQueue(int head, int tail) {
+		int[] grown = new int[openQueue.length * 2];
+		for (int i = head; i < tail; i++) {
+			grown[i & (grown.length - 1)] = openQueue[i & (openQueue.length - 1)];
+		}
+		openQueue = grown;
+	}
+
+	/**
+	 * @return true if a cell is hidden, not flagged and not covered by a gem.
+	 */
+	private boolean canOpen(int c) {
+		int row = topology.row(c);
+		int col = topology.col(c);
+		return !board.get(BitBoard.REVEALED, row, col)
+				&& !board.get(BitBoard.FLAGGED, row, col)
+				&& !board.get(BitBoard.GEM, row, col);
+	}
+
+	/**
+	 * Handles a click on a fire
+	 *
+	 * @param c Compact index of the cell.
+	 */
+	private void openFire(int c) {
+		int row = topology.row(c);
+		int col = topology.col(c);
+		if (isClairvoyant) {
+			//If clairvoyant is active, reveal the fire as frozen
+			result.add(row, col, MoveResult.FROZEN);
+			useClairvoyance();
+		} else if (potionCount > 0) {
+			//If player has potions, use one to freeze the fire
+			result.add(row, col, MoveResult.FROZEN);
+			potionCount--;
+			result.setPotionUsed();
+		} else {
+			//If no protection, reveal fire and end game
+			result.add(row, col, MoveResult.FIRE);
+			gameOver = true;
+			result.setGameOver(false);
+		}
+	}
+
+	/**
+	 * Reveals one adjacent fire as frozen when Clairvoyance is active
+	 *
+	 * @param c Compact index of the cell.
+	 */
+	private void revealOneAdjacentFire(int c) {
+		for (int i = topology.neighbourStart(c), end = topology.neighbourEnd(c); i < end; i++) {
+			int neighbour = topology.neighbour(i);
+			if (get(BitBoard.FIRE, neighbour) && !get(BitBoard.REVEALED, neighbour)) {
+				//A frozen fire counts as revealed so that it can no longer be clicked or flagged
+				set(BitBoard.REVEALED, neighbour);
+				clear(BitBoard.FLAGGED, neighbour);
+				result.add(topology.row(neighbour), topology.col(neighbour), MoveResult.FROZEN);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Ends the active Clairvoyance Spell after it has been used
+	 */
+	private void useClairvoyance() {
+		isClairvoyant = false;
+		result.setClairvoyanceUsed();
+	}
+
+	/**
+	 * Replaces the gems on the board with 0 to economy.getMaxGemsPerReveal() gems around a cell.
+	 * Removed and spawned gems are added to the result as GEM_REMOVED and GEM_SPAWNED changes.
+	 *
+	 * @param center Compact index of the cell.
+	 */
+	private void spawnGemsInAdjacentCells(int center) {
+		//First, remove the gems still lying on the board, which are all in liveGems
+		for (int i = 0; i < liveGemCount; i++) {
+			int gem = liveGems[i];
+			clear(BitBoard.GEM, gem);
+			result.add(topology.row(gem), topology.col(gem), MoveResult.GEM_REMOVED);
+		}
+		liveGemCount = 0;
+
+		//Determine number of gems (0-3 by default)
+		int numGems = gemRandom.nextInt(economy.getMaxGemsPerReveal() + 1);
+		if (numGems == 0) return;
+
+		//Get list of adjacent cells which are still hidden
+		int validAdjacentCells = 0;
+		for (int i = topology.neighbourStart(center), end = topology.neighbourEnd(center); i < end; i++) {
+			int neighbour = topology.neighbour(i);
+			if (!get(BitBoard.REVEALED, neighbour)) {
+				candidates[validAdjacentCells++] = neighbour;
+			}
+		}
+
+		//Spawn gems on distinct random cells, swapping each chosen cell to the end
+		for (int i = 0; i < numGems && validAdjacentCells > 0; i++) {
+			int index = gemRandom.nextInt(validAdjacentCells);
+			int gem = candidates[index];
+			set(BitBoard.GEM, gem);
+			liveGems[liveGemCount++] = gem;
+			result.add(topology.row(gem), topology.col(gem), MoveResult.GEM_SPAWNED);
+			candidates[index] = candidates[--validAdjacentCells];
+		}
+	}
+
+	/**
+	 * Toggles the flag on a hidden cell
+	 *
+	 * @param row The row of the cell.
+	 * @param col The column of the cell.
+	 * @return true if the flag was toggled, false if the cell can't be flagged.
+	 */
+	public boolean toggleFlag(int row, int col) {
+		record(ReplayLog.FLAG, row, col);
+		if (gameOver || !isPlayable(row, col) || board.get(BitBoard.REVEALED, row, col)) return false;
+		board.flip(BitBoard.FLAGGED, row, col);
+		return true;
+	}
+
+	/**
+	 * Picks up the gem lying on a cell
+	 *
+	 * @param row The row of the cell.
+	 * @param col The column of the cell.
+	 * @return true if there was a gem to collect.
+	 */
+	public boolean collectGem(int row, int col) {
+		record(ReplayLog.COLLECT_GEM, row, col);
+		if (gameOver || !isPlayable(row, col) || !board.get(BitBoard.GEM, row, col)) return false;
+		board.clear(BitBoard.GEM, row, col);
+		//Drop the gem from the live gems, moving the last one into its place
+		int cell = topology.cellAt(row, col);
+		for (int i = 0; i < liveGemCount; i++) {
+			if (liveGems[i] == cell) {
+				liveGems[i] = liveGems[--liveGemCount];
+				break;
+			}
+		}
+		gemCount++;
+		return true;
+	}
+
+	/**
+	 * Toggles Clairvoyance.
+	 * Activating it uses up one spell, deactivating it before use gives the spell back.
+	 *
+	 * @return false if Clairvoyance can't be activated because there are no spells left.
+	 */
+	public boolean toggleClairvoyance() {
+		if (log != null) log.append(ReplayLog.TOGGLE_CLAIRVOYANCE, 0);
+		if (isClairvoyant) {
+			isClairvoyant = false;
+			hintsCount++;
+			return true;
+		}
+		if (hintsCount <= 0 || gameOver) return false;
+		isClairvoyant = true;
+		hintsCount--;
+		return true;
+	}
+
+	/**
+	 * Uses up the active Clairvoyance Spell without a click, e.g. once it has shown a hint
+	 *
+	 * @return false if Clairvoyance was not active.
+	 */
+	public boolean spendClairvoyance() {
+		if (log != null) log.append(ReplayLog.SPEND_CLAIRVOYANCE, 0);
+		if (!isClairvoyant) return false;
+		isClairvoyant = false;
+		return true;
+	}
+
+	/**
+	 * Buys a Life Potion for the potion price of the economy, POTION_PRICE gems by default
+	 *
+	 * @return false if there are not enough gems.
+	 */
+	public boolean buyPotion() {
+		if (log != null) log.append(ReplayLog.BUY_POTION, 0);
+		if (gemCount < economy.getPotionPrice()) return false;
+		gemCount -= economy.getPotionPrice();
+		potionCount++;
+		return true;
+	}
+
+	/**
+	 * Buys a Clairvoyance Spell for the spell price of the economy, SPELL_PRICE gems by default
+	 *
+	 * @return false if there are not enough gems.
+	 */
+	public boolean buySpell() {
+		if (log != null) log.append(ReplayLog.BUY_SPELL, 0);
+		if (gemCount < economy.getSpellPrice()) return false;
+		gemCount -= economy.getSpellPrice();
+		hintsCount++;
+		return true;
+	}
+
+	/**
+	 * Records every input of the current game from now on into a log, which first gets the header of the game:
+	 * its board, its seed and, if they are placed already, its fires.
+	 * Call it before the first input of the game; recording stops when a new game starts.
+	 *
+	 * @param log An empty log.
+	 * @throws IllegalStateException if the game was not started from a seed or a cell was opened already.
+	 */
+	public void record(ReplayLog log) {
+		if (!seeded) {
+			throw new IllegalStateException("Only games started from a seed can be recorded");
+		}
+		if (getCellsOpened() > 0 || gameOver) {
+			throw new IllegalStateException("The game must be recorded from its start");
+		}
+		log.writeHeader(this);
+		this.log = log;
+	}
+
+	/**
+	 * Records the inputs from now on into the log this game was just replayed from, see Replayer.resume()
+	 */
+	void continueRecording(ReplayLog log) {
+		this.log = log;
+	}
+
+	/**
+	 * Places the fires of a game started by newGame(long) around a cell without opening it,
+	 * for a GameSnapshot taken after the first click
+	 *
+	 * @param cell Compact index of the first clicked cell.
+	 */
+	void placeFiresAround(int cell) {
+		if (firesPending) {
+			placeFires(cell);
+		}
+	}
+
+	/**
+	 * Restores the cells and the inventory of a saved game, for GameSnapshot.
+	 * The fires are placed already; gems are drawn from a fresh stream afterwards, so the restored game
+	 * is no longer seeded and can't be recorded.
+	 *
+	 * @param revealed Words of the REVEALED layer.
+	 * @param flagged Words of the FLAGGED layer.
+	 * @param gemCells Compact indexes of the gems lying on the board.
+	 */
+	void restore(long[] revealed, long[] flagged, int[] gemCells, int gemCount, int hintsCount, int potionCount,
+			boolean clairvoyant) {
+		if (gemCells.length > liveGems.length) {
+			throw new IllegalArgumentException("Too many gems: " + gemCells.length);
+		}
+		board.loadLayer(BitBoard.REVEALED, revealed);
+		board.loadLayer(BitBoard.FLAGGED, flagged);
+		for (int gem : gemCells) {
+			set(BitBoard.GEM, gem);
+			liveGems[liveGemCount++] = gem;
+		}
+		this.gemCount = gemCount;
+		this.hintsCount = hintsCount;
+		this.potionCount = potionCount;
+		this.isClairvoyant = clairvoyant;
+
+		//Revealed fires are frozen, every other revealed cell was a safe cell opened
+		int frozen = 0;
+		if (!firesPending) {
+			for (int i = 0; i < numFires; i++) {
+				if (get(BitBoard.REVEALED, fires[i])) frozen++;
+			}
+		}
+		safeCellsRemaining = safeCells - (board.cardinality(BitBoard.REVEALED) - frozen);
+		gemRandom = new SplittableRandom();
+		seeded = false;
+	}
+
+	/**
+	 * @return true if the fires were placed from getSeed() around getFirstCell(), so newGame(long) and
+	 *         placeFiresAround() place them again.
+	 */
+	boolean isFiresFromSeed() {
+		return firesFromSeed;
+	}
+
+	/**
+	 * @return Compact index of the cell the fires were placed around, -1 if none.
+	 */
+	int getFirstCell() {
+		return firstCell;
+	}
+
+	/**
+	 * Appends an input on a cell to the log, if the cell is part of the board and the game is recorded
+	 */
+	private void record(int action, int row, int col) {
+		if (log == null) return;
+		int c = topology.cellAt(row, col);
+		if (c >= 0) log.append(action, c);
+	}
+
+	/**
+	 * Counts the fires in the neighbours of a cell.
+	 * Reads the table precomputed when the fires were placed.
+	 *
+	 * @param row The row of the cell.
+	 * @param col The column of the cell.
+	 */
+	public int countAdjacentFires(int row, int col) {
+		return board.neighbourCount(row, col);
+	}
+
+	//Bitplane access by compact index
+	private boolean get(int layer, int c) {
+		return board.get(layer, topology.row(c), topology.col(c));
+	}
+
+	private void set(int layer, int c) {
+		board.set(layer, topology.row(c), topology.col(c));
+	}
+
+	private void clear(int layer, int c) {
+		board.clear(layer, topology.row(c), topology.col(c));
+	}
+
+	/**
+	 * @return true if the position lies inside the grid and is part of the board.
+	 */
+	public boolean isPlayable(int row, int col) {
+		return topology.cellAt(row, col) >= 0;
+	}
+
+	public boolean isFire(int row, int col) {
+		return board.get(BitBoard.FIRE, row, col);
+	}
+
+	public boolean isRevealed(int row, int col) {
+		return board.get(BitBoard.REVEALED, row, col);
+	}
+
+	public boolean isFlagged(int row, int col) {
+		return board.get(BitBoard.FLAGGED, row, col);
+	}
+
+	public boolean hasGem(int row, int col) {
+		return board.get(BitBoard.GEM, row, col);
+	}
+
+	/**
+	 * @return The number of gems lying on the board (at most economy.getMaxGemsPerReveal()).
+	 */
+	public int getLiveGemCount() {
+		return liveGemCount;
+	}
+
+	/**
+	 * @param i Index of the gem, from 0 to getLiveGemCount() - 1.
+	 * @return The row of the cell holding the gem.
+	 */
+	public int getLiveGemRow(int i) {
+		return topology.row(liveGems[i]);
+	}
+
+	/**
+	 * @param i Index of the gem, from 0 to getLiveGemCount() - 1.
+	 * @return The column of the cell holding the gem.
+	 */
+	public int getLiveGemCol(int i) {
+		return topology.col(liveGems[i]);
+	}
+
+	/**
+	 * @return The packed board, for views and tools that read many cells at once.
+	 */
+	public BitBoard getBoard() {
+		return board;
+	}
+
+	public BoardTopology getTopology() {
+		return topology;
+	}
+
+	/**
+	 * @return The number of fires on the board (once placed).
+	 */
+	public int getNumFires() {
+		return numFires;
+	}
+
+	/**
+	 * Fires are listed without scanning the board, e.g. to show them all at the end of the game.
+	 * Only valid once the fires are placed (see isFiresPending()).
+	 *
+	 * @param i Index of the fire, from 0 to getNumFires() - 1.
+	 * @return The row of the fire.
+	 */
+	public int getFireRow(int i) {
+		return topology.row(fires[i]);
+	}
+
+	/**
+	 * @param i Index of the fire, from 0 to getNumFires() - 1.
+	 * @return The column of the fire.
+	 */
+	public int getFireCol(int i) {
+		return topology.col(fires[i]);
+	}
+
+	/**
+	 * @return true if the fires are not placed yet because the first click hasn't happened (first click safe mode).
+	 */
+	public boolean isFiresPending() {
+		return firesPending;
+	}
+
+	/**
+	 * @return true if the current game was started from a seed, so it can be recorded and replayed.
+	 */
+	public boolean isSeeded() {
+		return seeded;
+	}
+
+	/**
+	 * @return The seed the current game was started from, only valid if it was (see isSeeded()).
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	public boolean isFirstClickSafe() {
+		return firstClickSafe;
+	}
+
+	public Economy getEconomy() {
+		return economy;
+	}
+
+	public int getGemCount() {
+		return gemCount;
+	}
+
+	public int getHintsCount() {
+		return hintsCount;
+	}
+
+	public int getPotionCount() {
+		return potionCount;
+	}
+
+	/**
+	 * @return The number of safe cells opened so far.
+	 */
+	public int getCellsOpened() {
+		return safeCells - safeCellsRemaining;
+	}
+
+	/**
+	 * @return The number of playable cells without fire, all of which must be opened to win.
+	 */
+	public int getSafeCellCount() {
+		return safeCells;
+	}
+
+	/**
+	 * @return The number of safe cells still hidden.
+	 */
+	public int getSafeCellsRemaining() {
+		return safeCellsRemaining;
+	}
+
+	public boolean isClairvoyant() {
+		return isClairvoyant;
+	}
+
+	public boolean isGameOver() {
+		return gameOver;
+	}
+
+	public boolean isWon() {
+		return won;
+	}
+}
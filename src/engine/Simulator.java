@@ -0,0 +1,591 @@
+package engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Simulator Class
+ * Plays games headless with bots, on every core, to tune the gem economy and the number of fires
+ * without hand-playing games. Each run reports the win rate, the gem balance along the game, the potions
+ * and spells bought and used and the length of the games, see {@link Stats}.
+ *
+ * Simulator Implementation
+ * 1) Game k of a run is played on the seed NoGuessGenerator.candidateSeed(seed, k), first click safe,
+ *    and the bot draws its first click and its random guesses from a stream of its own seeded from it
+ * 2) Every worker of the ForkJoinPool keeps its own engine, solver and Stats, and takes CHUNK game numbers
+ *    at a time from a shared counter. Workers share nothing else, so a run scales with the cores
+ * 3) Stats are sums of counts, added up once the workers are done, so a run only depends on its seed
+ *    and its number of games, not on the number of workers or their timing
+ * 4) Bots see what the player sees: every opened cell and frozen fire of a MoveResult goes to their
+ *    BoardSolver. They open every cell it proves safe, never click a proven fire, and pick up every gem
+ *
+ * From the command line it simulates every combination of the options given, each a comma separated list:
+ *   java engine.Simulator --games 1000000 --size 17 --fires 20,30,40 --potion 2,3,4 --policy ALL
+ * Options: --games, --seed, --threads, --shape, --size, --fires, --gems (most per reveal), --potion, --spell
+ * and --policy (CAUTIOUS, GREEDY_SHOPPER, SOLVER_PERFECT or ALL). The defaults are the Adept board,
+ * 30 fires on a 17x17 circle, with Economy.DEFAULT.
+ */
+public final class Simulator {
+
+	//Game numbers a worker takes from the shared counter at once
+	private static final int CHUNK = 64;
+	//Points of the gem balance curves, one every tenth of the safe cells opened
+	public static final int CURVE_POINTS = 11;
+	private static final BooleanSupplier NEVER = () -> false;
+
+	/**
+	 * How a bot guesses and spends its gems
+	 */
+	public enum Policy {
+		/**
+		 * Guesses a random cell, buys a Life Potion right before a guess if it holds none, never buys spells
+		 */
+		CAUTIOUS,
+		/**
+		 * Guesses a random cell, spends its gems as soon as it can (a spell if it can afford one,
+		 * a potion otherwise) and casts Clairvoyance before every guess
+		 */
+		GREEDY_SHOPPER,
+		/**
+		 * Guesses the cell with the lowest odds of fire, keeps one potion in stock and buys a spell right before
+		 * a guess to cast Clairvoyance on it, saving the other gems
+		 */
+		SOLVER_PERFECT
+	}
+
+	private final BoardTopology topology;
+	private final int numFires;
+	private final Economy economy;
+	private final ForkJoinPool pool;
+
+	/**
+	 * Creates a simulator running on the common ForkJoinPool
+	 *
+	 * @param topology The board.
+	 * @param numFires Number of fires to place.
+	 * @param economy Gem spawning and shop prices.
+	 */
+	public Simulator(BoardTopology topology, int numFires, Economy economy) {
+		this(topology, numFires, economy, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @param topology The board.
+	 * @param numFires Number of fires to place.
+	 * @param economy Gem spawning and shop prices.
+	 * @param pool Pool running the workers, one per thread of its parallelism.
+	 */
+	public Simulator(BoardTopology topology, int numFires, Economy economy, ForkJoinPool pool) {
+		if (numFires >= topology.getCellCount()) {
+			throw new IllegalArgumentException("Cannot place " + numFires + " fires on " + topology.getCellCount()
+					+ " cells with a safe first click");
+		}
+		this.topology = topology;
+		this.numFires = numFires;
+		this.economy = economy;
+		this.pool = pool;
+	}
+
+	/**
+	 * Plays games with a bot
+	 *
+	 * @param policy How the bot plays.
+	 * @param games Number of games.
+	 * @param seed Seed of the run, the same seed always gives the same stats.
+	 * @return The stats of the games.
+	 */
+	public Stats run(Policy policy, int games, long seed) {
+		AtomicInteger next = new AtomicInteger();
+		List<ForkJoinTask<Stats>> workers = new ArrayList<>();
+		for (int w = 0; w < pool.getParallelism(); w++) {
+			workers.add(pool.submit(() -> {
+				Bot bot = new Bot(policy);
+				Stats stats = new Stats();
+				for (int start = next.getAndAdd(CHUNK); start < games && start >= 0; start = next.getAndAdd(CHUNK)) {
+					for (int k = start, end = Math.min(games, start + CHUNK); k < end; k++) {
+						bot.play(NoGuessGenerator.candidateSeed(seed, k), stats);
+					}
+				}
+				return stats;
+			}));
+		}
+		Stats total = new Stats();
+		for (ForkJoinTask<Stats> worker : workers) {
+			total.add(worker.join());
+		}
+		return total;
+	}
+
+	/**
+	 * Plays games on an engine of its own, with scratch arrays of its own so each worker can keep one
+	 */
+	private final class Bot {
+		private final Policy policy;
+		private final RunesEngine engine;
+		private final BoardSolver solver = new BoardSolver(topology, numFires);
+		private final boolean[] provenFire = new boolean[topology.getCellCount()];
+		private final int[] guesses = new int[topology.getCellCount()];
+		private final int safeCells = topology.getCellCount() - numFires;
+		private SplittableRandom random;
+		private Stats stats;
+		private int knownFires;//Frozen and proven fires
+		private int gemsEarned;
+		private int nextPoint;//Next point of the gem balance curves
+
+		private Bot(Policy policy) {
+			this.policy = policy;
+			this.engine = new RunesEngine(topology, numFires, 0, true, economy);
+		}
+
+		/**
+		 * Plays one game to its end and adds it to the stats
+		 */
+		private void play(long gameSeed, Stats stats) {
+			this.stats = stats;
+			engine.newGame(gameSeed);
+			solver.reset();
+			Arrays.fill(provenFire, false);
+			//A stream of its own, apart from the fire and gem streams the engine splits from the seed
+			random = new SplittableRandom(~gameSeed);
+			knownFires = 0;
+			gemsEarned = 0;
+			nextPoint = 0;
+			long moves = stats.moves;
+
+			reachPoints();
+			click(random.nextInt(topology.getCellCount()));
+			while (!engine.isGameOver()) {
+				BoardSolver.Hint hint = solver.solve(NEVER, 0);
+				for (int c : hint.getFireCells()) {
+					if (!provenFire[c]) {
+						provenFire[c] = true;
+						knownFires++;
+					}
+				}
+				int[] safe = hint.getSafeCells();
+				for (int i = 0; i < safe.length && !engine.isGameOver(); i++) {
+					click(safe[i]);
+				}
+				//A hint with new fires only is followed by another query, which looks for safe cells again
+				if (hint.getKind() == BoardSolver.Hint.GUESS) {
+					guess(hint);
+				}
+			}
+
+			stats.games++;
+			stats.cellsOpened += engine.getCellsOpened();
+			stats.gemsEarned += gemsEarned;
+			stats.gemsLeft += engine.getGemCount();
+			if (engine.isWon()) {
+				stats.wins++;
+				stats.wonMoves += stats.moves - moves;
+			}
+		}
+
+		/**
+		 * Protects and clicks a cell nothing is proven about
+		 */
+		private void guess(BoardSolver.Hint hint) {
+			int cell;
+			if (policy == Policy.SOLVER_PERFECT) {
+				cell = hint.getGuessCell() >= 0 ? hint.getGuessCell() : safestCell();
+			} else {
+				cell = randomCell();
+			}
+
+			switch (policy) {
+				case CAUTIOUS:
+					if (engine.getPotionCount() == 0 && engine.buyPotion()) stats.potionsBought++;
+					break;
+				case GREEDY_SHOPPER:
+					if (!engine.isClairvoyant()) engine.toggleClairvoyance();
+					break;
+				case SOLVER_PERFECT:
+					if (engine.isClairvoyant()) break;
+					if (engine.getHintsCount() == 0 && engine.buySpell()) stats.spellsBought++;
+					engine.toggleClairvoyance();
+					break;
+			}
+			stats.guesses++;
+			click(cell);
+		}
+
+		/**
+		 * Opens a cell, tells the solver what appeared, picks up the gems and goes shopping
+		 */
+		private void click(int cell) {
+			MoveResult result = engine.reveal(topology.row(cell), topology.col(cell));
+			if (result.isEmpty()) return;
+			stats.moves++;
+			for (int i = 0; i < result.size(); i++) {
+				int c = topology.cellAt(result.row(i), result.col(i));
+				switch (result.kind(i)) {
+					case MoveResult.OPENED:
+						solver.cellOpened(c, engine.countAdjacentFires(result.row(i), result.col(i)));
+						break;
+					case MoveResult.FROZEN:
+						solver.fireRevealed(c);
+						if (!provenFire[c]) knownFires++;
+						break;
+				}
+			}
+			if (result.isPotionUsed()) stats.potionsUsed++;
+			if (result.isClairvoyanceUsed()) stats.spellsUsed++;
+			if (engine.isGameOver()) {
+				reachPoints();
+				return;
+			}
+
+			for (int g = engine.getLiveGemCount() - 1; g >= 0; g--) {
+				if (engine.collectGem(engine.getLiveGemRow(g), engine.getLiveGemCol(g))) gemsEarned++;
+			}
+			shop();
+			reachPoints();
+		}
+
+		/**
+		 * Spends gems as the policy does after picking them up, the other purchases are made right before a guess
+		 */
+		private void shop() {
+			switch (policy) {
+				case GREEDY_SHOPPER:
+					while (true) {
+						if (engine.buySpell()) {
+							stats.spellsBought++;
+						} else if (engine.buyPotion()) {
+							stats.potionsBought++;
+						} else {
+							break;
+						}
+					}
+					break;
+				case SOLVER_PERFECT:
+					if (engine.getPotionCount() == 0 && engine.buyPotion()) stats.potionsBought++;
+					break;
+				default:
+					break;
+			}
+		}
+
+		/**
+		 * Adds the gem balance to the curve points reached by the cells opened so far
+		 */
+		private void reachPoints() {
+			int point = (int) ((long) engine.getCellsOpened() * (CURVE_POINTS - 1) / safeCells);
+			for (; nextPoint <= point; nextPoint++) {
+				stats.reached[nextPoint]++;
+				stats.gemsHeld[nextPoint] += engine.getGemCount();
+				stats.gemsEarnedAt[nextPoint] += gemsEarned;
+			}
+		}
+
+		/**
+		 * @return Number of hidden cells not proven fire, listed in guesses.
+		 */
+		private int listGuesses() {
+			int count = 0;
+			for (int c = 0; c < guesses.length; c++) {
+				if (!provenFire[c] && !engine.isRevealed(topology.row(c), topology.col(c))) {
+					guesses[count++] = c;
+				}
+			}
+			return count;
+		}
+
+		/**
+		 * @return A random hidden cell not proven fire.
+		 */
+		private int randomCell() {
+			return guesses[random.nextInt(listGuesses())];
+		}
+
+		/**
+		 * Estimates the odds of fire of every hidden cell from its opened neighbours, for when the solver has
+		 * no guess, e.g. when every window of its enumeration gave up.
+		 * A cell gets the highest odds of the numbers around it, cells away from the numbers the density
+		 * of the fires left.
+		 *
+		 * @return The hidden cell with the lowest odds, the first in compact order on a tie.
+		 */
+		private int safestCell() {
+			int count = listGuesses();
+			double density = (double) (numFires - knownFires) / count;
+			int best = guesses[0];
+			double bestOdds = 2;
+			for (int i = 0; i < count; i++) {
+				int c = guesses[i];
+				double odds = -1;
+				for (int j = topology.neighbourStart(c), end = topology.neighbourEnd(c); j < end; j++) {
+					int n = topology.neighbour(j);
+					int row = topology.row(n);
+					int col = topology.col(n);
+					if (!engine.isRevealed(row, col) || engine.isFire(row, col)) continue;
+					odds = Math.max(odds, localOdds(n));
+				}
+				if (odds < 0) odds = density;
+				if (odds < bestOdds) {
+					bestOdds = odds;
+					best = c;
+				}
+			}
+			return best;
+		}
+
+		/**
+		 * @return The fires left around an opened cell over its hidden neighbours not proven fire.
+		 */
+		private double localOdds(int opened) {
+			int left = engine.countAdjacentFires(topology.row(opened), topology.col(opened));
+			int hidden = 0;
+			for (int j = topology.neighbourStart(opened), end = topology.neighbourEnd(opened); j < end; j++) {
+				int n = topology.neighbour(j);
+				if (provenFire[n] || engine.isRevealed(topology.row(n), topology.col(n))) {
+					if (provenFire[n] || engine.isFire(topology.row(n), topology.col(n))) left--;
+				} else {
+					hidden++;
+				}
+			}
+			return hidden > 0 ? (double) left / hidden : 0;
+		}
+	}
+
+	/**
+	 * Stats Class
+	 * Counts summed over the games of a run. The gem balance curves have a point every tenth of the safe cells
+	 * opened; a game adds to a point once it gets there, with the gems it holds and has earned at that moment.
+	 */
+	public static final class Stats {
+		private int games;
+		private int wins;
+		private long moves;//Clicks that changed the board
+		private long wonMoves;
+		private long guesses;
+		private long cellsOpened;
+		private long gemsEarned;
+		private long gemsLeft;//Unspent gems at the end of the games
+		private long potionsBought;
+		private long potionsUsed;
+		private long spellsBought;
+		private long spellsUsed;
+		private final int[] reached = new int[CURVE_POINTS];
+		private final long[] gemsHeld = new long[CURVE_POINTS];
+		private final long[] gemsEarnedAt = new long[CURVE_POINTS];
+
+		private void add(Stats other) {
+			games += other.games;
+			wins += other.wins;
+			moves += other.moves;
+			wonMoves += other.wonMoves;
+			guesses += other.guesses;
+			cellsOpened += other.cellsOpened;
+			gemsEarned += other.gemsEarned;
+			gemsLeft += other.gemsLeft;
+			potionsBought += other.potionsBought;
+			potionsUsed += other.potionsUsed;
+			spellsBought += other.spellsBought;
+			spellsUsed += other.spellsUsed;
+			for (int p = 0; p < CURVE_POINTS; p++) {
+				reached[p] += other.reached[p];
+				gemsHeld[p] += other.gemsHeld[p];
+				gemsEarnedAt[p] += other.gemsEarnedAt[p];
+			}
+		}
+
+		private double perGame(long count) {
+			return games > 0 ? (double) count / games : 0;
+		}
+
+		public int getGames() {
+			return games;
+		}
+
+		public int getWins() {
+			return wins;
+		}
+
+		public double getWinRate() {
+			return perGame(wins);
+		}
+
+		/**
+		 * @return Average number of clicks per game, the first click included.
+		 */
+		public double getAverageMoves() {
+			return perGame(moves);
+		}
+
+		/**
+		 * @return Average number of clicks per won game.
+		 */
+		public double getAverageWonMoves() {
+			return wins > 0 ? (double) wonMoves / wins : 0;
+		}
+
+		/**
+		 * @return Average number of clicks per game on cells nothing was proven about.
+		 */
+		public double getAverageGuesses() {
+			return perGame(guesses);
+		}
+
+		public double getAverageCellsOpened() {
+			return perGame(cellsOpened);
+		}
+
+		public double getAverageGemsEarned() {
+			return perGame(gemsEarned);
+		}
+
+		/**
+		 * @return Average number of gems left unspent at the end of a game.
+		 */
+		public double getAverageGemsLeft() {
+			return perGame(gemsLeft);
+		}
+
+		public double getAveragePotionsBought() {
+			return perGame(potionsBought);
+		}
+
+		/**
+		 * @return Average number of fires frozen by a Life Potion per game.
+		 */
+		public double getAveragePotionsUsed() {
+			return perGame(potionsUsed);
+		}
+
+		public double getAverageSpellsBought() {
+			return perGame(spellsBought);
+		}
+
+		public double getAverageSpellsUsed() {
+			return perGame(spellsUsed);
+		}
+
+		/**
+		 * @param point Point of the curves, 0 to CURVE_POINTS - 1, at point * 10% of the safe cells opened.
+		 * @return The share of the games that got there.
+		 */
+		public double getReached(int point) {
+			return perGame(reached[point]);
+		}
+
+		/**
+		 * @return The average gems held by the games that got to a point of the curves.
+		 */
+		public double getGemsHeld(int point) {
+			return reached[point] > 0 ? (double) gemsHeld[point] / reached[point] : 0;
+		}
+
+		/**
+		 * @return The average gems earned so far by the games that got to a point of the curves.
+		 */
+		public double getGemsEarned(int point) {
+			return reached[point] > 0 ? (double) gemsEarnedAt[point] / reached[point] : 0;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder text = new StringBuilder();
+			text.append(String.format(Locale.ROOT, "  win rate %.2f%%, %.1f clicks (%.1f guesses), %.1f clicks to win,"
+							+ " %.1f cells opened%n", getWinRate() * 100, getAverageMoves(), getAverageGuesses(),
+					getAverageWonMoves(), getAverageCellsOpened()));
+			text.append(String.format(Locale.ROOT, "  %.2f gems earned, %.2f left unspent, potions %.2f bought / %.2f used,"
+							+ " spells %.2f bought / %.2f used%n", getAverageGemsEarned(), getAverageGemsLeft(),
+					getAveragePotionsBought(), getAveragePotionsUsed(), getAverageSpellsBought(), getAverageSpellsUsed()));
+			text.append("  opened   reached   gems held   gems earned").append(System.lineSeparator());
+			for (int p = 0; p < CURVE_POINTS; p++) {
+				text.append(String.format(Locale.ROOT, "  %5d%%   %6.2f%%   %9.2f   %11.2f%n",
+						p * 100 / (CURVE_POINTS - 1), getReached(p) * 100, getGemsHeld(p), getGemsEarned(p)));
+			}
+			return text.toString();
+		}
+	}
+
+	/**
+	 * Simulates every combination of the options given on the command line, see the class comment
+	 *
+	 * @param args Options, each followed by its value or a comma separated list of values.
+	 */
+	public static void main(String[] args) {
+		int games = 100_000;
+		long seed = 1;
+		int threads = Runtime.getRuntime().availableProcessors();
+		String[] shapes = {BoardTopology.Shape.CIRCLE.name()};
+		String[] sizes = {"17"};
+		String[] fires = {"30"};
+		String[] gems = {String.valueOf(RunesEngine.MAX_GEMS_PER_REVEAL)};
+		String[] potions = {String.valueOf(RunesEngine.POTION_PRICE)};
+		String[] spells = {String.valueOf(RunesEngine.SPELL_PRICE)};
+		String[] policies = {"ALL"};
+		if (args.length % 2 != 0) {
+			System.out.println("Usage: java engine.Simulator [--games n] [--seed n] [--threads n] [--shape list]"
+					+ " [--size list] [--fires list] [--gems list] [--potion list] [--spell list] [--policy list|ALL]");
+			return;
+		}
+		for (int i = 0; i < args.length; i += 2) {
+			String[] values = args[i + 1].split(",");
+			switch (args[i]) {
+				case "--games": games = Integer.parseInt(args[i + 1]); break;
+				case "--seed": seed = Long.parseLong(args[i + 1]); break;
+				case "--threads": threads = Integer.parseInt(args[i + 1]); break;
+				case "--shape": shapes = values; break;
+				case "--size": sizes = values; break;
+				case "--fires": fires = values; break;
+				case "--gems": gems = values; break;
+				case "--potion": potions = values; break;
+				case "--spell": spells = values; break;
+				case "--policy": policies = values; break;
+				default:
+					System.out.println("Unknown option " + args[i] + ", see the comment of engine.Simulator");
+					return;
+			}
+		}
+		List<Policy> policyList = new ArrayList<>();
+		for (String policy : policies) {
+			if (policy.equalsIgnoreCase("ALL")) {
+				policyList.addAll(Arrays.asList(Policy.values()));
+			} else {
+				policyList.add(Policy.valueOf(policy.toUpperCase(Locale.ROOT)));
+			}
+		}
+
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			for (String shape : shapes) {
+				for (String size : sizes) {
+					BoardTopology topology = BoardTopology.of(
+							BoardTopology.Shape.valueOf(shape.toUpperCase(Locale.ROOT)), Integer.parseInt(size));
+					for (String numFires : fires) {
+						for (String maxGems : gems) {
+							for (String potion : potions) {
+								for (String spell : spells) {
+									Economy economy = new Economy(Integer.parseInt(maxGems),
+											Integer.parseInt(potion), Integer.parseInt(spell));
+									Simulator simulator = new Simulator(topology, Integer.parseInt(numFires), economy, pool);
+									for (Policy policy : policyList) {
+										long start = System.nanoTime();
+										Stats stats = simulator.run(policy, games, seed);
+										double seconds = (System.nanoTime() - start) / 1e9;
+										System.out.printf(Locale.ROOT, "%s %sx%s, %s fires, %s, %s: %d games in %.1f s%n",
+												topology.getShape(), size, size, numFires, economy, policy, games, seconds);
+										System.out.print(stats);
+									}
+								}
+							}
+						}
+					}
+				}
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+}
@@ -0,0 +1,105 @@
+package engine;
+
+import java.util.Arrays;
+
+/**
+ * SparsePool Class
+ * The playable cells in row order, as sampled by the partial Fisher-Yates fire placement of {@link RunesEngine}.
+ *
+ * Only the positions a swap wrote to are stored; every other position still holds the cell of the same index.
+ * A placement writes about one position per fire, so the pool takes memory for the fires, not for the cells
+ * of the board, while giving the same draws as a full array of cells.
+ *
+ * Sparse Pool Implementation
+ * 1) Written positions and their cells live in an open addressing hash table with linear probing,
+ *    sized once for the most positions a placement writes
+ * 2) The slots used are listed in order, so reset() and positionOf() only visit the positions written
+ */
+final class SparsePool {
+
+	private static final int EMPTY = -1;
+
+	private final int[] positions;//Position stored in each slot, EMPTY if none
+	private final int[] cells;//Cell at the position of each slot
+	private final int[] used;//Slots in use, in the order they were filled
+	private final int mask;
+	private final int shift;//Keeps the top bits of the hash, the best mixed ones
+	private int size = 0;
+
+	/**
+	 * @param maxWrites The most positions written between two calls to reset().
+	 */
+	SparsePool(int maxWrites) {
+		//At most half full, so probes stay short
+		int capacity = Integer.highestOneBit(Math.max(maxWrites, 1) * 2 - 1) << 1;
+		positions = new int[capacity];
+		cells = new int[capacity];
+		used = new int[maxWrites];
+		mask = capacity - 1;
+		shift = Integer.numberOfLeadingZeros(mask);
+		Arrays.fill(positions, EMPTY);
+	}
+
+	/**
+	 * Puts every cell back at its own position
+	 */
+	void reset() {
+		for (int i = 0; i < size; i++) {
+			positions[used[i]] = EMPTY;
+		}
+		size = 0;
+	}
+
+	/**
+	 * @return The cell at a position.
+	 */
+	int get(int position) {
+		int slot = find(position);
+		return positions[slot] == EMPTY ? position : cells[slot];
+	}
+
+	/**
+	 * Stores the cell at a position
+	 */
+	void set(int position, int cell) {
+		int slot = find(position);
+		if (positions[slot] == EMPTY) {
+			positions[slot] = position;
+			used[size++] = slot;
+		}
+		cells[slot] = cell;
+	}
+
+	/**
+	 * Swaps the cells of two positions
+	 */
+	void swap(int i, int j) {
+		int a = get(i);
+		set(i, get(j));
+		set(j, a);
+	}
+
+	/**
+	 * Finds a cell by visiting the positions written, meant for the few swaps before the fires are drawn
+	 *
+	 * @return The position of the cell.
+	 */
+	int positionOf(int cell) {
+		for (int i = 0; i < size; i++) {
+			if (cells[used[i]] == cell) return positions[used[i]];
+		}
+		//A cell not moved by a swap is still at its own position
+		return cell;
+	}
+
+	/**
+	 * @return The slot holding a position, or the empty slot where it would go.
+	 */
+	private int find(int position) {
+		int slot = (position * 0x9E3779B9) >>> shift;
+		while (positions[slot] != EMPTY && positions[slot] != position) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+}
@@ -0,0 +1,74 @@
+package harness;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ActionMetrics Class
+ * What one scripted action cost the UI: the time of its event handler, the pulses that followed
+ * it, the nodes it added to the scene and the heap it kept.
+ */
+final class ActionMetrics {
+
+	//Metric names, as used in baseline.properties after the action name, e.g. "firstClick.worstPulseMs"
+	static final String HANDLER_MS = "handlerMs";
+	static final String WORST_PULSE_MS = "worstPulseMs";
+	static final String TOTAL_PULSE_MS = "totalPulseMs";
+	static final String LAYOUT_CSS_MS = "layoutCssMs";
+	static final String NODES_CREATED = "nodesCreated";
+	static final String HEAP_GROWTH_KB = "heapGrowthKb";
+
+	private final String action;
+	private final Map<String, Double> values = new LinkedHashMap<>();
+
+	ActionMetrics(String action) {
+		this.action = action;
+	}
+
+	String getAction() {
+		return action;
+	}
+
+	void put(String metric, double value) {
+		values.put(metric, value);
+	}
+
+	Map<String, Double> getValues() {
+		return values;
+	}
+
+	/**
+	 * @param rounds The metrics of one action in several rounds.
+	 * @return The median of each metric over the rounds, which ignores the odd GC or scheduling hiccup.
+	 */
+	static ActionMetrics median(List<ActionMetrics> rounds) {
+		ActionMetrics median = new ActionMetrics(rounds.get(0).action);
+		for (String metric : rounds.get(0).values.keySet()) {
+			double[] values = new double[rounds.size()];
+			for (int i = 0; i < values.length; i++) {
+				values[i] = rounds.get(i).values.get(metric);
+			}
+			Arrays.sort(values);
+			int middle = values.length / 2;
+			median.put(metric, values.length % 2 == 1 ? values[middle] : (values[middle - 1] + values[middle]) / 2);
+		}
+		return median;
+	}
+
+	/**
+	 * @return The slack added to the allowed value of a metric, so small absolute changes of small
+	 *         numbers (a millisecond of scheduling noise, a few KB of heap) are not regressions.
+	 */
+	static double slack(String metric) {
+		switch (metric) {
+			case NODES_CREATED:
+				return 0;
+			case HEAP_GROWTH_KB:
+				return 1024;
+			default:
+				return 5;
+		}
+	}
+}
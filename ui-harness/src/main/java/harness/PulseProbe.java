@@ -0,0 +1,95 @@
+package harness;
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.Scene;
+
+/**
+ * PulseProbe Class
+ * Times every pulse of a scene while it is installed.
+ *
+ * An AnimationTimer marks the start of each pulse (animations run first in a pulse) and keeps
+ * pulses coming at the display rate, even when nothing else asks for one. The pre and post
+ * layout pulse listeners of the scene mark the CSS and layout passes, which follow the animations.
+ * A pulse is timed from its start to the end of the layout pass; rendering runs afterwards on the
+ * render thread and is not included.
+ *
+ * Only used from the JavaFX Application Thread, except the counters read by the harness once
+ * the pulses it waits for have passed.
+ */
+final class PulseProbe {
+
+	private final Scene scene;
+	private final Runnable preLayout = this::preLayout;
+	private final Runnable postLayout = this::postLayout;
+	private final AnimationTimer timer = new AnimationTimer() {
+		@Override
+		public void handle(long now) {
+			pulseStart = System.nanoTime();
+		}
+	};
+
+	private long pulseStart;
+	private long layoutStart;
+	private volatile int pulses;
+	private long worstPulseNanos;
+	private long totalPulseNanos;
+	private long layoutNanos;
+
+	PulseProbe(Scene scene) {
+		this.scene = scene;
+	}
+
+	/**
+	 * Starts timing the pulses of the scene
+	 */
+	void install() {
+		scene.addPreLayoutPulseListener(preLayout);
+		scene.addPostLayoutPulseListener(postLayout);
+		timer.start();
+	}
+
+	void uninstall() {
+		timer.stop();
+		scene.removePreLayoutPulseListener(preLayout);
+		scene.removePostLayoutPulseListener(postLayout);
+	}
+
+	/**
+	 * Forgets the pulses timed so far, before an action
+	 */
+	void reset() {
+		pulses = 0;
+		worstPulseNanos = 0;
+		totalPulseNanos = 0;
+		layoutNanos = 0;
+	}
+
+	private void preLayout() {
+		layoutStart = System.nanoTime();
+	}
+
+	private void postLayout() {
+		long end = System.nanoTime();
+		long pulse = end - pulseStart;
+		worstPulseNanos = Math.max(worstPulseNanos, pulse);
+		totalPulseNanos += pulse;
+		layoutNanos += end - layoutStart;
+		pulses++;
+	}
+
+	int getPulses() {
+		return pulses;
+	}
+
+	long getWorstPulseNanos() {
+		return worstPulseNanos;
+	}
+
+	long getTotalPulseNanos() {
+		return totalPulseNanos;
+	}
+
+	long getLayoutNanos() {
+		return layoutNanos;
+	}
+}
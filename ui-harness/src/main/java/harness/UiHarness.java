@@ -0,0 +1,465 @@
+package harness;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.function.Predicate;
+
+import engine.BoardTopology;
+import engine.RunesEngine;
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.control.Labeled;
+import javafx.scene.layout.GridPane;
+import javafx.stage.Stage;
+
+/**
+ * UiHarness Class
+ * Plays a scripted game of RunesReaper headless and measures what each action costs the UI.
+ *
+ * The harness starts the real RunesReaperUI and presses its buttons with Button.fire(), so every
+ * action runs through the game's own event handlers, on the JavaFX Application Thread.
+ * It needs the Monocle headless platform and the software renderer (see pom.xml).
+ *
+ * Script, played WARMUP_ROUNDS times unmeasured and then ROUNDS times measured
+ * 1) Press PLAY on the start screen (Adept board)
+ * 2) First click, on a cell that opens close to TARGET_OPENING cells
+ * 3) Collect gems until a Life Potion can be bought (not measured), open the shop and buy it
+ * 4) Click a fire, which uses the potion (not measured), then another one: game over
+ * 5) Press Play Again!, then go back Home (not measured)
+ *
+ * The board is dealt from a fixed seed (-Drunesreaper.seed), and the harness plays a copy of the
+ * game on its own RunesEngine with the same seed, so it knows where the fires, gems and openings
+ * are without reading them from the UI.
+ *
+ * Each action is measured after the previous one settled: handler time, the pulses of the next
+ * WINDOW_PULSES (worst, total, and CSS + layout time), the nodes added to the scene and the heap
+ * still used after a full GC. The median of the measured rounds is compared with baseline.properties;
+ * any metric above baseline * (1 + tolerance) + slack fails the run with exit code 1.
+ * A baseline recorded outside the CI machine is marked provisional: its regressions are listed,
+ * but only fail the run once it is recorded again on CI.
+ *
+ * Monocle cannot create image cursors and logs an UnsupportedOperationException when the game
+ * sets its wand cursor; the cursor is not part of any measurement.
+ */
+public final class UiHarness {
+
+	//The Adept board the game starts with: a circle of 17 cells and 15.5% fires
+	private static final BoardTopology.Shape SHAPE = BoardTopology.Shape.CIRCLE;
+	private static final int SIZE = 17;
+	private static final double DENSITY = 0.155;
+	//Cells the measured first click should open
+	private static final int TARGET_OPENING = 150;
+	//Seeds tried to find that first click
+	private static final int MAX_SEEDS = 1000;
+	//Pulses measured after each action, and pulses waited before it so earlier animations are done
+	private static final int WINDOW_PULSES = 60;
+	private static final int SETTLE_PULSES = 90;
+	//Key of baseline.properties marking a baseline recorded outside CI, which is not enforced
+	private static final String PROVISIONAL_KEY = "baseline.provisional";
+	//Rounds of the script played to warm up the JIT and the cached panels, then rounds measured
+	private static final int WARMUP_ROUNDS = 2;
+	private static final int ROUNDS = 5;
+
+	private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+	//Metrics of every measured round, by action in script order
+	private final Map<String, List<ActionMetrics>> results = new LinkedHashMap<>();
+	private boolean measuring;
+	private PulseProbe probe;
+	private Scene scene;
+	private BoardTopology topology;
+	private int numFires;
+	private long seed;
+	private RunesEngine replica;
+
+	public static void main(String[] args) {
+		int exitCode;
+		try {
+			exitCode = new UiHarness().run();
+		} catch (Throwable e) {
+			//The JavaFX thread would keep the JVM alive, so a failed script must still exit
+			e.printStackTrace();
+			exitCode = 2;
+		}
+		Platform.exit();
+		System.exit(exitCode);
+	}
+
+	private int run() throws Exception {
+		topology = BoardTopology.of(SHAPE, SIZE);
+		numFires = (int) Math.round(topology.getCellCount() * DENSITY);
+		int[] firstClick = findFirstClick(topology, numFires);
+		seed = firstClick[0];
+		System.setProperty("runesreaper.seed", String.valueOf(seed));
+		//Autosaves go to a directory of their own, away from the player's saved game
+		System.setProperty("runesreaper.save", Files.createTempDirectory("runesreaper-harness").resolve("game.rrsv").toString());
+
+		//Starts the toolkit and the game, the way Application.launch() would
+		CountDownLatch started = new CountDownLatch(1);
+		Platform.startup(started::countDown);
+		started.await();
+		onFx(() -> {
+			Application game = (Application) Class.forName("RunesReaperUI").getDeclaredConstructor().newInstance();
+			Stage stage = new Stage();
+			game.start(stage);
+			scene = stage.getScene();
+			probe = new PulseProbe(scene);
+			probe.install();
+			return null;
+		});
+
+		for (int round = 0; round < WARMUP_ROUNDS + ROUNDS; round++) {
+			measuring = round >= WARMUP_ROUNDS;
+			playRound(firstClick[1]);
+		}
+
+		onFx(() -> {
+			probe.uninstall();
+			return null;
+		});
+		return report();
+	}
+
+	/**
+	 * Plays the script once, from the start screen back to it
+	 *
+	 * @param firstCell Compact index of the cell clicked first.
+	 */
+	private void playRound(int firstCell) throws Exception {
+		//Every game deals its board from the seed again, and so does the copy
+		replica = new RunesEngine(topology, numFires, seed, true);
+		measure("startGame", () -> button("PLAY").fire());
+		String expected = "Cells Opened: 0/" + replica.getSafeCellCount();
+		if (onFx(() -> find(node -> node instanceof Labeled && expected.equals(((Labeled) node).getText()))) == null) {
+			throw new IllegalStateException("The game did not start on the expected board: no \"" + expected + "\" label");
+		}
+
+		int row = topology.row(firstCell);
+		int col = topology.col(firstCell);
+		measure("firstClick", () -> click(row, col));
+
+		collectGems(RunesEngine.POTION_PRICE);
+		measure("openShop", () -> button("Shop").fire());
+		measure("buyPotion", () -> button("1 Life Potion for " + RunesEngine.POTION_PRICE + " gems").fire());
+		onFx(() -> {
+			button("Close").fire();
+			return null;
+		});
+
+		//The first fire uses the potion, the second one ends the game
+		onFx(() -> {
+			clickFire();
+			button("OK").fire();
+			return null;
+		});
+		measure("gameOver", this::clickFire);
+
+		replica = new RunesEngine(topology, numFires, seed, true);
+		measure("playAgain", () -> button("Play Again!").fire());
+		onFx(() -> {
+			button("Home").fire();
+			return null;
+		});
+	}
+
+	/**
+	 * Finds a seed and a first click opening close to TARGET_OPENING cells, by playing the first
+	 * click of every cell on copies of the game
+	 *
+	 * @return The seed and the compact index of the cell.
+	 */
+	private static int[] findFirstClick(BoardTopology topology, int numFires) {
+		int[] best = {1, 0};
+		int bestDistance = Integer.MAX_VALUE;
+		for (int seed = 1; seed <= MAX_SEEDS && bestDistance > 0; seed++) {
+			for (int c = 0; c < topology.getCellCount(); c++) {
+				RunesEngine engine = new RunesEngine(topology, numFires, seed, true);
+				engine.reveal(topology.row(c), topology.col(c));
+				int distance = Math.abs(engine.getCellsOpened() - TARGET_OPENING);
+				if (!engine.isGameOver() && distance < bestDistance) {
+					bestDistance = distance;
+					best = new int[] {seed, c};
+				}
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Clicks safe numbered cells and picks up the gems they spawn until the player has enough
+	 */
+	private void collectGems(int wanted) throws Exception {
+		onFx(() -> {
+			BoardTopology topology = replica.getTopology();
+			for (int c = 0; c < topology.getCellCount() && replica.getGemCount() < wanted; c++) {
+				int row = topology.row(c);
+				int col = topology.col(c);
+				if (replica.isFire(row, col) || replica.isRevealed(row, col) || replica.hasGem(row, col)) continue;
+				click(row, col);
+				for (int g = replica.getLiveGemCount() - 1; g >= 0 && replica.getGemCount() < wanted; g--) {
+					int gemRow = replica.getLiveGemRow(g);
+					int gemCol = replica.getLiveGemCol(g);
+					cellNode(gemRow, gemCol, false).fire();
+					replica.collectGem(gemRow, gemCol);
+				}
+			}
+			if (replica.getGemCount() < wanted || replica.isGameOver()) {
+				throw new IllegalStateException("Could not collect " + wanted + " gems on this board");
+			}
+			return null;
+		});
+		settle();
+	}
+
+	/**
+	 * Clicks a cell on the board and on the copy of the game
+	 */
+	private void click(int row, int col) {
+		cellNode(row, col, true).fire();
+		replica.reveal(row, col);
+	}
+
+	/**
+	 * Clicks the first hidden fire that has no gem on it
+	 */
+	private void clickFire() {
+		BoardTopology topology = replica.getTopology();
+		for (int c = 0; c < topology.getCellCount(); c++) {
+			int row = topology.row(c);
+			int col = topology.col(c);
+			if (replica.isFire(row, col) && !replica.isRevealed(row, col) && !replica.hasGem(row, col)) {
+				click(row, col);
+				return;
+			}
+		}
+		throw new IllegalStateException("No hidden fire left to click");
+	}
+
+	/**
+	 * Runs an action on the JavaFX Application Thread and measures it
+	 *
+	 * @param name Name of the action in the report and baseline.properties.
+	 * @param action The action, e.g. a button press.
+	 */
+	private void measure(String name, Runnable action) throws Exception {
+		settle();
+		long heapBefore = usedHeapAfterGc();
+		Set<Node> nodesBefore = onFx(this::sceneNodes);
+
+		long handlerNanos = onFx(() -> {
+			probe.reset();
+			long start = System.nanoTime();
+			action.run();
+			return System.nanoTime() - start;
+		});
+		waitPulses(WINDOW_PULSES);
+
+		ActionMetrics metrics = new ActionMetrics(name);
+		onFx(() -> {
+			metrics.put(ActionMetrics.HANDLER_MS, handlerNanos / 1e6);
+			metrics.put(ActionMetrics.WORST_PULSE_MS, probe.getWorstPulseNanos() / 1e6);
+			metrics.put(ActionMetrics.TOTAL_PULSE_MS, probe.getTotalPulseNanos() / 1e6);
+			metrics.put(ActionMetrics.LAYOUT_CSS_MS, probe.getLayoutNanos() / 1e6);
+			int created = 0;
+			for (Node node : sceneNodes()) {
+				if (!nodesBefore.contains(node)) created++;
+			}
+			metrics.put(ActionMetrics.NODES_CREATED, created);
+			return null;
+		});
+		nodesBefore.clear();
+		metrics.put(ActionMetrics.HEAP_GROWTH_KB, (usedHeapAfterGc() - heapBefore) / 1024.0);
+		if (measuring) {
+			results.computeIfAbsent(name, key -> new ArrayList<>()).add(metrics);
+		}
+	}
+
+	/**
+	 * Waits until the animations of earlier actions are over
+	 */
+	private void settle() throws Exception {
+		onFx(() -> {
+			probe.reset();
+			return null;
+		});
+		waitPulses(SETTLE_PULSES);
+	}
+
+	/**
+	 * Waits for a number of pulses, counted from the last probe reset
+	 */
+	private void waitPulses(int count) throws InterruptedException {
+		while (probe.getPulses() < count) {
+			Thread.sleep(5);
+		}
+	}
+
+	private long usedHeapAfterGc() {
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return memory.getHeapMemoryUsage().getUsed();
+	}
+
+	/**
+	 * @return Every node of the scene.
+	 */
+	private Set<Node> sceneNodes() {
+		Set<Node> nodes = Collections.newSetFromMap(new IdentityHashMap<>());
+		collect(scene.getRoot(), nodes);
+		return nodes;
+	}
+
+	private static void collect(Node node, Set<Node> nodes) {
+		nodes.add(node);
+		if (node instanceof Parent) {
+			for (Node child : ((Parent) node).getChildrenUnmodifiable()) {
+				collect(child, nodes);
+			}
+		}
+	}
+
+	/**
+	 * @return The first node of the scene matching a test, or null.
+	 */
+	private Node find(Predicate<Node> test) {
+		for (Node node : sceneNodes()) {
+			if (test.test(node)) return node;
+		}
+		return null;
+	}
+
+	/**
+	 * @return The visible button showing a text.
+	 */
+	private Button button(String text) {
+		Node button = find(node -> node instanceof Button && text.equals(((Button) node).getText()) && node.isVisible());
+		if (button == null) {
+			throw new IllegalStateException("No \"" + text + "\" button on screen");
+		}
+		return (Button) button;
+	}
+
+	/**
+	 * @param cell true for the cell button, false for the gem button shown over it.
+	 * @return A button of the board at a grid position.
+	 */
+	private Button cellNode(int row, int col, boolean cell) {
+		Node button = find(node -> node instanceof Button
+				&& node.getStyleClass().contains("game-cell") == cell
+				&& Integer.valueOf(row).equals(GridPane.getRowIndex(node))
+				&& Integer.valueOf(col).equals(GridPane.getColumnIndex(node)));
+		if (button == null) {
+			throw new IllegalStateException("No " + (cell ? "cell" : "gem") + " button at " + row + "," + col);
+		}
+		return (Button) button;
+	}
+
+	/**
+	 * Runs a task on the JavaFX Application Thread and waits for its result
+	 */
+	private static <T> T onFx(Callable<T> task) throws Exception {
+		FutureTask<T> future = new FutureTask<>(task);
+		Platform.runLater(future);
+		return future.get();
+	}
+
+	/**
+	 * Prints the metrics, compares them with the baseline and saves them
+	 *
+	 * @return 0 if nothing regressed, 1 otherwise.
+	 */
+	private int report() throws IOException {
+		Path baselinePath = Paths.get(System.getProperty("harness.baseline", "baseline.properties"));
+		double tolerance = Double.parseDouble(System.getProperty("harness.tolerance", "0.5"));
+		boolean record = Boolean.getBoolean("harness.record");
+		boolean recordProvisional = Boolean.getBoolean("harness.provisional");
+		Properties baseline = new Properties();
+		if (Files.exists(baselinePath)) {
+			try (InputStream in = Files.newInputStream(baselinePath)) {
+				baseline.load(in);
+			}
+		}
+		boolean provisional = Boolean.parseBoolean(baseline.getProperty(PROVISIONAL_KEY));
+		if (provisional && !record) {
+			System.out.println("The baseline is provisional (recorded outside CI): regressions are listed, not enforced");
+		}
+
+		Map<String, String> measured = new TreeMap<>();
+		List<String> regressions = new ArrayList<>();
+		System.out.printf("%-12s %-14s %12s %12s %12s%n", "Action", "Metric", "Value", "Baseline", "Allowed");
+		for (List<ActionMetrics> rounds : results.values()) {
+			ActionMetrics metrics = ActionMetrics.median(rounds);
+			for (Map.Entry<String, Double> entry : metrics.getValues().entrySet()) {
+				String key = metrics.getAction() + "." + entry.getKey();
+				double value = entry.getValue();
+				measured.put(key, String.format("%.2f", value));
+				String base = baseline.getProperty(key);
+				if (base == null) {
+					System.out.printf("%-12s %-14s %12.2f %12s %12s%n", metrics.getAction(), entry.getKey(), value, "-", "-");
+					continue;
+				}
+				double allowed = Double.parseDouble(base) * (1 + tolerance) + ActionMetrics.slack(entry.getKey());
+				boolean regressed = value > allowed;
+				System.out.printf("%-12s %-14s %12.2f %12s %12.2f%s%n", metrics.getAction(), entry.getKey(), value, base, allowed,
+						regressed ? "  REGRESSION" : "");
+				if (regressed) {
+					regressions.add(key + " = " + String.format("%.2f", value) + " > " + String.format("%.2f", allowed));
+				}
+			}
+		}
+
+		Properties properties = new Properties();
+		properties.putAll(measured);
+		Path resultsPath = Paths.get(System.getProperty("harness.results", "ui-harness-results.properties"));
+		save(properties, resultsPath);
+		if (record) {
+			if (recordProvisional) {
+				properties.setProperty(PROVISIONAL_KEY, "true");
+			}
+			save(properties, baselinePath);
+			System.out.println("Saved the numbers as the new baseline: " + baselinePath);
+			return 0;
+		}
+		if (!regressions.isEmpty()) {
+			System.out.println("UI performance regressed (tolerance " + tolerance + "):");
+			regressions.forEach(regression -> System.out.println("  " + regression));
+			if (provisional) {
+				System.out.println("Not failing: the baseline is provisional, record it on the CI machine with -Dharness.record=true");
+				return 0;
+			}
+			return 1;
+		}
+		return 0;
+	}
+
+	private static void save(Properties properties, Path path) throws IOException {
+		if (path.getParent() != null) {
+			Files.createDirectories(path.getParent());
+		}
+		try (OutputStream out = Files.newOutputStream(path)) {
+			properties.store(out, "RunesReaper UI harness: per action handler time, pulses (ms), nodes created and heap growth (KB)");
+		}
+	}
+}